@@ -0,0 +1,21 @@
+package com.greendao_schema_builder.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the JMH command line options, always adding the gc profiler,
+ * so that the allocations per operation are reported together with the throughput.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] _args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(_args))
+                .addProfiler(GCProfiler.class)
+                .build())
+            .run();
+    }
+}
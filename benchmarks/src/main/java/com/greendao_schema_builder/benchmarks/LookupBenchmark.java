@@ -0,0 +1,147 @@
+package com.greendao_schema_builder.benchmarks;
+
+import com.greendao_schema_builder.SchemaBuilder;
+import com.greendao_schema_builder.property.EntityRegistry;
+import com.greendao_schema_builder.property.FieldBlackList;
+import de.greenrobot.daogenerator.Entity;
+import de.greenrobot.daogenerator.Schema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the list based blacklist and entity lookups with the hash indexed ones,
+ * over every field of a synthetic model.
+ * The list based lookups reproduce the previous implementation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class LookupBenchmark {
+
+    @Param({"1000", "5000"})
+    public int entityCount;
+
+    @Param({"20"})
+    public int fieldCount;
+
+    private List<Class<?>> entityClasses;
+    private Field[][] entityFields;
+
+    // The greenDao Entity of every entity class.
+    private List<Entity> entities;
+
+    // One blacklisted relation field per entity, as added by SchemaBuilder.addEntityRelation.
+    private List<String> blackListEntries;
+
+    @Setup
+    public void setUp() {
+        entityClasses = SyntheticModel.generate(entityCount, fieldCount).getEntityClasses();
+
+        entityFields = new Field[entityClasses.size()][];
+        entities = new ArrayList<Entity>();
+        final Schema schema = new Schema(1, "com.example.schema");
+        blackListEntries = new ArrayList<String>();
+        blackListEntries.add("ENTITY_NAME");
+
+        for (int i = 0; i < entityClasses.size(); i++) {
+            entityFields[i] = entityClasses.get(i).getDeclaredFields();
+            blackListEntries.add(SchemaBuilder.extractFullPathName(entityClasses.get(i), "field0"));
+            entities.add(schema.addEntity("DB" + entityClasses.get(i).getSimpleName()));
+        }
+    }
+
+    @Benchmark
+    public int listBlackList() {
+        final List<String> blackList = new ArrayList<String>();
+        for (String entry : blackListEntries) {
+            if (!blackList.contains(entry)) {
+                blackList.add(entry);
+            }
+        }
+
+        int excluded = 0;
+        for (int i = 0; i < entityFields.length; i++) {
+            for (Field field : entityFields[i]) {
+                if (blackList.contains(field.getName())
+                        || blackList.contains(SchemaBuilder.extractFullPathName(entityClasses.get(i), field.getName())))
+                {
+                    excluded++;
+                }
+            }
+        }
+        return excluded;
+    }
+
+    @Benchmark
+    public int indexedBlackList() {
+        final FieldBlackList blackList = new FieldBlackList(blackListEntries);
+
+        int excluded = 0;
+        for (int i = 0; i < entityFields.length; i++) {
+            for (Field field : entityFields[i]) {
+                if (blackList.isBlackListed(entityClasses.get(i), field.getName())) {
+                    excluded++;
+                }
+            }
+        }
+        return excluded;
+    }
+
+    @Benchmark
+    public int listEntityRegistry() {
+        final List<Class<?>> addedEntityClasses = new ArrayList<Class<?>>();
+        final List<Entity> addedEntities = new ArrayList<Entity>();
+        for (int i = 0; i < entityClasses.size(); i++) {
+            if (!addedEntityClasses.contains(entityClasses.get(i))) {
+                addedEntityClasses.add(entityClasses.get(i));
+                addedEntities.add(entities.get(i));
+            }
+        }
+
+        // Every relation looks up the entities of its classes.
+        int found = 0;
+        for (Class<?> entityClass : entityClasses) {
+            final int index = addedEntityClasses.indexOf(entityClass);
+            if (index >= 0 && addedEntities.get(index) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int hashEntityRegistry() {
+        final EntityRegistry registry = new EntityRegistry();
+        for (int i = 0; i < entityClasses.size(); i++) {
+            if (!registry.contains(entityClasses.get(i))) {
+                registry.register(entityClasses.get(i), entities.get(i));
+            }
+        }
+
+        // Every relation looks up the entities of its classes.
+        int found = 0;
+        for (Class<?> entityClass : entityClasses) {
+            if (registry.get(entityClass) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
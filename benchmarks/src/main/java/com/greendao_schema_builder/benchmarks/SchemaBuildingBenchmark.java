@@ -0,0 +1,204 @@
+package com.greendao_schema_builder.benchmarks;
+
+import com.greendao_schema_builder.SchemaBuilder;
+import com.greendao_schema_builder.property.EntityPropertiesBuilder;
+import com.greendao_schema_builder.property.FieldBlackList;
+import com.greendao_schema_builder.property.PropertyOptions;
+import com.greendao_schema_builder.relationship.EntityRelation;
+import com.greendao_schema_builder.relationship.EntityRelationBuilder;
+import com.greendao_schema_builder.utils.ClassMetadata;
+import com.greendao_schema_builder.utils.ClassMetadataCache;
+import de.greenrobot.daogenerator.Schema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the stages of a schema generation over a synthetic model:
+ * the property building, the relation resolution, the blacklist filtering and the end to end generation.
+ * Run with the gc profiler for the allocations, as the {@link BenchmarkRunner} does.
+ *
+ * The reflected class metadata is cached per class, so after the first invocation
+ * the property building measures the cached path, as the later generations of a running builder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class SchemaBuildingBenchmark {
+
+    private static final String JAVA_PACKAGE = "com.greendao_schema_builder.benchmarks.schema";
+
+    @Param({"100", "1000"})
+    public int entityCount;
+
+    @Param({"20"})
+    public int fieldCount;
+
+    @Param({"0", "3"})
+    public int inheritanceDepth;
+
+    @Param({"2"})
+    public int relationDensity;
+
+    private SyntheticModel model;
+
+    // The relation fields, as added by SchemaBuilder.addEntityRelation, and a package wide entry.
+    private List<String> blackListEntries;
+
+    // The output directory of the unchanged generation, generated once before the measurement.
+    private File unchangedOutDirectory;
+
+    @Setup
+    public void setUp() throws Exception {
+        model = SyntheticModel.generate(entityCount, fieldCount, inheritanceDepth, relationDensity);
+
+        blackListEntries = new ArrayList<String>();
+        blackListEntries.add("ENTITY_NAME");
+        blackListEntries.add(SyntheticModel.MODEL_PACKAGE + ".*.serialVersionUID");
+        for (EntityRelation relation : model.getEntityRelations()) {
+            blackListEntries.add(SchemaBuilder.extractFullPathName(
+                    relation.getSourceEntity(), relation.getRelationFieldName()));
+        }
+
+        unchangedOutDirectory = Files.createTempDirectory("schema-benchmark").toFile();
+        newSchemaBuilder(unchangedOutDirectory).generate();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        deleteRecursively(unchangedOutDirectory);
+    }
+
+    /**
+     * A schema with the properties of every entity, without relations, built before every invocation.
+     */
+    @State(Scope.Thread)
+    public static class PropertiesState {
+        Schema schema;
+        EntityPropertiesBuilder entityPropertiesBuilder;
+
+        @Setup(Level.Invocation)
+        public void setUp(SchemaBuildingBenchmark _benchmark) throws Exception {
+            schema = new Schema(1, JAVA_PACKAGE);
+            entityPropertiesBuilder = _benchmark.buildProperties(schema);
+        }
+    }
+
+    /**
+     * An empty output directory, created before every invocation.
+     */
+    @State(Scope.Thread)
+    public static class OutDirectoryState {
+        File outDirectory;
+
+        @Setup(Level.Invocation)
+        public void setUp() throws IOException {
+            outDirectory = Files.createTempDirectory("schema-benchmark").toFile();
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws IOException {
+            deleteRecursively(outDirectory);
+        }
+    }
+
+    @Benchmark
+    public Schema buildProperties() throws Exception {
+        final Schema schema = new Schema(1, JAVA_PACKAGE);
+        buildProperties(schema);
+        return schema;
+    }
+
+    @Benchmark
+    public Schema resolveRelations(PropertiesState _state) throws Exception {
+        final EntityRelationBuilder entityRelationBuilder =
+                new EntityRelationBuilder(_state.schema, _state.entityPropertiesBuilder.getAddedEntities());
+        for (EntityRelation relation : model.getEntityRelations()) {
+            entityRelationBuilder.buildRelation(relation);
+        }
+        return _state.schema;
+    }
+
+    @Benchmark
+    public int filterBlackList() {
+        final FieldBlackList blackList = new FieldBlackList(blackListEntries);
+
+        int excluded = 0;
+        for (Class<?> entityClass : model.getEntityClasses()) {
+            final ClassMetadata metadata = ClassMetadataCache.get(entityClass);
+            for (int i = 0; i < metadata.getFieldCount(); i++) {
+                if (blackList.isBlackListed(entityClass, metadata.getField(i).getName())) {
+                    excluded++;
+                }
+            }
+        }
+        return excluded;
+    }
+
+    @Benchmark
+    public SchemaBuilder generate(OutDirectoryState _state) throws Exception {
+        final SchemaBuilder schemaBuilder = newSchemaBuilder(_state.outDirectory);
+        schemaBuilder.generate();
+        return schemaBuilder;
+    }
+
+    @Benchmark
+    public SchemaBuilder generateUnchanged() throws Exception {
+        final SchemaBuilder schemaBuilder = newSchemaBuilder(unchangedOutDirectory);
+        schemaBuilder.generate();
+        return schemaBuilder;
+    }
+
+    private EntityPropertiesBuilder buildProperties(Schema _schema) throws Exception {
+        final EntityPropertiesBuilder entityPropertiesBuilder = new EntityPropertiesBuilder(_schema, "");
+        final FieldBlackList blackList = new FieldBlackList(blackListEntries);
+        for (Class<?> entityClass : model.getEntityClasses()) {
+            entityPropertiesBuilder.buildPropertiesForEntity(entityClass, blackList, SyntheticModel.PRIMARY_KEY);
+        }
+        return entityPropertiesBuilder;
+    }
+
+    private SchemaBuilder newSchemaBuilder(File _outDirectory) {
+        final SchemaBuilder schemaBuilder = new SchemaBuilder(1, JAVA_PACKAGE, _outDirectory.getPath());
+        for (String entry : blackListEntries) {
+            schemaBuilder.addFieldToBlackList(entry);
+        }
+        for (Class<?> entityClass : model.getEntityClasses()) {
+            schemaBuilder.addEntityProperty(new PropertyOptions(entityClass, SyntheticModel.PRIMARY_KEY, null));
+        }
+        for (EntityRelation relation : model.getEntityRelations()) {
+            schemaBuilder.addEntityRelation(relation);
+        }
+        return schemaBuilder;
+    }
+
+    private static void deleteRecursively(File _file) throws IOException {
+        final File[] children = _file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        Files.delete(_file.toPath());
+    }
+}
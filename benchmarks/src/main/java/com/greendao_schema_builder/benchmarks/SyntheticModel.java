@@ -0,0 +1,262 @@
+package com.greendao_schema_builder.benchmarks;
+
+import com.greendao_schema_builder.relationship.EntityRelation;
+import com.greendao_schema_builder.relationship.EntityRelationType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A synthetic domain model of generated entity classes.
+ * The class files are written directly and defined by a dedicated class loader,
+ * so models of thousands of classes are created in milliseconds.
+ * The fields of an entity can be spread over a chain of super classes,
+ * and an entity can have relation fields to the following entities.
+ */
+public class SyntheticModel {
+
+    public static final String MODEL_PACKAGE = "com.greendao_schema_builder.benchmarks.model";
+    public static final String PRIMARY_KEY = "code";
+    public static final String RELATION_FIELD_PREFIX = "relation";
+
+    private static final String[] FIELD_DESCRIPTORS = {
+            "Ljava/lang/String;",
+            "Ljava/lang/Integer;",
+            "Ljava/lang/Long;",
+            "Ljava/lang/Double;",
+            "Ljava/lang/Boolean;",
+            "Ljava/util/Date;"
+    };
+
+    private static final String TO_MANY_DESCRIPTOR = "Ljava/util/List;";
+
+    private final List<Class<?>> entityClasses;
+    private final List<EntityRelation> entityRelations;
+
+    private SyntheticModel(List<Class<?>> _entityClasses, List<EntityRelation> _entityRelations) {
+        entityClasses = Collections.unmodifiableList(_entityClasses);
+        entityRelations = Collections.unmodifiableList(_entityRelations);
+    }
+
+    /**
+     * Generates a model of flat entities without relations.
+     * @param _entityCount the number of entity classes.
+     * @param _fieldCount the number of fields of every entity class, besides the primary key.
+     * @return the model.
+     */
+    public static SyntheticModel generate(int _entityCount, int _fieldCount) {
+        return generate(_entityCount, _fieldCount, 0, 0);
+    }
+
+    /**
+     * Generates a model.
+     * @param _entityCount the number of entity classes.
+     * @param _fieldCount the number of fields of every entity, besides the primary key and the relations.
+     * @param _inheritanceDepth the number of super classes of every entity class, the fields are spread over them.
+     * @param _relationDensity the number of relations of every entity, alternately to one and to many,
+     *                         to the entities that follow it.
+     * @return the model.
+     */
+    public static SyntheticModel generate(
+            int _entityCount,
+            int _fieldCount,
+            int _inheritanceDepth,
+            int _relationDensity)
+    {
+        if (_relationDensity >= _entityCount && _relationDensity > 0) {
+            throw new IllegalArgumentException("The relation density should be lower than the entity count.");
+        }
+
+        final ModelClassLoader classLoader = new ModelClassLoader();
+        final List<Class<?>> entityClasses = new ArrayList<Class<?>>(_entityCount);
+
+        // Define every class first, the relation fields refer to the following entities.
+        for (int i = 0; i < _entityCount; i++) {
+            final String className = entityClassName(i);
+
+            // The super classes, from the root down to the entity.
+            String superClassName = "java.lang.Object";
+            for (int level = 0; level < _inheritanceDepth; level++) {
+                final String baseClassName = className + "Base" + level;
+                classLoader.define(baseClassName,
+                        writeClass(baseClassName, superClassName, levelFields(_fieldCount, _inheritanceDepth, level)));
+                superClassName = baseClassName;
+            }
+
+            final Map<String, String> fields = new LinkedHashMap<String, String>();
+            fields.put(PRIMARY_KEY, FIELD_DESCRIPTORS[0]);
+            fields.putAll(levelFields(_fieldCount, _inheritanceDepth, _inheritanceDepth));
+            for (int relation = 0; relation < _relationDensity; relation++) {
+                fields.put(RELATION_FIELD_PREFIX + relation, isToOne(relation)
+                        ? "L" + entityClassName(relationTarget(i, relation, _entityCount)).replace('.', '/') + ";"
+                        : TO_MANY_DESCRIPTOR);
+            }
+
+            entityClasses.add(classLoader.define(className, writeClass(className, superClassName, fields)));
+        }
+
+        final List<EntityRelation> entityRelations = new ArrayList<EntityRelation>(_entityCount * _relationDensity);
+        for (int i = 0; i < _entityCount; i++) {
+            for (int relation = 0; relation < _relationDensity; relation++) {
+                final Class<?> relationClass = entityClasses.get(relationTarget(i, relation, _entityCount));
+                final String relationFieldName = RELATION_FIELD_PREFIX + relation;
+
+                entityRelations.add(isToOne(relation)
+                        ? new EntityRelation(entityClasses.get(i), relationClass, relationFieldName,
+                                EntityRelationType.ONE_TO_ONE)
+                        // A foreign key of its own, an entity can be the target of several to many relations.
+                        : new EntityRelation(entityClasses.get(i), relationClass, relationFieldName,
+                                EntityRelationType.ONE_TO_MANY, "entity" + i + "_" + relationFieldName));
+            }
+        }
+
+        return new SyntheticModel(entityClasses, entityRelations);
+    }
+
+    public List<Class<?>> getEntityClasses() {
+        return entityClasses;
+    }
+
+    public List<EntityRelation> getEntityRelations() {
+        return entityRelations;
+    }
+
+    private static String entityClassName(int _index) {
+        return MODEL_PACKAGE + ".Entity" + _index;
+    }
+
+    private static boolean isToOne(int _relation) {
+        return _relation % 2 == 0;
+    }
+
+    private static int relationTarget(int _entity, int _relation, int _entityCount) {
+        return (_entity + _relation + 1) % _entityCount;
+    }
+
+    /**
+     * Returns the fields declared at a level of the class hierarchy, the entity class being the last level.
+     */
+    private static Map<String, String> levelFields(int _fieldCount, int _inheritanceDepth, int _level) {
+        final Map<String, String> fields = new LinkedHashMap<String, String>();
+        for (int field = _level; field < _fieldCount; field += _inheritanceDepth + 1) {
+            fields.put("field" + field, FIELD_DESCRIPTORS[field % FIELD_DESCRIPTORS.length]);
+        }
+        return fields;
+    }
+
+    /**
+     * Writes the class file of a class with private fields and no methods.
+     * @param _className the class name.
+     * @param _superClassName the super class name.
+     * @param _fields field name to field descriptor.
+     * @return the class file bytes.
+     */
+    static byte[] writeClass(String _className, String _superClassName, Map<String, String> _fields) {
+        final ConstantPool constantPool = new ConstantPool();
+        final int thisClass = constantPool.addClass(_className.replace('.', '/'));
+        final int superClass = constantPool.addClass(_superClassName.replace('.', '/'));
+
+        final int[] fieldNames = new int[_fields.size()];
+        final int[] fieldDescriptors = new int[_fields.size()];
+        int index = 0;
+        for (Map.Entry<String, String> field : _fields.entrySet()) {
+            fieldNames[index] = constantPool.addUtf8(field.getKey());
+            fieldDescriptors[index] = constantPool.addUtf8(field.getValue());
+            index++;
+        }
+
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream out = new DataOutputStream(bytes);
+
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(52);
+            constantPool.write(out);
+
+            // public super class.
+            out.writeShort(0x0021);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);
+
+            out.writeShort(fieldNames.length);
+            for (int i = 0; i < fieldNames.length; i++) {
+                // private field, without attributes.
+                out.writeShort(0x0002);
+                out.writeShort(fieldNames[i]);
+                out.writeShort(fieldDescriptors[i]);
+                out.writeShort(0);
+            }
+
+            // No methods and no attributes.
+            out.writeShort(0);
+            out.writeShort(0);
+
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The constant pool of a class file, with UTF8 and class entries only.
+     */
+    private static class ConstantPool {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> utf8Entries = new LinkedHashMap<String, Integer>();
+        private int count = 1;
+
+        int addUtf8(String _value) {
+            Integer entry = utf8Entries.get(_value);
+            if (entry == null) {
+                try {
+                    out.writeByte(1);
+                    out.writeUTF(_value);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                entry = count++;
+                utf8Entries.put(_value, entry);
+            }
+            return entry;
+        }
+
+        int addClass(String _internalName) {
+            final int name = addUtf8(_internalName);
+            try {
+                out.writeByte(7);
+                out.writeShort(name);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return count++;
+        }
+
+        void write(DataOutputStream _out) throws IOException {
+            _out.writeShort(count);
+            _out.write(bytes.toByteArray());
+        }
+    }
+
+    /**
+     * Defines the generated model classes.
+     */
+    private static class ModelClassLoader extends ClassLoader {
+        ModelClassLoader() {
+            super(SyntheticModel.class.getClassLoader());
+        }
+
+        Class<?> define(String _className, byte[] _classFile) {
+            return defineClass(_className, _classFile, 0, _classFile.length);
+        }
+    }
+}
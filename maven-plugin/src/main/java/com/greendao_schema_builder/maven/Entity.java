@@ -0,0 +1,89 @@
+package com.greendao_schema_builder.maven;
+
+import com.greendao_schema_builder.property.PropertyOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An entity of the plugin configuration, the declarative counterpart of a {@link PropertyOptions}.
+ * <pre>
+ * &lt;entity&gt;
+ *     &lt;className&gt;com.example.model.Document&lt;/className&gt;
+ *     &lt;primaryKey&gt;code&lt;/primaryKey&gt;
+ *     &lt;interfaces&gt;
+ *         &lt;interface&gt;com.example.IEntity&lt;/interface&gt;
+ *     &lt;/interfaces&gt;
+ *     &lt;indexes&gt;
+ *         &lt;index&gt;title&lt;/index&gt;
+ *     &lt;/indexes&gt;
+ *     &lt;uniqueIndexes&gt;
+ *         &lt;uniqueIndex&gt;number,year&lt;/uniqueIndex&gt;
+ *     &lt;/uniqueIndexes&gt;
+ * &lt;/entity&gt;
+ * </pre>
+ */
+public class Entity {
+
+    // The model class name.
+    private String className;
+
+    // The primary key field name.
+    private String primaryKey;
+
+    // The super class name of the generated entity.
+    private String superClassName;
+
+    // The interfaces implemented by the generated entity.
+    private List<String> interfaces = new ArrayList<String>();
+
+    // The indexes, the field names of every index separated by commas.
+    private List<String> indexes = new ArrayList<String>();
+    private List<String> uniqueIndexes = new ArrayList<String>();
+
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Builds the property options of the entity.
+     * @param _entityClass the model class, loaded from the class loader of the project.
+     * @return the options.
+     */
+    PropertyOptions toPropertyOptions(Class<?> _entityClass) {
+        final PropertyOptions options = new PropertyOptions(
+                _entityClass,
+                primaryKey,
+                superClassName,
+                interfaces.toArray(new String[interfaces.size()]));
+        for (String index : indexes) {
+            options.addIndex(splitFieldNames(index));
+        }
+        for (String index : uniqueIndexes) {
+            options.addUniqueIndex(splitFieldNames(index));
+        }
+        return options;
+    }
+
+    private static String[] splitFieldNames(String _fieldNames) {
+        final String[] fieldNames = _fieldNames.split(",");
+        for (int i = 0; i < fieldNames.length; i++) {
+            fieldNames[i] = fieldNames[i].trim();
+        }
+        return fieldNames;
+    }
+
+    /**
+     * Describes the configuration of the entity, in order to detect a change.
+     * @param _configuration the description.
+     */
+    void describe(StringBuilder _configuration) {
+        _configuration.append("entity=").append(className)
+                .append(';').append(primaryKey)
+                .append(';').append(superClassName)
+                .append(';').append(interfaces)
+                .append(';').append(indexes)
+                .append(';').append(uniqueIndexes)
+                .append('\n');
+    }
+}
@@ -0,0 +1,413 @@
+package com.greendao_schema_builder.maven;
+
+import com.greendao_schema_builder.SchemaBuilder;
+import com.greendao_schema_builder.discovery.EntityScanner;
+import com.greendao_schema_builder.errors.InvalidEntityException;
+import com.greendao_schema_builder.errors.InvalidEntityRelationException;
+import com.greendao_schema_builder.errors.UnsupportedFieldTypeException;
+import com.greendao_schema_builder.generator.SchemaManifest;
+import com.greendao_schema_builder.property.PropertyOptions;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates the greenDao schema of the compiled model classes of the project, within the Maven JVM.
+ * The entities and relations are declared in the configuration, or discovered by scanning packages
+ * for {@link com.greendao_schema_builder.annotation.GreenDaoEntity} classes, or both.
+ * <p>
+ * The inputs of the generation are the configuration, the class files of the classes directory,
+ * the compile class path and the jars of the plugin, the output is the output directory and its manifest.
+ * The generation is skipped altogether while the fingerprint of the inputs is the one of the previous generation,
+ * and all the files of the manifest are still there. Otherwise the generation is incremental by default,
+ * so only the entities which changed, and those related to them, are rendered again.
+ */
+@Mojo(name = "generate",
+        defaultPhase = LifecyclePhase.PROCESS_CLASSES,
+        requiresDependencyResolution = ResolutionScope.COMPILE,
+        threadSafe = true)
+public class GenerateMojo extends AbstractMojo {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // The file keeping the fingerprint of the inputs of the previous generation, in the state directory.
+    static final String INPUTS_FILE_NAME = "inputs.sha1";
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    @Parameter(defaultValue = "${plugin}", readonly = true, required = true)
+    private PluginDescriptor plugin;
+
+    /**
+     * The greenDao schema version.
+     */
+    @Parameter(property = "greendao.schema.version", required = true)
+    private int version;
+
+    /**
+     * The default Java package of the generated classes.
+     */
+    @Parameter(required = true)
+    private String defaultJavaPackage;
+
+    /**
+     * The directory which the schema is generated in.
+     */
+    @Parameter(required = true)
+    private File outDirectory;
+
+    /**
+     * The prefix of the model fields, removed from the property names.
+     */
+    @Parameter(defaultValue = "")
+    private String fieldPrefix;
+
+    /**
+     * The prefix of the entity names.
+     */
+    @Parameter(defaultValue = PropertyOptions.PREFIX_ENTITY_NAME)
+    private String prefixEntityName;
+
+    /**
+     * The fields which are not made properties, simple field names or the patterns of the field blacklist.
+     */
+    @Parameter
+    private List<String> blackListFields = new ArrayList<String>();
+
+    /**
+     * The packages of the classes directory scanned for annotated entities, with their sub packages.
+     */
+    @Parameter
+    private List<String> scanPackages = new ArrayList<String>();
+
+    @Parameter
+    private List<Entity> entities = new ArrayList<Entity>();
+
+    @Parameter
+    private List<Relation> relations = new ArrayList<Relation>();
+
+    /**
+     * The field types registered with the property type they are stored as.
+     */
+    @Parameter
+    private List<TypeMapping> typeMappings = new ArrayList<TypeMapping>();
+
+    @Parameter(defaultValue = "true")
+    private boolean incremental;
+
+    @Parameter(defaultValue = "false")
+    private boolean deleteOrphans;
+
+    @Parameter(defaultValue = "false")
+    private boolean migrations;
+
+    @Parameter(defaultValue = "false")
+    private boolean bulkWriters;
+
+    @Parameter(defaultValue = "true")
+    private boolean indexForeignKeys;
+
+    @Parameter(defaultValue = "false")
+    private boolean rowIdPrimaryKeys;
+
+    @Parameter(defaultValue = "1")
+    private int parallelism;
+
+    @Parameter(defaultValue = "0")
+    private int batchSize;
+
+    /**
+     * The snapshot file of the resolved entities, none by default.
+     */
+    @Parameter
+    private File snapshotFile;
+
+    /**
+     * The directory of the compiled model classes.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}", required = true)
+    private File classesDirectory;
+
+    /**
+     * The directory keeping the fingerprint of the inputs of the previous generation.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/greendao-schema-builder", required = true)
+    private File stateDirectory;
+
+    /**
+     * Generates even if the inputs did not change.
+     */
+    @Parameter(property = "greendao.schema.force", defaultValue = "false")
+    private boolean force;
+
+    @Parameter(property = "greendao.schema.skip", defaultValue = "false")
+    private boolean skip;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info("Skipping the greenDao schema generation.");
+            return;
+        }
+
+        final List<File> classpath = getClasspath();
+        final File inputsFile = new File(stateDirectory, INPUTS_FILE_NAME);
+        final String inputs;
+        try {
+            inputs = fingerprintInputs(classpath);
+            if (!force && inputs.equals(readInputs(inputsFile)) && isOutputComplete()) {
+                getLog().info("The greenDao schema is up to date.");
+                return;
+            }
+
+            // A failed generation should not leave the fingerprint of a previous one behind.
+            Files.deleteIfExists(inputsFile.toPath());
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not fingerprint the inputs of the greenDao schema.", e);
+        }
+
+        generate(classpath);
+
+        try {
+            Files.createDirectories(stateDirectory.toPath());
+            Files.write(inputsFile.toPath(), inputs.getBytes(UTF_8));
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not write " + inputsFile + ".", e);
+        }
+    }
+
+    /**
+     * Returns the classes directory, followed by the compile class path of the project.
+     * @return the class path of the model classes.
+     * @throws MojoExecutionException
+     */
+    private List<File> getClasspath() throws MojoExecutionException {
+        final Set<File> classpath = new LinkedHashSet<File>();
+        classpath.add(classesDirectory.getAbsoluteFile());
+        try {
+            for (String element : project.getCompileClasspathElements()) {
+                classpath.add(new File(element).getAbsoluteFile());
+            }
+        } catch (DependencyResolutionRequiredException e) {
+            throw new MojoExecutionException("The compile dependencies are not resolved.", e);
+        }
+        return new ArrayList<File>(classpath);
+    }
+
+    /**
+     * Fingerprints the configuration, the class path of the model classes, and the jars of the plugin,
+     * so that a new version of the schema builder generates again.
+     * @param _classpath the class path of the model classes.
+     * @return the fingerprint.
+     * @throws IOException
+     */
+    private String fingerprintInputs(List<File> _classpath) throws IOException {
+        final InputFingerprint fingerprint = new InputFingerprint().addConfiguration(describeConfiguration());
+        for (File entry : _classpath) {
+            fingerprint.addClasspathEntry(entry);
+        }
+        for (Artifact artifact : plugin.getArtifacts()) {
+            if (artifact.getFile() != null) {
+                fingerprint.addClasspathEntry(artifact.getFile());
+            }
+        }
+        return fingerprint.toHex();
+    }
+
+    /**
+     * Describes the configuration, in order to detect a change.
+     * @return the description, stable for the same configuration.
+     */
+    private String describeConfiguration() {
+        final StringBuilder configuration = new StringBuilder()
+                .append("version=").append(version).append('\n')
+                .append("defaultJavaPackage=").append(defaultJavaPackage).append('\n')
+                .append("outDirectory=").append(outDirectory.getAbsolutePath()).append('\n')
+                .append("fieldPrefix=").append(fieldPrefix).append('\n')
+                .append("prefixEntityName=").append(prefixEntityName).append('\n')
+                .append("blackListFields=").append(blackListFields).append('\n')
+                .append("scanPackages=").append(scanPackages).append('\n')
+                .append("incremental=").append(incremental).append('\n')
+                .append("deleteOrphans=").append(deleteOrphans).append('\n')
+                .append("migrations=").append(migrations).append('\n')
+                .append("bulkWriters=").append(bulkWriters).append('\n')
+                .append("indexForeignKeys=").append(indexForeignKeys).append('\n')
+                .append("rowIdPrimaryKeys=").append(rowIdPrimaryKeys).append('\n')
+                .append("parallelism=").append(parallelism).append('\n')
+                .append("batchSize=").append(batchSize).append('\n')
+                .append("snapshotFile=").append(snapshotFile != null ? snapshotFile.getAbsolutePath() : null).append('\n');
+        for (Entity entity : entities) {
+            entity.describe(configuration);
+        }
+        for (Relation relation : relations) {
+            relation.describe(configuration);
+        }
+        for (TypeMapping typeMapping : typeMappings) {
+            typeMapping.describe(configuration);
+        }
+        return configuration.toString();
+    }
+
+    private static String readInputs(File _inputsFile) throws IOException {
+        return _inputsFile.isFile() ? new String(Files.readAllBytes(_inputsFile.toPath()), UTF_8) : null;
+    }
+
+    /**
+     * Checks that the output of the previous generation is still there.
+     * @return true if the manifest and all the files it lists exist.
+     * @throws IOException
+     */
+    private boolean isOutputComplete() throws IOException {
+        if (!new File(outDirectory, SchemaManifest.FILE_NAME).isFile()) {
+            return false;
+        }
+        for (String file : SchemaManifest.load(outDirectory).getFiles()) {
+            if (!new File(outDirectory, file).isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Loads the model classes from the class path, then configures a builder and generates the schema.
+     * @param _classpath the class path of the model classes.
+     * @throws MojoExecutionException
+     * @throws MojoFailureException if the configuration or the model is invalid.
+     */
+    private void generate(List<File> _classpath) throws MojoExecutionException, MojoFailureException {
+        final URL[] urls = new URL[_classpath.size()];
+        try {
+            for (int i = 0; i < urls.length; i++) {
+                urls[i] = _classpath.get(i).toURI().toURL();
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Invalid class path of the model classes.", e);
+        }
+
+        // greenDao only generates into an existing directory, a build creates its output directories.
+        try {
+            Files.createDirectories(outDirectory.toPath());
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not create " + outDirectory + ".", e);
+        }
+
+        final Thread thread = Thread.currentThread();
+        final ClassLoader contextClassLoader = thread.getContextClassLoader();
+        final URLClassLoader classLoader = new URLClassLoader(urls, getClass().getClassLoader());
+        thread.setContextClassLoader(classLoader);
+        try {
+            final SchemaBuilder builder = configure(classLoader);
+            builder.generate();
+            getLog().info("Generated the greenDao schema in " + outDirectory + ": " + builder.getReport());
+        } catch (MojoFailureException e) {
+            throw e;
+        } catch (InvalidEntityException e) {
+            throw invalidModel(e);
+        } catch (InvalidEntityRelationException e) {
+            throw invalidModel(e);
+        } catch (UnsupportedFieldTypeException e) {
+            throw invalidModel(e);
+        } catch (Exception e) {
+            throw new MojoExecutionException("Could not generate the greenDao schema.", e);
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+            try {
+                classLoader.close();
+            } catch (IOException e) {
+                getLog().debug("Could not close the class loader of the model classes.", e);
+            }
+        }
+    }
+
+    /**
+     * Configures a builder out of the plugin configuration.
+     * @param _classLoader the class loader of the model classes.
+     * @return the builder.
+     * @throws Exception
+     */
+    private SchemaBuilder configure(ClassLoader _classLoader) throws Exception {
+        final SchemaBuilder builder = new SchemaBuilder(
+                version, defaultJavaPackage, outDirectory.getPath(), fieldPrefix != null ? fieldPrefix : "");
+        builder.setPrefixEntityName(prefixEntityName);
+        builder.setIncremental(incremental);
+        builder.setDeleteOrphans(deleteOrphans);
+        builder.setMigrations(migrations);
+        builder.setBulkWriters(bulkWriters);
+        builder.setIndexForeignKeys(indexForeignKeys);
+        builder.setRowIdPrimaryKeys(rowIdPrimaryKeys);
+        builder.setParallelism(parallelism);
+        builder.setBatchSize(batchSize);
+        if (snapshotFile != null) {
+            builder.setSnapshotFile(snapshotFile);
+        }
+
+        for (String fieldName : blackListFields) {
+            builder.addFieldToBlackList(fieldName);
+        }
+        for (TypeMapping typeMapping : typeMappings) {
+            builder.getTypeMapper().register(
+                    loadClass(_classLoader, typeMapping.getType(), "type mapping"), typeMapping.getPropertyType());
+        }
+        for (Entity entity : entities) {
+            builder.addEntityProperty(entity.toPropertyOptions(
+                    loadClass(_classLoader, entity.getClassName(), "entity")));
+        }
+        if (!scanPackages.isEmpty()) {
+            final EntityScanner scanner = new EntityScanner(_classLoader);
+            for (String packageName : scanPackages) {
+                scanner.scanPath(classesDirectory, packageName);
+            }
+            builder.addEntities(scanner);
+        }
+        for (Relation relation : relations) {
+            builder.addEntityRelation(relation.toEntityRelation(
+                    loadClass(_classLoader, relation.getSource(), "relation source"),
+                    loadClass(_classLoader, relation.getTarget(), "relation target")));
+        }
+        return builder;
+    }
+
+    /**
+     * An invalid model or configuration fails the build, unlike an unexpected error of the generation.
+     * @param _exception the problems of the model.
+     * @return the failure.
+     */
+    private static MojoFailureException invalidModel(Exception _exception) {
+        return new MojoFailureException("Invalid greenDao schema: " + _exception.getMessage(), _exception);
+    }
+
+    private static Class<?> loadClass(ClassLoader _classLoader, String _className, String _usage)
+            throws MojoFailureException {
+        if (_className == null) {
+            throw new MojoFailureException("The class name of a " + _usage + " is missing.");
+        }
+        try {
+            return Class.forName(_className, false, _classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new MojoFailureException("The " + _usage + " class " + _className
+                    + " is not in the class path of the project.", e);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.greendao_schema_builder.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * The fingerprint of the inputs of a generation: the configuration, the model classes and the class path.
+ * The class files of the model are hashed by content, since a compilation rewrites them all even when unchanged,
+ * while the jars of the class path are only identified by their path, length and modification time.
+ */
+class InputFingerprint {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final MessageDigest digest;
+
+    InputFingerprint() {
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not supported.", e);
+        }
+    }
+
+    /**
+     * Adds the description of the configuration.
+     * @param _configuration the description, stable for the same configuration.
+     * @return this fingerprint.
+     */
+    InputFingerprint addConfiguration(String _configuration) {
+        update("configuration", _configuration);
+        return this;
+    }
+
+    /**
+     * Adds the path and the content of every file of a directory, in a stable order.
+     * @param _directory the directory, it may not exist.
+     * @return this fingerprint.
+     * @throws IOException
+     */
+    InputFingerprint addDirectory(File _directory) throws IOException {
+        update("directory", _directory.getAbsolutePath());
+        addFiles(_directory, "");
+        return this;
+    }
+
+    private void addFiles(File _directory, String _relativePath) throws IOException {
+        final File[] files = _directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            final String path = _relativePath + file.getName();
+            if (file.isDirectory()) {
+                addFiles(file, path + '/');
+            } else {
+                update("file", path);
+                digest.update(Files.readAllBytes(file.toPath()));
+            }
+        }
+    }
+
+    /**
+     * Adds a jar or a directory of the class path.
+     * @param _entry the class path entry.
+     * @return this fingerprint.
+     * @throws IOException
+     */
+    InputFingerprint addClasspathEntry(File _entry) throws IOException {
+        if (_entry.isDirectory()) {
+            return addDirectory(_entry);
+        }
+        update("jar", _entry.getAbsolutePath() + ';' + _entry.length() + ';' + _entry.lastModified());
+        return this;
+    }
+
+    private void update(String _kind, String _value) {
+        digest.update(_kind.getBytes(UTF_8));
+        digest.update((byte) 0);
+        digest.update(_value.getBytes(UTF_8));
+        digest.update((byte) 0);
+    }
+
+    /**
+     * Completes the fingerprint, which can not be added to anymore.
+     * @return the hexadecimal SHA-1 of the inputs.
+     */
+    String toHex() {
+        final StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+}
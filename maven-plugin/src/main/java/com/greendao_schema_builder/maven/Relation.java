@@ -0,0 +1,80 @@
+package com.greendao_schema_builder.maven;
+
+import com.greendao_schema_builder.relationship.EntityRelation;
+import com.greendao_schema_builder.relationship.EntityRelationType;
+import com.greendao_schema_builder.relationship.FetchStrategy;
+
+/**
+ * A relation of the plugin configuration, the declarative counterpart of an {@link EntityRelation}.
+ * <pre>
+ * &lt;relation&gt;
+ *     &lt;source&gt;com.example.model.Document&lt;/source&gt;
+ *     &lt;target&gt;com.example.model.Line&lt;/target&gt;
+ *     &lt;fieldName&gt;lines&lt;/fieldName&gt;
+ *     &lt;type&gt;ONE_TO_MANY&lt;/type&gt;
+ *     &lt;fetchStrategy&gt;BATCHED_IN&lt;/fetchStrategy&gt;
+ * &lt;/relation&gt;
+ * </pre>
+ */
+public class Relation {
+
+    // The class name of the entity which has the relation.
+    private String source;
+
+    // The class name of the related entity.
+    private String target;
+
+    // The relation field of the source entity.
+    private String fieldName;
+
+    private EntityRelationType type;
+
+    // The field of the related entity, null if the relation is not bidirectional.
+    private String fieldNameToCreate;
+
+    // The name of the join entity of a many to many relation, null for the default name.
+    private String joinEntityName;
+
+    private FetchStrategy fetchStrategy = FetchStrategy.LAZY;
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    /**
+     * Builds the entity relation.
+     * @param _sourceClass the source model class, loaded from the class loader of the project.
+     * @param _targetClass the target model class, loaded from the class loader of the project.
+     * @return the relation.
+     */
+    EntityRelation toEntityRelation(Class<?> _sourceClass, Class<?> _targetClass) {
+        final EntityRelation relation = new EntityRelation(
+                _sourceClass,
+                _targetClass,
+                fieldName,
+                type,
+                fieldNameToCreate);
+        relation.setJoinEntityName(joinEntityName);
+        relation.setFetchStrategy(fetchStrategy);
+        return relation;
+    }
+
+    /**
+     * Describes the configuration of the relation, in order to detect a change.
+     * @param _configuration the description.
+     */
+    void describe(StringBuilder _configuration) {
+        _configuration.append("relation=").append(source)
+                .append(';').append(target)
+                .append(';').append(fieldName)
+                .append(';').append(type)
+                .append(';').append(fieldNameToCreate)
+                .append(';').append(joinEntityName)
+                .append(';').append(fetchStrategy)
+                .append('\n');
+    }
+}
@@ -0,0 +1,36 @@
+package com.greendao_schema_builder.maven;
+
+import de.greenrobot.daogenerator.PropertyType;
+
+/**
+ * A field type of the plugin configuration, registered with the property type it will be stored as.
+ * <pre>
+ * &lt;typeMapping&gt;
+ *     &lt;type&gt;java.math.BigDecimal&lt;/type&gt;
+ *     &lt;propertyType&gt;String&lt;/propertyType&gt;
+ * &lt;/typeMapping&gt;
+ * </pre>
+ */
+public class TypeMapping {
+
+    // The field type class name.
+    private String type;
+
+    private PropertyType propertyType;
+
+    public String getType() {
+        return type;
+    }
+
+    public PropertyType getPropertyType() {
+        return propertyType;
+    }
+
+    /**
+     * Describes the mapping, in order to detect a change.
+     * @param _configuration the description.
+     */
+    void describe(StringBuilder _configuration) {
+        _configuration.append("type=").append(type).append(';').append(propertyType).append('\n');
+    }
+}
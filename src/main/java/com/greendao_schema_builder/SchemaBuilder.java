@@ -1,34 +1,80 @@
 package com.greendao_schema_builder;
 
+import com.greendao_schema_builder.discovery.EntityScanner;
 import com.greendao_schema_builder.errors.InvalidEntityException;
-import com.greendao_schema_builder.errors.InvalidEntityRelationException;
-import com.greendao_schema_builder.property.EntityPropertiesBuilder;
+import com.greendao_schema_builder.generator.GenerationReport;
+import com.greendao_schema_builder.metrics.GenerationListener;
+import com.greendao_schema_builder.metrics.GenerationMetrics;
+import com.greendao_schema_builder.migration.MigrationHistory;
+import com.greendao_schema_builder.property.FieldBlackList;
 import com.greendao_schema_builder.property.PropertyOptions;
 import com.greendao_schema_builder.relationship.EntityRelation;
-import com.greendao_schema_builder.relationship.EntityRelationBuilder;
-import de.greenrobot.daogenerator.DaoGenerator;
-import de.greenrobot.daogenerator.Entity;
-import de.greenrobot.daogenerator.Schema;
+import com.greendao_schema_builder.type.TypeMapper;
 
-import java.io.InvalidClassException;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Builds a greenDao schema based on model classes,
  * excluding blacklisted fields,
  * including relation.
+ * The configuration is copied into an immutable {@link SchemaSpec} by every generation,
+ * so a builder can generate several times, and the specs of several builders can be generated concurrently.
  */
 public class SchemaBuilder {
 
-    private final Schema schema;
+    private final int version;
+    private final String defaultJavaPackage;
     private final String outDirectory;
-    private final List<String> blackListFields;
-    private final EntityPropertiesBuilder entityPropertiesBuilder;
-    private final EntityRelationBuilder entityRelationBuilder;
+    private final String fieldPrefix;
+    private final FieldBlackList blackListFields;
+    private final TypeMapper typeMapper;
 
-    private List<PropertyOptions> propertyOptionsList;
-    private List<EntityRelation> entityRelations;
+    // The prefix of the entity names.
+    private String prefixEntityName;
+
+    private Set<PropertyOptions> propertyOptionsSet;
+    private Set<EntityRelation> entityRelations;
+
+    // Generate only the entities that changed since the previous generation.
+    private boolean incremental;
+
+    // Delete the generated files of the entities which were removed.
+    private boolean deleteOrphans;
+
+    // Record the migrations of the tables between the schema versions.
+    private boolean migrations;
+
+    // Generate a bulk writer next to the Dao of every entity.
+    private boolean bulkWriters;
+
+    // The number of threads used to reflect over the entity classes, and to render them.
+    private int parallelism;
+
+    // The maximum number of entities generated together, 0 for all of them.
+    private int batchSize;
+
+    // Index the foreign key properties of the relations.
+    private boolean indexForeignKeys;
+
+    // Give every entity a Long autoincrement rowid primary key.
+    private boolean rowIdPrimaryKeys;
+
+    // The files of the last generation.
+    private GenerationReport report;
+
+    // Listens to the phases of the generation.
+    private final List<GenerationListener> listeners;
+
+    // Write the metrics of the generation as a JSON report in the output directory.
+    private boolean metricsReport;
+
+    // The snapshot file of the resolved entities, null if not used.
+    private File snapshotFile;
 
     /**
      * Constructor.
@@ -57,14 +103,168 @@ public class SchemaBuilder {
             String _outDirectory,
             String _fieldPrefix)
     {
+        version = _version;
+        defaultJavaPackage = _defaultJavaPackage;
         outDirectory = _outDirectory;
-        schema = new Schema(_version, _defaultJavaPackage);
-        blackListFields = new ArrayList<String>();
-        entityPropertiesBuilder = new EntityPropertiesBuilder(schema, _fieldPrefix);
-        entityRelationBuilder = new EntityRelationBuilder(schema);
+        fieldPrefix = _fieldPrefix;
+        blackListFields = new FieldBlackList();
+        typeMapper = new TypeMapper();
+        prefixEntityName = PropertyOptions.PREFIX_ENTITY_NAME;
+
+        propertyOptionsSet = new LinkedHashSet<PropertyOptions>();
+        entityRelations = new LinkedHashSet<EntityRelation>();
+        parallelism = 1;
+        indexForeignKeys = true;
+        listeners = new ArrayList<GenerationListener>();
+    }
+
+    /**
+     * Enables the incremental generation.
+     * The fingerprint of every entity is kept in a manifest in the output directory,
+     * and only the entities whose fingerprint changed, and those related to them, are generated again.
+     * @param _incremental true in order to generate incrementally.
+     */
+    public void setIncremental(boolean _incremental) {
+        incremental = _incremental;
+    }
+
+    /**
+     * Enables the deletion of the generated files of the entities which were removed since the previous generation.
+     * The generated files are listed in the manifest in the output directory,
+     * other files of the output directory are never deleted.
+     * @param _deleteOrphans true in order to delete the orphaned files.
+     */
+    public void setDeleteOrphans(boolean _deleteOrphans) {
+        deleteOrphans = _deleteOrphans;
+    }
+
+    /**
+     * Enables the migrations between the schema versions.
+     * The tables of every generated version are recorded in {@value MigrationHistory#FILE_NAME}
+     * in the output directory, together with the SQL statements migrating the tables of the previous version,
+     * and a MigrationOpenHelper next to the DaoMaster runs them on upgrade, keeping the rows of the tables.
+     * The version should be increased once a schema is released, and never decreased.
+     * @param _migrations true in order to record the migrations.
+     */
+    public void setMigrations(boolean _migrations) {
+        migrations = _migrations;
+    }
+
+    /**
+     * Enables the bulk writers, an {@code <Entity>BulkWriter} next to the Dao of every entity,
+     * with the insertOrReplaceInBatch and upsertInBatch methods, which write many entities
+     * through one compiled statement in one transaction.
+     * @param _bulkWriters true in order to generate the bulk writers.
+     */
+    public void setBulkWriters(boolean _bulkWriters) {
+        bulkWriters = _bulkWriters;
+    }
+
+    /**
+     * Returns the files written, skipped because they did not change, and deleted by the last generation.
+     * @return the report, null before the first generation.
+     */
+    public GenerationReport getReport() {
+        return report;
+    }
+
+    /**
+     * Adds a listener to the phases of the generation, with their timings and counts.
+     * @param _listener the listener.
+     */
+    public void addGenerationListener(GenerationListener _listener) {
+        listeners.add(_listener);
+    }
+
+    /**
+     * Enables the JSON report of the generation metrics, written as
+     * {@value GenerationMetrics#FILE_NAME} in the output directory.
+     * @param _metricsReport true in order to write the report.
+     */
+    public void setMetricsReport(boolean _metricsReport) {
+        metricsReport = _metricsReport;
+    }
+
+    /**
+     * Enables the snapshot of the resolved entities.
+     * The entities are saved to the snapshot after the generation,
+     * and a later generation takes them from it instead of reflecting over their classes,
+     * as long as their class files and the configuration did not change.
+     * @param _snapshotFile the snapshot file, null to disable the snapshot.
+     */
+    public void setSnapshotFile(File _snapshotFile) {
+        snapshotFile = _snapshotFile;
+    }
+
+    /**
+     * Returns the mapper of the field types to greenDao property types,
+     * in order to register custom types to it.
+     * @return the type mapper.
+     */
+    public TypeMapper getTypeMapper() {
+        return typeMapper;
+    }
+
+    /**
+     * Sets the number of threads used to reflect over the entity classes and to render their files, defaults to 1.
+     * The entities are still added to the schema in order,
+     * and the DaoMaster and DaoSession are rendered last, so the output does not depend on it.
+     * @param _parallelism the number of threads.
+     */
+    public void setParallelism(int _parallelism) {
+        if (_parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism should be at least 1.");
+        }
+        parallelism = _parallelism;
+    }
+
+    /**
+     * Sets the number of entities generated together, defaults to 0 for all of them at once.
+     * The entities are split into batches of related entities, every batch is built into a greenDao schema
+     * of its own, generated, and released before the next one.
+     * Entities which are related to each other, directly or not, are always in the same batch,
+     * so a group of related entities larger than the batch size is a batch of its own:
+     * the memory is bounded by the largest group of related entities, not by the batch size,
+     * and a model whose entities are all related to each other is generated at once.
+     * The output does not depend on the batch size.
+     * @param _batchSize the number of entities of a batch, unless they are related to more, or 0 to disable the batches.
+     */
+    public void setBatchSize(int _batchSize) {
+        if (_batchSize < 0) {
+            throw new IllegalArgumentException("The batch size should not be negative.");
+        }
+        batchSize = _batchSize;
+    }
+
+    /**
+     * Enables the index of the foreign key property of every relation, enabled by default.
+     * The other indexes are declared by the {@link PropertyOptions}, or by
+     * {@link com.greendao_schema_builder.annotation.Indexed} fields when scanning.
+     * @param _indexForeignKeys true in order to index the foreign keys.
+     */
+    public void setIndexForeignKeys(boolean _indexForeignKeys) {
+        indexForeignKeys = _indexForeignKeys;
+    }
+
+    /**
+     * Enables the Long autoincrement primary keys, backed by the SQLite rowid,
+     * which make smaller tables, indexes and foreign keys than text keys.
+     * An entity whose primary key field is a long keeps it, any other entity gets an "id" primary key,
+     * and its primary key field becomes a unique property.
+     * The foreign keys of the relations always take the type of the primary key they reference.
+     * @param _rowIdPrimaryKeys true in order to generate rowid primary keys.
+     */
+    public void setRowIdPrimaryKeys(boolean _rowIdPrimaryKeys) {
+        rowIdPrimaryKeys = _rowIdPrimaryKeys;
+    }
 
-        propertyOptionsList = new ArrayList<PropertyOptions>();
-        entityRelations = new ArrayList<EntityRelation>();
+    /**
+     * Sets the prefix of the entity names, defaults to {@value PropertyOptions#PREFIX_ENTITY_NAME}.
+     * The options created with a prefix of their own keep it.
+     * @param _prefixEntityName the prefix.
+     */
+    public void setPrefixEntityName(String _prefixEntityName) {
+        prefixEntityName = _prefixEntityName;
     }
 
     /**
@@ -72,9 +272,7 @@ public class SchemaBuilder {
      * @param _options the option to be added.
      */
     public void addEntityProperty(PropertyOptions _options) {
-        if (!propertyOptionsList.contains(_options)) {
-            propertyOptionsList.add(_options);
-        }
+        propertyOptionsSet.add(_options);
     }
 
     /**
@@ -82,8 +280,7 @@ public class SchemaBuilder {
      * @param _relation the relation to be added.
      */
     public void addEntityRelation(EntityRelation _relation) {
-        if (!entityRelations.contains(_relation)) {
-            entityRelations.add(_relation);
+        if (entityRelations.add(_relation)) {
 
             // Add the relation to blacklist in order not to recreate it.
             addFieldToBlackList(extractFullPathName(
@@ -92,93 +289,135 @@ public class SchemaBuilder {
         }
     }
 
-    public static String extractFullPathName(Class<?> entityClass, String fieldName) {
-        return entityClass.getCanonicalName() + "." + fieldName;
-    }
-
     /**
-     * Build properties for an greenDaoEntity from a class.
-     * @param _options the options.
-     * @return the greenDao Entity.
-     * @throws InvalidClassException
+     * Add the entities and relations discovered by a scanner.
+     * @param _scanner the scanner, after scanning.
+     * @throws InvalidEntityException if a discovered class can not be loaded.
      */
-    private Entity buildProps(PropertyOptions _options)
-        throws InvalidClassException
-    {
-        Entity entity;
-
-        // Extract options
-        final Class entityClass = _options.getEntityClass();
-        final String primaryKey = _options.getPrimaryKey();
-        final String[] interfaces = _options.getInterfaces();
-        final String superClassName = _options.getSuperClassName();
-
-        if (primaryKey != null) {
-            entity = entityPropertiesBuilder
-                    .buildPropertiesForEntity(entityClass, blackListFields, primaryKey);
-        } else {
-            entity = entityPropertiesBuilder
-                    .buildPropertiesForEntity(entityClass, blackListFields);
-        }
-
-        if (interfaces.length > 0) {
-            entity.implementsInterface(interfaces);
+    public void addEntities(EntityScanner _scanner) throws InvalidEntityException {
+        for (PropertyOptions options : _scanner.getEntityOptions()) {
+            addEntityProperty(options);
         }
-
-        if (superClassName != null) {
-            entity.setSuperclass(superClassName);
+        for (EntityRelation relation : _scanner.getEntityRelations()) {
+            addEntityRelation(relation);
         }
-
-        return entity;
     }
 
     /**
-     * Build a greenDao Entity relation.
-     * @param _entityRelation the relation object.
-     * @throws InvalidEntityRelationException
+     * Add the {@link com.greendao_schema_builder.annotation.GreenDaoEntity} classes of a package
+     * and its sub packages, from the class loader of the current thread.
+     * @param _packageName the package name.
+     * @throws IOException
      * @throws InvalidEntityException
      */
-    private void buildEntityRelation(EntityRelation _entityRelation) throws InvalidEntityRelationException, InvalidEntityException {
-        entityRelationBuilder.buildRelation(_entityRelation);
+    public void scanPackage(String _packageName) throws IOException, InvalidEntityException {
+        addEntities(new EntityScanner(Thread.currentThread().getContextClassLoader()).scanPackage(_packageName));
+    }
+
+    public static String extractFullPathName(Class<?> entityClass, String fieldName) {
+        return entityClass.getCanonicalName() + "." + fieldName;
     }
 
     /**
-     * Generate greenDao schema, Should be called last.
-     * @throws Exception
+     * Builds the immutable spec of a generation out of the current configuration.
+     * Changing this builder afterwards does not change the spec, which can be generated on any thread.
+     * @return the spec.
      */
-    public void generate() throws Exception {
-        // Build the properties.
-        for (PropertyOptions propertyOptions : propertyOptionsList) {
-            buildProps(propertyOptions);
-        }
-
-        // Build the relations.
-        for (EntityRelation entityRelation : entityRelations) {
-            buildEntityRelation(entityRelation);
-        }
-
-        // Generate the greenDao schema.
-        generateDao(schema, outDirectory);
+    public SchemaSpec buildSpec() {
+        return new SchemaSpec(this);
     }
 
     /**
-     * Generate dao.
-     * @param _schema the greenDao schema to be generated.
-     * @param _outDirectory The directory which the schema will be generated.
+     * Generate greenDao schema, Should be called last.
+     * Every call builds a spec out of the current configuration, and generates it.
      * @throws Exception
      */
-    private void generateDao(Schema _schema, String _outDirectory) throws Exception {
-        DaoGenerator daoGenerator = new DaoGenerator();
-        daoGenerator.generateAll(_schema, _outDirectory);
+    public void generate() throws Exception {
+        report = buildSpec().generate();
     }
 
     /**
      * Adds a fieldName to blacklist in order not to create a Property out of it.
+     * Besides simple field names, accepts the class and package patterns of {@link FieldBlackList}.
      * @param _fieldName the field name
      */
     public void addFieldToBlackList(String _fieldName) {
-        if (!blackListFields.contains(_fieldName)) {
-            blackListFields.add(_fieldName);
-        }
+        blackListFields.add(_fieldName);
+    }
+
+    int getVersion() {
+        return version;
+    }
+
+    String getDefaultJavaPackage() {
+        return defaultJavaPackage;
+    }
+
+    String getOutDirectory() {
+        return outDirectory;
+    }
+
+    String getFieldPrefix() {
+        return fieldPrefix;
+    }
+
+    String getPrefixEntityName() {
+        return prefixEntityName;
+    }
+
+    FieldBlackList getBlackListFields() {
+        return blackListFields;
+    }
+
+    Set<PropertyOptions> getPropertyOptions() {
+        return propertyOptionsSet;
+    }
+
+    Set<EntityRelation> getEntityRelations() {
+        return entityRelations;
+    }
+
+    boolean isIncremental() {
+        return incremental;
+    }
+
+    boolean isDeleteOrphans() {
+        return deleteOrphans;
+    }
+
+    boolean isMigrations() {
+        return migrations;
+    }
+
+    boolean isBulkWriters() {
+        return bulkWriters;
+    }
+
+    int getParallelism() {
+        return parallelism;
+    }
+
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    boolean isIndexForeignKeys() {
+        return indexForeignKeys;
+    }
+
+    boolean isRowIdPrimaryKeys() {
+        return rowIdPrimaryKeys;
+    }
+
+    List<GenerationListener> getListeners() {
+        return listeners;
+    }
+
+    boolean isMetricsReport() {
+        return metricsReport;
+    }
+
+    File getSnapshotFile() {
+        return snapshotFile;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,575 @@
+package com.greendao_schema_builder;
+
+import com.greendao_schema_builder.errors.InvalidEntityException;
+import com.greendao_schema_builder.errors.InvalidEntityRelationException;
+import com.greendao_schema_builder.errors.UnsupportedFieldTypeException;
+import com.greendao_schema_builder.generator.DaoRenderer;
+import com.greendao_schema_builder.generator.EntityFingerprint;
+import com.greendao_schema_builder.generator.EntityHelpers;
+import com.greendao_schema_builder.generator.GenerationReport;
+import com.greendao_schema_builder.generator.SchemaGenerator;
+import com.greendao_schema_builder.metrics.CompositeGenerationListener;
+import com.greendao_schema_builder.metrics.GenerationListener;
+import com.greendao_schema_builder.metrics.GenerationMetrics;
+import com.greendao_schema_builder.metrics.GenerationPhase;
+import com.greendao_schema_builder.property.EntityDefinition;
+import com.greendao_schema_builder.property.EntityPropertiesBuilder;
+import com.greendao_schema_builder.property.FieldBlackList;
+import com.greendao_schema_builder.property.PropertyOptions;
+import com.greendao_schema_builder.relationship.EntityRelation;
+import com.greendao_schema_builder.relationship.EntityRelationBuilder;
+import com.greendao_schema_builder.relationship.RelationGraph;
+import com.greendao_schema_builder.snapshot.EntitySnapshot;
+import com.greendao_schema_builder.type.TypeMapper;
+import de.greenrobot.daogenerator.Entity;
+import de.greenrobot.daogenerator.Schema;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * A single generation of a {@link SchemaSpec}, with all of its state:
+ * the greenDao schema and its builders, and the snapshot of the resolved entities.
+ * Nothing is shared with the other generations but the spec, which is immutable,
+ * and the reflected class metadata, which is thread safe.
+ */
+class SchemaGeneration {
+
+    private final SchemaSpec spec;
+
+    // The renderer of the generated files, null to load the templates for this generation only.
+    private final DaoRenderer renderer;
+
+    // The configuration of the resolution, from the spec.
+    private final String fieldPrefix;
+    private final FieldBlackList blackListFields;
+    private final TypeMapper typeMapper;
+    private final List<EntityRelation> entityRelations;
+    private final int parallelism;
+    private final int batchSize;
+
+    // The greenDao schema of all the entities, when they are not generated in batches.
+    private final Schema schema;
+    private final EntityPropertiesBuilder entityPropertiesBuilder;
+    private final EntityRelationBuilder entityRelationBuilder;
+
+    // The snapshot of the resolved entities, null if not used.
+    private EntitySnapshot snapshot;
+
+    // The hash of the configuration of the resolution, for the snapshot.
+    private String configurationHash;
+
+    /**
+     * Constructor.
+     * @param _spec the spec to be generated.
+     * @param _renderer the renderer of the generated files, null to load the templates for this generation only.
+     */
+    SchemaGeneration(SchemaSpec _spec, DaoRenderer _renderer) {
+        spec = _spec;
+        renderer = _renderer;
+        fieldPrefix = _spec.getFieldPrefix();
+        blackListFields = _spec.getBlackListFields();
+        typeMapper = _spec.getTypeMapper();
+        entityRelations = _spec.getEntityRelations();
+        parallelism = _spec.getParallelism();
+        batchSize = _spec.getBatchSize();
+
+        schema = createSchema();
+        entityPropertiesBuilder = new EntityPropertiesBuilder(schema, fieldPrefix, typeMapper);
+        entityPropertiesBuilder.setPrefixEntityName(_spec.getPrefixEntityName());
+        entityPropertiesBuilder.setRowIdPrimaryKeys(_spec.isRowIdPrimaryKeys());
+        entityRelationBuilder = new EntityRelationBuilder(schema, entityPropertiesBuilder.getAddedEntities());
+        entityRelationBuilder.setPrefixEntityName(_spec.getPrefixEntityName());
+        entityRelationBuilder.setIndexForeignKeys(_spec.isIndexForeignKeys());
+    }
+
+    /**
+     * Runs the generation.
+     * @return the files written, skipped and deleted.
+     * @throws Exception
+     */
+    GenerationReport run() throws Exception {
+        final List<PropertyOptions> propertyOptionsList = spec.getPropertyOptions();
+        final GenerationMetrics metrics = new GenerationMetrics();
+        final CompositeGenerationListener listener = new CompositeGenerationListener();
+        for (GenerationListener specListener : spec.getListeners()) {
+            listener.add(specListener);
+        }
+        if (spec.isMetricsReport()) {
+            listener.add(metrics);
+        }
+
+        // Phase to its duration, summed over the batches.
+        final long[] phaseDurations = new long[GenerationPhase.values().length];
+
+        // Report all the problems of the relations at once, before the entity classes are reflected.
+        long start = System.nanoTime();
+        spec.analyzeRelations().check();
+        phaseDurations[GenerationPhase.ANALYZE_RELATIONS.ordinal()] += System.nanoTime() - start;
+
+        start = System.nanoTime();
+        if (spec.getSnapshotFile() != null) {
+            snapshot = EntitySnapshot.load(spec.getSnapshotFile());
+            configurationHash = computeConfigurationHash();
+        }
+        phaseDurations[GenerationPhase.RESOLVE_PROPERTIES.ordinal()] += System.nanoTime() - start;
+
+        start = System.nanoTime();
+        final SchemaGenerator schemaGenerator = createSchemaGenerator(listener);
+        schemaGenerator.begin(spec.getOutDirectory());
+        phaseDurations[GenerationPhase.GENERATE.ordinal()] += System.nanoTime() - start;
+
+        final Schema generatedSchema;
+        if (batchSize == 0) {
+            final EntityHelpers helpers = buildBatch(
+                    schema,
+                    entityPropertiesBuilder,
+                    entityRelationBuilder,
+                    propertyOptionsList,
+                    entityRelations,
+                    listener,
+                    phaseDurations);
+            completePhases(listener, phaseDurations,
+                    GenerationPhase.ANALYZE_RELATIONS,
+                    GenerationPhase.RESOLVE_PROPERTIES,
+                    GenerationPhase.BUILD_PROPERTIES,
+                    GenerationPhase.BUILD_RELATIONS);
+
+            start = System.nanoTime();
+            schemaGenerator.generateEntities(schema, helpers);
+            phaseDurations[GenerationPhase.GENERATE.ordinal()] += System.nanoTime() - start;
+            generatedSchema = schema;
+        } else {
+            generatedSchema = generateBatches(propertyOptionsList, schemaGenerator, listener, phaseDurations);
+        }
+
+        if (snapshot != null) {
+            snapshot.save();
+        }
+
+        // Generate the schema wide files.
+        start = System.nanoTime();
+        final GenerationReport report = schemaGenerator.finish(generatedSchema);
+        listener.outputWritten(report);
+        phaseDurations[GenerationPhase.GENERATE.ordinal()] += System.nanoTime() - start;
+
+        if (batchSize == 0) {
+            completePhases(listener, phaseDurations, GenerationPhase.GENERATE);
+        } else {
+            completePhases(listener, phaseDurations, GenerationPhase.values());
+        }
+
+        if (spec.isMetricsReport()) {
+            metrics.writeJson(new File(spec.getOutDirectory(), GenerationMetrics.FILE_NAME));
+        }
+        return report;
+    }
+
+    /**
+     * Resolve the properties of a greenDaoEntity from a class.
+     * @param _options the options.
+     * @return the resolved entity, from the snapshot if it is up to date.
+     * @throws IOException
+     */
+    private EntityDefinition resolveProps(PropertyOptions _options)
+        throws IOException
+    {
+        // The embedded value classes are not among the class files of the snapshot keys,
+        // so the entities with embedded fields are always resolved.
+        final boolean snapshotted = snapshot != null && _options.getEmbeddedFields().isEmpty();
+
+        final String entityConfigurationHash = configurationHash + "\n" + _options.getPrimaryKey();
+        if (snapshotted) {
+            final EntityDefinition entityDefinition = snapshot.get(_options.getEntityClass(), entityConfigurationHash);
+            if (entityDefinition != null) {
+                return entityDefinition;
+            }
+        }
+
+        final EntityDefinition entityDefinition = entityPropertiesBuilder.resolveEntity(
+                _options.getEntityClass(), blackListFields, _options.getPrimaryKey(), _options.getEmbeddedFields());
+        if (snapshotted) {
+            snapshot.put(entityDefinition, entityConfigurationHash);
+        }
+        return entityDefinition;
+    }
+
+    /**
+     * Computes the hash of the configuration that the resolved entities depend on.
+     * @return the hash.
+     */
+    private String computeConfigurationHash() {
+        final StringBuilder configuration = new StringBuilder(fieldPrefix).append('\n');
+        for (String entry : new TreeSet<String>(blackListFields.getEntries())) {
+            configuration.append(entry).append('\n');
+        }
+        configuration.append(typeMapper.getConfiguration());
+        return EntityFingerprint.digest(configuration.toString());
+    }
+
+    /**
+     * Resolve the properties of all the entities, on a fork join pool if the parallelism allows it.
+     * @param _propertyOptionsList the options of all the entities.
+     * @param _durations receives the resolution duration of every entity, in the order of their options.
+     * @return the resolved entities, in the order of their options.
+     * @throws Exception
+     */
+    private List<EntityDefinition> resolveAllProps(
+            List<PropertyOptions> _propertyOptionsList,
+            final long[] _durations)
+    throws Exception
+    {
+        final List<EntityDefinition> entityDefinitions =
+                new ArrayList<EntityDefinition>(_propertyOptionsList.size());
+
+        if (parallelism == 1 || _propertyOptionsList.size() < 2) {
+            for (int i = 0; i < _propertyOptionsList.size(); i++) {
+                final long start = System.nanoTime();
+                entityDefinitions.add(resolveProps(_propertyOptionsList.get(i)));
+                _durations[i] = System.nanoTime() - start;
+            }
+            return entityDefinitions;
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            final List<Future<EntityDefinition>> futures =
+                    new ArrayList<Future<EntityDefinition>>(_propertyOptionsList.size());
+
+            for (int i = 0; i < _propertyOptionsList.size(); i++) {
+                final int index = i;
+                final PropertyOptions propertyOptions = _propertyOptionsList.get(i);
+                futures.add(pool.submit(new Callable<EntityDefinition>() {
+                    @Override
+                    public EntityDefinition call() throws Exception {
+                        final long start = System.nanoTime();
+                        final EntityDefinition entityDefinition = resolveProps(propertyOptions);
+                        _durations[index] = System.nanoTime() - start;
+                        return entityDefinition;
+                    }
+                }));
+            }
+
+            // Collect in order, so the first failing entity is reported as in a sequential build.
+            for (Future<EntityDefinition> future : futures) {
+                try {
+                    entityDefinitions.add(future.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return entityDefinitions;
+    }
+
+    /**
+     * Build properties for an greenDaoEntity from a resolved entity.
+     * @param _entityPropertiesBuilder the builder of the schema the entity is added to.
+     * @param _options the options.
+     * @param _entityDefinition the resolved entity.
+     * @return the greenDao Entity, or null if the entity class is already added.
+     */
+    private static Entity buildProps(
+            EntityPropertiesBuilder _entityPropertiesBuilder,
+            PropertyOptions _options,
+            EntityDefinition _entityDefinition)
+    {
+        // Extract options
+        final String[] interfaces = _options.getInterfaces();
+        final String superClassName = _options.getSuperClassName();
+
+        final Entity entity = _entityPropertiesBuilder.addEntity(_entityDefinition, _options.getPrefixEntityName());
+        if (entity == null) {
+            return null;
+        }
+
+        if (interfaces.length > 0) {
+            entity.implementsInterface(interfaces);
+        }
+
+        if (superClassName != null) {
+            entity.setSuperclass(superClassName);
+        }
+
+        return entity;
+    }
+
+    /**
+     * Build a greenDao Entity relation.
+     * @param _entityRelationBuilder the builder of the schema the relation is added to.
+     * @param _entityRelation the relation object.
+     * @throws InvalidEntityRelationException
+     * @throws InvalidEntityException
+     */
+    private static void buildEntityRelation(
+            EntityRelationBuilder _entityRelationBuilder,
+            EntityRelation _entityRelation)
+    throws InvalidEntityRelationException, InvalidEntityException
+    {
+        _entityRelationBuilder.buildRelation(_entityRelation);
+    }
+
+    /**
+     * Generates the entities in batches of related entities, every batch through a greenDao schema of its own,
+     * which is released before the next batch is built.
+     * @param _propertyOptionsList the options of all the entities.
+     * @param _schemaGenerator the generator, begun.
+     * @param _listener the listener of the generation.
+     * @param _phaseDurations receives the durations of the phases.
+     * @return the initialized schema of the names of all the entities, for the schema wide files.
+     * @throws Exception
+     */
+    private Schema generateBatches(
+            List<PropertyOptions> _propertyOptionsList,
+            SchemaGenerator _schemaGenerator,
+            GenerationListener _listener,
+            long[] _phaseDurations)
+    throws Exception
+    {
+        // Entity class to its greenDao entity name.
+        final Map<Class<?>, String> entityNames = new HashMap<Class<?>, String>();
+
+        // Many to many relation to its join entity name.
+        final Map<EntityRelation, String> joinEntityNames = new HashMap<EntityRelation, String>();
+
+        for (Batch batch : createBatches(_propertyOptionsList)) {
+            final Schema batchSchema = createSchema();
+            final EntityPropertiesBuilder batchPropertiesBuilder =
+                    new EntityPropertiesBuilder(batchSchema, fieldPrefix, typeMapper);
+            batchPropertiesBuilder.setPrefixEntityName(spec.getPrefixEntityName());
+            batchPropertiesBuilder.setRowIdPrimaryKeys(spec.isRowIdPrimaryKeys());
+            final EntityRelationBuilder batchRelationBuilder =
+                    new EntityRelationBuilder(batchSchema, batchPropertiesBuilder.getAddedEntities());
+            batchRelationBuilder.setPrefixEntityName(spec.getPrefixEntityName());
+            batchRelationBuilder.setIndexForeignKeys(spec.isIndexForeignKeys());
+
+            final EntityHelpers batchHelpers = buildBatch(
+                    batchSchema,
+                    batchPropertiesBuilder,
+                    batchRelationBuilder,
+                    batch.propertyOptionsList,
+                    batch.entityRelations,
+                    _listener,
+                    _phaseDurations);
+
+            final long start = System.nanoTime();
+            _schemaGenerator.generateEntities(batchSchema, batchHelpers);
+            _phaseDurations[GenerationPhase.GENERATE.ordinal()] += System.nanoTime() - start;
+
+            for (PropertyOptions options : batch.propertyOptionsList) {
+                final Class<?> entityClass = options.getEntityClass();
+                entityNames.put(entityClass, batchPropertiesBuilder.getAddedEntities().get(entityClass).getClassName());
+            }
+            for (EntityRelation entityRelation : batch.entityRelations) {
+                final Entity joinEntity = batchRelationBuilder.getJoinEntity(entityRelation);
+                if (joinEntity != null) {
+                    joinEntityNames.put(entityRelation, joinEntity.getClassName());
+                }
+            }
+        }
+
+        // The DaoMaster and DaoSession only use the names of the entities,
+        // in the order of their options, then the join entities in the order of their relations.
+        final Schema namesSchema = createSchema();
+        for (PropertyOptions options : _propertyOptionsList) {
+            final String entityName = entityNames.remove(options.getEntityClass());
+            if (entityName != null) {
+                namesSchema.addEntity(entityName);
+            }
+        }
+        for (EntityRelation entityRelation : entityRelations) {
+            final String joinEntityName = joinEntityNames.get(entityRelation);
+            if (joinEntityName != null) {
+                namesSchema.addEntity(joinEntityName);
+            }
+        }
+        DaoRenderer.initialize(namesSchema);
+        return namesSchema;
+    }
+
+    /**
+     * Resolves the entities of a batch, and builds their properties and relations into the schema of the batch.
+     * @param _schema the schema of the batch.
+     * @param _entityPropertiesBuilder the properties builder of the schema.
+     * @param _entityRelationBuilder the relation builder of the schema.
+     * @param _propertyOptionsList the options of the entities of the batch.
+     * @param _entityRelations the relations of the batch.
+     * @param _listener the listener of the generation.
+     * @param _phaseDurations receives the durations of the phases.
+     * @return what the helper classes of the entities of the batch are made of.
+     * @throws Exception
+     */
+    private EntityHelpers buildBatch(
+            Schema _schema,
+            EntityPropertiesBuilder _entityPropertiesBuilder,
+            EntityRelationBuilder _entityRelationBuilder,
+            List<PropertyOptions> _propertyOptionsList,
+            List<EntityRelation> _entityRelations,
+            GenerationListener _listener,
+            long[] _phaseDurations)
+    throws Exception
+    {
+        // Resolve the properties, this is where the reflection happens.
+        long start = System.nanoTime();
+        final long[] resolveDurations = new long[_propertyOptionsList.size()];
+        final List<EntityDefinition> entityDefinitions = resolveAllProps(_propertyOptionsList, resolveDurations);
+        for (int i = 0; i < entityDefinitions.size(); i++) {
+            _listener.entityResolved(entityDefinitions.get(i), resolveDurations[i]);
+        }
+        _phaseDurations[GenerationPhase.RESOLVE_PROPERTIES.ordinal()] += System.nanoTime() - start;
+
+        // Report all the unsupported fields together.
+        final List<String> unsupportedFields = new ArrayList<String>();
+        for (EntityDefinition entityDefinition : entityDefinitions) {
+            unsupportedFields.addAll(entityDefinition.getUnsupportedFields());
+        }
+        if (!unsupportedFields.isEmpty()) {
+            throw new UnsupportedFieldTypeException(unsupportedFields);
+        }
+
+        // Build the properties, in order.
+        start = System.nanoTime();
+        final EntityHelpers helpers = new EntityHelpers();
+        final List<Entity> entities = new ArrayList<Entity>(_propertyOptionsList.size());
+        for (int i = 0; i < _propertyOptionsList.size(); i++) {
+            final Entity entity =
+                    buildProps(_entityPropertiesBuilder, _propertyOptionsList.get(i), entityDefinitions.get(i));
+            if (entity != null) {
+                helpers.addEmbeddedFields(entity, entityDefinitions.get(i).getEmbeddedFields());
+                if (spec.isBulkWriters()) {
+                    helpers.addBulkWriter(entity);
+                }
+            }
+            entities.add(entity);
+        }
+        _phaseDurations[GenerationPhase.BUILD_PROPERTIES.ordinal()] += System.nanoTime() - start;
+
+        // Build the relations.
+        start = System.nanoTime();
+        for (EntityRelation entityRelation : _entityRelations) {
+            buildEntityRelation(_entityRelationBuilder, entityRelation);
+        }
+
+        // Build the indexes and the projections, which may be over the foreign keys of the relations,
+        // then the indexes of the foreign keys.
+        for (int i = 0; i < _propertyOptionsList.size(); i++) {
+            final Entity entity = entities.get(i);
+            if (entity != null) {
+                final PropertyOptions propertyOptions = _propertyOptionsList.get(i);
+                _entityPropertiesBuilder.addIndexes(entity, propertyOptions.getIndexes());
+                helpers.addProjections(entity,
+                        _entityPropertiesBuilder.resolveProjections(entity, propertyOptions.getProjections()));
+            }
+        }
+        _entityRelationBuilder.addForeignKeyIndexes();
+        _listener.relationsBuilt(_entityRelations.size());
+        _phaseDurations[GenerationPhase.BUILD_RELATIONS.ordinal()] += System.nanoTime() - start;
+
+        helpers.addRelationFetches(_entityRelationBuilder.getRelationFetches());
+        return helpers;
+    }
+
+    /**
+     * Splits the entities into batches of at most the batch size entities,
+     * keeping the entities that are related to each other, directly or not, in the same batch.
+     * A group of related entities larger than the batch size is a batch of its own.
+     * @param _propertyOptionsList the options of all the entities.
+     * @return the batches, with their entities and relations in their original order.
+     */
+    private List<Batch> createBatches(List<PropertyOptions> _propertyOptionsList) {
+        final Map<Class<?>, List<PropertyOptions>> optionsByClass = new LinkedHashMap<Class<?>, List<PropertyOptions>>();
+        for (PropertyOptions options : _propertyOptionsList) {
+            List<PropertyOptions> classOptions = optionsByClass.get(options.getEntityClass());
+            if (classOptions == null) {
+                classOptions = new ArrayList<PropertyOptions>();
+                optionsByClass.put(options.getEntityClass(), classOptions);
+            }
+            classOptions.add(options);
+        }
+
+        final RelationGraph relationGraph = new RelationGraph(optionsByClass.keySet(), entityRelations);
+        final List<Batch> batches = new ArrayList<Batch>();
+        final Map<Class<?>, Batch> batchesByClass = new HashMap<Class<?>, Batch>();
+        Batch batch = null;
+        for (List<Class<?>> component : relationGraph.getComponents()) {
+            if (batch == null || batch.entityCount + component.size() > batchSize) {
+                batch = new Batch();
+                batches.add(batch);
+            }
+            batch.entityCount += component.size();
+            for (Class<?> entityClass : component) {
+                batchesByClass.put(entityClass, batch);
+            }
+        }
+
+        if (batches.isEmpty()) {
+            batches.add(new Batch());
+        }
+
+        for (PropertyOptions options : _propertyOptionsList) {
+            batchesByClass.get(options.getEntityClass()).propertyOptionsList.add(options);
+        }
+
+        // A relation to a class which is not an entity is built with its source, or else the first batch, to fail there.
+        for (EntityRelation entityRelation : entityRelations) {
+            Batch relationBatch = batchesByClass.get(entityRelation.getSourceEntity());
+            if (relationBatch == null) {
+                relationBatch = batchesByClass.get(entityRelation.getRelationEntity());
+            }
+            if (relationBatch == null) {
+                relationBatch = batches.get(0);
+            }
+            relationBatch.entityRelations.add(entityRelation);
+        }
+        return batches;
+    }
+
+    /**
+     * Creates an empty greenDao schema with the version and package of the spec.
+     * @return the schema.
+     */
+    private Schema createSchema() {
+        return new Schema(spec.getVersion(), spec.getDefaultJavaPackage());
+    }
+
+    private SchemaGenerator createSchemaGenerator(GenerationListener _listener) throws IOException {
+        final SchemaGenerator schemaGenerator =
+                renderer == null ? new SchemaGenerator() : new SchemaGenerator(renderer);
+        schemaGenerator.setListener(_listener);
+        schemaGenerator.setIncremental(spec.isIncremental());
+        schemaGenerator.setDeleteOrphans(spec.isDeleteOrphans());
+        schemaGenerator.setMigrations(spec.isMigrations());
+        schemaGenerator.setParallelism(parallelism);
+        return schemaGenerator;
+    }
+
+    private static void completePhases(GenerationListener _listener, long[] _phaseDurations, GenerationPhase... _phases) {
+        for (GenerationPhase phase : _phases) {
+            _listener.phaseCompleted(phase, _phaseDurations[phase.ordinal()]);
+        }
+    }
+
+    /**
+     * The entities and relations of a batch.
+     */
+    private static class Batch {
+        private final List<PropertyOptions> propertyOptionsList = new ArrayList<PropertyOptions>();
+        private final List<EntityRelation> entityRelations = new ArrayList<EntityRelation>();
+        private int entityCount;
+    }
+}
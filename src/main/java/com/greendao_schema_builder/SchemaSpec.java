@@ -0,0 +1,210 @@
+package com.greendao_schema_builder;
+
+import com.greendao_schema_builder.generator.DaoRenderer;
+import com.greendao_schema_builder.generator.GenerationReport;
+import com.greendao_schema_builder.metrics.GenerationListener;
+import com.greendao_schema_builder.property.FieldBlackList;
+import com.greendao_schema_builder.property.PropertyOptions;
+import com.greendao_schema_builder.relationship.EntityRelation;
+import com.greendao_schema_builder.relationship.RelationGraphAnalysis;
+import com.greendao_schema_builder.type.TypeMapper;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The immutable configuration of a generation, built by {@link SchemaBuilder#buildSpec()}.
+ * The options, relations, blacklist and type mappings are copied from the builder,
+ * so that changing the builder afterwards does not change the spec, and those copies are not exposed.
+ * Every call to {@link #generate()} builds a greenDao schema of its own, so a spec can be generated
+ * several times, and several specs can be generated concurrently, as long as their output directories differ.
+ * The reflected class metadata is shared by all the generations of the JVM.
+ */
+public class SchemaSpec {
+
+    private final int version;
+    private final String defaultJavaPackage;
+    private final String outDirectory;
+    private final String fieldPrefix;
+    private final String prefixEntityName;
+    private final FieldBlackList blackListFields;
+    private final TypeMapper typeMapper;
+    private final List<PropertyOptions> propertyOptionsList;
+    private final List<EntityRelation> entityRelations;
+    private final boolean incremental;
+    private final boolean deleteOrphans;
+    private final boolean migrations;
+    private final boolean bulkWriters;
+    private final int parallelism;
+    private final int batchSize;
+    private final boolean indexForeignKeys;
+    private final boolean rowIdPrimaryKeys;
+    private final List<GenerationListener> listeners;
+    private final boolean metricsReport;
+    private final File snapshotFile;
+
+    /**
+     * Constructor, copies the configuration of a builder.
+     * @param _builder the builder.
+     */
+    SchemaSpec(SchemaBuilder _builder) {
+        version = _builder.getVersion();
+        defaultJavaPackage = _builder.getDefaultJavaPackage();
+        outDirectory = _builder.getOutDirectory();
+        fieldPrefix = _builder.getFieldPrefix();
+        prefixEntityName = _builder.getPrefixEntityName();
+        blackListFields = new FieldBlackList(_builder.getBlackListFields().getEntries());
+        typeMapper = new TypeMapper(_builder.getTypeMapper());
+
+        final List<PropertyOptions> optionsCopies = new ArrayList<PropertyOptions>();
+        for (PropertyOptions options : _builder.getPropertyOptions()) {
+            optionsCopies.add(new PropertyOptions(options));
+        }
+        propertyOptionsList = Collections.unmodifiableList(optionsCopies);
+
+        final List<EntityRelation> relationCopies = new ArrayList<EntityRelation>();
+        for (EntityRelation relation : _builder.getEntityRelations()) {
+            relationCopies.add(new EntityRelation(relation));
+        }
+        entityRelations = Collections.unmodifiableList(relationCopies);
+
+        incremental = _builder.isIncremental();
+        deleteOrphans = _builder.isDeleteOrphans();
+        migrations = _builder.isMigrations();
+        bulkWriters = _builder.isBulkWriters();
+        parallelism = _builder.getParallelism();
+        batchSize = _builder.getBatchSize();
+        indexForeignKeys = _builder.isIndexForeignKeys();
+        rowIdPrimaryKeys = _builder.isRowIdPrimaryKeys();
+        listeners = Collections.unmodifiableList(new ArrayList<GenerationListener>(_builder.getListeners()));
+        metricsReport = _builder.isMetricsReport();
+        snapshotFile = _builder.getSnapshotFile();
+    }
+
+    /**
+     * Generates the schema, through a greenDao schema of its own.
+     * Can be called from several threads at once, for specs whose output directories differ.
+     * @return the files written, skipped and deleted.
+     * @throws Exception
+     */
+    public GenerationReport generate() throws Exception {
+        return new SchemaGeneration(this, null).run();
+    }
+
+    /**
+     * Generates the schema, rendering its files with templates which are already loaded.
+     * @param _renderer the renderer, which can be shared by concurrent generations.
+     * @return the files written, skipped and deleted.
+     * @throws Exception
+     */
+    GenerationReport generate(DaoRenderer _renderer) throws Exception {
+        return new SchemaGeneration(this, _renderer).run();
+    }
+
+    /**
+     * Analyses the relations without reflecting over the entity classes,
+     * which every generation does first, failing with all the problems found.
+     * @return the problems of the relations, and the order of the entities along their foreign keys.
+     */
+    public RelationGraphAnalysis analyzeRelations() {
+        return new RelationGraphAnalysis(propertyOptionsList, entityRelations, prefixEntityName);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDefaultJavaPackage() {
+        return defaultJavaPackage;
+    }
+
+    public String getOutDirectory() {
+        return outDirectory;
+    }
+
+    public String getFieldPrefix() {
+        return fieldPrefix;
+    }
+
+    public String getPrefixEntityName() {
+        return prefixEntityName;
+    }
+
+    /**
+     * Returns the entity options, in the order they were added, they should not be modified.
+     * @return the copies of the options of the builder.
+     */
+    List<PropertyOptions> getPropertyOptions() {
+        return propertyOptionsList;
+    }
+
+    /**
+     * Returns the entity relations, in the order they were added, they should not be modified.
+     * @return the copies of the relations of the builder.
+     */
+    List<EntityRelation> getEntityRelations() {
+        return entityRelations;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public boolean isDeleteOrphans() {
+        return deleteOrphans;
+    }
+
+    public boolean isMigrations() {
+        return migrations;
+    }
+
+    public boolean isBulkWriters() {
+        return bulkWriters;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public boolean isIndexForeignKeys() {
+        return indexForeignKeys;
+    }
+
+    public boolean isRowIdPrimaryKeys() {
+        return rowIdPrimaryKeys;
+    }
+
+    public boolean isMetricsReport() {
+        return metricsReport;
+    }
+
+    public File getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    /**
+     * Returns the blacklist, it should not be modified.
+     * @return the copy of the blacklist of the builder.
+     */
+    FieldBlackList getBlackListFields() {
+        return blackListFields;
+    }
+
+    /**
+     * Returns the type mapper, it should not be modified.
+     * @return the copy of the type mapper of the builder.
+     */
+    TypeMapper getTypeMapper() {
+        return typeMapper;
+    }
+
+    List<GenerationListener> getListeners() {
+        return listeners;
+    }
+}
@@ -0,0 +1,317 @@
+package com.greendao_schema_builder;
+
+import com.greendao_schema_builder.generator.DaoRenderer;
+import com.greendao_schema_builder.generator.GenerationReport;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the directories of the compiled model classes, and generates the schema again whenever they change.
+ * The greenDao templates stay loaded, and the generator classes and the reflected metadata of the builder stay warm,
+ * between the generations of the watcher.
+ * The changed classes can not be reflected again through the class loader which loaded them,
+ * so every generation loads the model classes through a new class loader, and configures a new builder out of them.
+ * The generations are incremental: only the entities whose fingerprint changed are rendered,
+ * with the entities related to them.
+ * The reflected metadata of the model classes is lost with their class loader, so with a snapshot file
+ * the watcher keeps the resolved entities in it, and only reflects over the classes whose class files changed.
+ * The change events are debounced, so that a compilation writing many class files triggers a single generation.
+ */
+public class SchemaWatcher implements Closeable {
+
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 300;
+
+    private static final String CLASS_FILE_EXTENSION = ".class";
+
+    /**
+     * Configures the builder of a generation.
+     */
+    public interface Configuration {
+
+        /**
+         * Configures a builder with the model classes of a class loader,
+         * e.g. by scanning it with an {@link com.greendao_schema_builder.discovery.EntityScanner},
+         * or with {@link Class#forName(String, boolean, ClassLoader)}.
+         * The model classes should not be referenced directly, those would not be reloaded.
+         * @param _classLoader the class loader of the current model classes.
+         * @return the configured builder.
+         * @throws Exception
+         */
+        SchemaBuilder configure(ClassLoader _classLoader) throws Exception;
+    }
+
+    /**
+     * Listens to the generations of a watcher.
+     */
+    public interface Listener {
+
+        /**
+         * A generation completed.
+         * @param _report the files written, skipped and deleted.
+         * @param _durationNanos the duration of the generation, including the configuration.
+         */
+        void generated(GenerationReport _report, long _durationNanos);
+
+        /**
+         * A generation failed, the watcher keeps watching.
+         * The listener decides how the failure is reported.
+         * @param _exception the failure, of the configuration or the generation.
+         */
+        void failed(Exception _exception);
+    }
+
+    private final List<Path> classDirectories;
+    private final URL[] classDirectoryUrls;
+    private final ClassLoader parentClassLoader;
+    private final Configuration configuration;
+    private final Listener listener;
+
+    // The snapshot file of every generation, null if not used.
+    private final File snapshotFile;
+
+    // The renderer shared by all the generations, with its templates loaded once.
+    private final DaoRenderer renderer;
+
+    private final WatchService watchService;
+
+    // The watch key of every watched directory, to resolve the changed paths.
+    private final Map<WatchKey, Path> watchedDirectories;
+
+    private long debounceMillis;
+
+    /**
+     * Constructor, loads the greenDao templates.
+     * @param _classDirectories the root directories of the compiled model classes.
+     * @param _parentClassLoader the class loader of the classes the model depends on,
+     *                           the classes found in the directories are loaded from them first.
+     * @param _snapshotFile the snapshot file of the resolved entities, set on the builder of every generation,
+     *                      or null in order to reflect over all the model classes after every change.
+     * @param _configuration configures the builder of every generation.
+     * @param _listener listens to the generations and their failures.
+     * @throws IOException
+     */
+    public SchemaWatcher(
+            List<File> _classDirectories,
+            ClassLoader _parentClassLoader,
+            File _snapshotFile,
+            Configuration _configuration,
+            Listener _listener)
+            throws IOException {
+        if (_listener == null) {
+            throw new IllegalArgumentException("The watcher needs a listener, to report the failed generations.");
+        }
+        if (_classDirectories.isEmpty()) {
+            throw new IllegalArgumentException("At least one class directory should be watched.");
+        }
+        classDirectories = new ArrayList<Path>(_classDirectories.size());
+        classDirectoryUrls = new URL[_classDirectories.size()];
+        for (int i = 0; i < _classDirectories.size(); i++) {
+            final File directory = _classDirectories.get(i);
+            if (!directory.isDirectory()) {
+                throw new IllegalArgumentException("The class directory " + directory + " does not exist.");
+            }
+            classDirectories.add(directory.toPath().toAbsolutePath());
+            classDirectoryUrls[i] = toUrl(directory);
+        }
+        parentClassLoader = _parentClassLoader;
+        configuration = _configuration;
+        listener = _listener;
+        snapshotFile = _snapshotFile;
+        renderer = new DaoRenderer();
+        watchService = FileSystems.getDefault().newWatchService();
+        watchedDirectories = new HashMap<WatchKey, Path>();
+        debounceMillis = DEFAULT_DEBOUNCE_MILLIS;
+    }
+
+    private static URL toUrl(File _directory) throws IOException {
+        try {
+            return _directory.toURI().toURL();
+        } catch (MalformedURLException e) {
+            throw new IOException("Invalid class directory " + _directory + ".", e);
+        }
+    }
+
+    /**
+     * Sets the delay without any change after which the schema is generated, defaults to 300 milliseconds.
+     * @param _debounceMillis the delay in milliseconds.
+     */
+    public void setDebounceMillis(long _debounceMillis) {
+        if (_debounceMillis < 0) {
+            throw new IllegalArgumentException("The debounce delay should not be negative.");
+        }
+        debounceMillis = _debounceMillis;
+    }
+
+    /**
+     * Generates the schema once, out of the current model classes.
+     * @return the files written, skipped and deleted.
+     * @throws Exception
+     */
+    public GenerationReport generate() throws Exception {
+        final URLClassLoader classLoader = new ModelClassLoader(classDirectoryUrls, parentClassLoader);
+        try {
+            final SchemaBuilder builder = configuration.configure(classLoader);
+            builder.setIncremental(true);
+            if (snapshotFile != null) {
+                builder.setSnapshotFile(snapshotFile);
+            }
+            return builder.buildSpec().generate(renderer);
+        } finally {
+            classLoader.close();
+        }
+    }
+
+    /**
+     * Generates the schema, then watches the class directories and generates the schema again after every change,
+     * until the watcher is closed.
+     * A failed generation is reported to the listener, and the next change is watched for.
+     * @throws IOException
+     * @throws InterruptedException if the thread is interrupted while watching.
+     */
+    public void run() throws IOException, InterruptedException {
+        for (Path directory : classDirectories) {
+            register(directory);
+        }
+        generateAndReport();
+
+        try {
+            while (true) {
+                boolean changed = drain(watchService.take());
+
+                // Wait for the end of the changes, a compilation writes its class files one after the other.
+                WatchKey key;
+                while ((key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(key);
+                }
+                if (changed) {
+                    generateAndReport();
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Closed from another thread, stop watching.
+        }
+    }
+
+    /**
+     * Stops watching, the current generation completes.
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void generateAndReport() {
+        final long start = System.nanoTime();
+        try {
+            final GenerationReport report = generate();
+            listener.generated(report, System.nanoTime() - start);
+        } catch (Exception e) {
+            listener.failed(e);
+        }
+    }
+
+    /**
+     * Registers a directory and its sub directories.
+     * @param _directory the directory.
+     * @throws IOException
+     */
+    private void register(Path _directory) throws IOException {
+        Files.walkFileTree(_directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path _dir, BasicFileAttributes _attributes) throws IOException {
+                final WatchKey key = _dir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+                watchedDirectories.put(key, _dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Takes the events of a watch key, and registers the created directories.
+     * @param _key the signalled key.
+     * @return true if a class file or a directory changed, or if events were lost.
+     * @throws IOException
+     */
+    private boolean drain(WatchKey _key) throws IOException {
+        final Path directory = watchedDirectories.get(_key);
+        boolean changed = false;
+        for (WatchEvent<?> event : _key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                changed = true;
+                continue;
+            }
+            final Path path = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                // A new package, its class files may be written before it is watched.
+                register(path);
+                changed = true;
+            } else if (path.getFileName().toString().endsWith(CLASS_FILE_EXTENSION)) {
+                changed = true;
+            }
+        }
+        if (!_key.reset()) {
+            watchedDirectories.remove(_key);
+        }
+        return changed;
+    }
+
+    /**
+     * Loads the classes of the class directories before those of its parent,
+     * so that the changed model classes are loaded again even if the parent class path has them too.
+     */
+    private static class ModelClassLoader extends URLClassLoader {
+
+        ModelClassLoader(URL[] _urls, ClassLoader _parent) {
+            super(_urls, _parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String _name, boolean _resolve) throws ClassNotFoundException {
+            synchronized (getClassLoadingLock(_name)) {
+                Class<?> loadedClass = findLoadedClass(_name);
+                if (loadedClass == null) {
+                    try {
+                        loadedClass = findClass(_name);
+                    } catch (ClassNotFoundException e) {
+                        loadedClass = super.loadClass(_name, false);
+                    }
+                }
+                if (_resolve) {
+                    resolveClass(loadedClass);
+                }
+                return loadedClass;
+            }
+        }
+
+        @Override
+        public URL getResource(String _name) {
+            final URL resource = findResource(_name);
+            return resource != null ? resource : super.getResource(_name);
+        }
+    }
+}
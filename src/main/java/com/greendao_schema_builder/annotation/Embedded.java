@@ -0,0 +1,21 @@
+package com.greendao_schema_builder.annotation;
+
+import com.greendao_schema_builder.embedding.EmbeddingMode;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field of a {@link GreenDaoEntity}, a value class or a collection, as embedded in the table of its entity.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Embedded {
+
+    /**
+     * How the field is stored.
+     */
+    EmbeddingMode mode() default EmbeddingMode.BLOB;
+}
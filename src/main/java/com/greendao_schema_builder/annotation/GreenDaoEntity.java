@@ -0,0 +1,29 @@
+package com.greendao_schema_builder.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a model class as a greenDao entity, for the classpath scanning.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface GreenDaoEntity {
+
+    /**
+     * The primary key field name, a {@link PrimaryKey} field takes precedence.
+     */
+    String primaryKey() default "";
+
+    /**
+     * A super class name of the generated entity.
+     */
+    String superClassName() default "";
+
+    /**
+     * The interfaces to be implemented by the generated entity.
+     */
+    String[] interfaces() default {};
+}
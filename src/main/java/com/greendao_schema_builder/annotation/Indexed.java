@@ -0,0 +1,26 @@
+package com.greendao_schema_builder.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field of a {@link GreenDaoEntity} as indexed.
+ * The fields with the same index name make up a composite index, in field order.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Indexed {
+
+    /**
+     * The index name, shared by the fields of a composite index.
+     * An unnamed index is over this field only, with the greenDao default name.
+     */
+    String name() default "";
+
+    /**
+     * Whether the indexed values are unique, a composite index is unique if one of its fields says so.
+     */
+    boolean unique() default false;
+}
@@ -0,0 +1,44 @@
+package com.greendao_schema_builder.annotation;
+
+import com.greendao_schema_builder.relationship.EntityRelationType;
+import com.greendao_schema_builder.relationship.FetchStrategy;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field of a {@link GreenDaoEntity} as a relation to another entity.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Relation {
+
+    /**
+     * The type of the relation.
+     */
+    EntityRelationType type();
+
+    /**
+     * The related entity class, defaults to the field type,
+     * or to the element type of a collection field.
+     */
+    Class<?> target() default void.class;
+
+    /**
+     * The fieldName of the relative relationFieldName in order to relate the tables,
+     * for a many to many relation the name of the to many relation of the target entity.
+     */
+    String foreignKey() default "";
+
+    /**
+     * The join entity name of a many to many relation, defaults to one made of both class names.
+     */
+    String joinEntityName() default "";
+
+    /**
+     * How the related entities are loaded along with a page of entities.
+     */
+    FetchStrategy fetch() default FetchStrategy.LAZY;
+}
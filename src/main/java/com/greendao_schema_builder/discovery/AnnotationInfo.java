@@ -0,0 +1,79 @@
+package com.greendao_schema_builder.discovery;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An annotation as read from a class file.
+ */
+public class AnnotationInfo {
+
+    // The annotation class name.
+    private final String type;
+
+    // Element name to value, only the values present in the class file, not the defaults.
+    private final Map<String, Object> values;
+
+    /**
+     * Constructor.
+     * @param _type the annotation class name.
+     * @param _values element name to value.
+     */
+    public AnnotationInfo(String _type, Map<String, Object> _values) {
+        type = _type;
+        values = Collections.unmodifiableMap(_values);
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Map<String, Object> getValues() {
+        return values;
+    }
+
+    /**
+     * Returns a String element value.
+     * @param _name the element name.
+     * @param _defaultValue the value if the element is not present.
+     * @return the value.
+     */
+    public String getString(String _name, String _defaultValue) {
+        final Object value = values.get(_name);
+        return value != null ? value.toString() : _defaultValue;
+    }
+
+    /**
+     * Returns a boolean element value.
+     * @param _name the element name.
+     * @param _defaultValue the value if the element is not present.
+     * @return the value.
+     */
+    public boolean getBoolean(String _name, boolean _defaultValue) {
+        final Object value = values.get(_name);
+        return value != null ? (Boolean) value : _defaultValue;
+    }
+
+    /**
+     * Returns a String array element value.
+     * @param _name the element name.
+     * @return the values, empty if the element is not present.
+     */
+    public String[] getStrings(String _name) {
+        final Object value = values.get(_name);
+        if (value == null) {
+            return new String[0];
+        }
+        if (!(value instanceof List)) {
+            return new String[] { value.toString() };
+        }
+
+        final List<?> list = (List<?>) value;
+        final String[] strings = new String[list.size()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = list.get(i).toString();
+        }
+        return strings;
+    }
+}
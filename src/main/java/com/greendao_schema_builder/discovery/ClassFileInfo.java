@@ -0,0 +1,57 @@
+package com.greendao_schema_builder.discovery;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A class as read from a class file, without loading it.
+ */
+public class ClassFileInfo {
+
+    private final String className;
+
+    // null for java.lang.Object.
+    private final String superClassName;
+
+    // The declared fields, in class file order.
+    private final List<FieldInfo> fields;
+
+    // Annotation class name to annotation.
+    private final Map<String, AnnotationInfo> annotations;
+
+    /**
+     * Constructor.
+     * @param _className the class name.
+     * @param _superClassName the super class name.
+     * @param _fields the declared fields.
+     * @param _annotations annotation class name to annotation.
+     */
+    public ClassFileInfo(
+            String _className,
+            String _superClassName,
+            List<FieldInfo> _fields,
+            Map<String, AnnotationInfo> _annotations)
+    {
+        className = _className;
+        superClassName = _superClassName;
+        fields = Collections.unmodifiableList(_fields);
+        annotations = Collections.unmodifiableMap(_annotations);
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public String getSuperClassName() {
+        return superClassName;
+    }
+
+    public List<FieldInfo> getFields() {
+        return fields;
+    }
+
+    public AnnotationInfo getAnnotation(Class<?> _annotationClass) {
+        return annotations.get(_annotationClass.getName());
+    }
+}
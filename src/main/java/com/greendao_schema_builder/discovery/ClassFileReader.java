@@ -0,0 +1,284 @@
+package com.greendao_schema_builder.discovery;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the name, super class, fields and runtime visible annotations out of class file bytes,
+ * without loading the class. The methods are skipped.
+ */
+public class ClassFileReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELD_REF = 9;
+    private static final int CONSTANT_METHOD_REF = 10;
+    private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private static final String ATTRIBUTE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+    private static final String ATTRIBUTE_SIGNATURE = "Signature";
+
+    private ClassFileReader() {
+    }
+
+    /**
+     * Reads a class file.
+     * @param _classFile the class file bytes.
+     * @return the class file information.
+     * @throws IOException if the bytes are not a valid class file.
+     */
+    public static ClassFileInfo read(byte[] _classFile) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(_classFile));
+
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a class file.");
+        }
+        // minor and major version.
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+
+        final Object[] constants = readConstantPool(in);
+
+        in.readUnsignedShort();
+        final String className = classConstant(constants, in.readUnsignedShort());
+        final int superClassIndex = in.readUnsignedShort();
+        final String superClassName = superClassIndex == 0 ? null : classConstant(constants, superClassIndex);
+
+        // interfaces.
+        final int interfaceCount = in.readUnsignedShort();
+        for (int i = 0; i < interfaceCount; i++) {
+            in.readUnsignedShort();
+        }
+
+        final List<FieldInfo> fields = new ArrayList<FieldInfo>();
+        final int fieldCount = in.readUnsignedShort();
+        for (int i = 0; i < fieldCount; i++) {
+            in.readUnsignedShort();
+            final String name = (String) constants[in.readUnsignedShort()];
+            final String descriptor = (String) constants[in.readUnsignedShort()];
+            final MemberAttributes attributes = readAttributes(in, constants);
+            fields.add(new FieldInfo(name, descriptor, attributes.signature, attributes.annotations));
+        }
+
+        // methods.
+        final int methodCount = in.readUnsignedShort();
+        for (int i = 0; i < methodCount; i++) {
+            in.readUnsignedShort();
+            in.readUnsignedShort();
+            in.readUnsignedShort();
+            skipAttributes(in);
+        }
+
+        final MemberAttributes classAttributes = readAttributes(in, constants);
+        return new ClassFileInfo(className, superClassName, fields, classAttributes.annotations);
+    }
+
+    /**
+     * Reads the constant pool, keeping the UTF8, class and primitive constants.
+     */
+    private static Object[] readConstantPool(DataInputStream _in) throws IOException {
+        final int count = _in.readUnsignedShort();
+        final Object[] constants = new Object[count];
+        final int[] classNameIndexes = new int[count];
+
+        for (int i = 1; i < count; i++) {
+            final int tag = _in.readUnsignedByte();
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    constants[i] = _in.readUTF();
+                    break;
+                case CONSTANT_INTEGER:
+                    constants[i] = _in.readInt();
+                    break;
+                case CONSTANT_FLOAT:
+                    constants[i] = _in.readFloat();
+                    break;
+                case CONSTANT_LONG:
+                    // Takes two entries.
+                    constants[i++] = _in.readLong();
+                    break;
+                case CONSTANT_DOUBLE:
+                    // Takes two entries.
+                    constants[i++] = _in.readDouble();
+                    break;
+                case CONSTANT_CLASS:
+                    classNameIndexes[i] = _in.readUnsignedShort();
+                    break;
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    _in.readUnsignedShort();
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    _in.readUnsignedByte();
+                    _in.readUnsignedShort();
+                    break;
+                case CONSTANT_FIELD_REF:
+                case CONSTANT_METHOD_REF:
+                case CONSTANT_INTERFACE_METHOD_REF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    _in.readInt();
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag: " + tag);
+            }
+        }
+
+        // The class constants point to their internal name.
+        for (int i = 1; i < count; i++) {
+            if (classNameIndexes[i] != 0) {
+                constants[i] = new ClassConstant((String) constants[classNameIndexes[i]]);
+            }
+        }
+        return constants;
+    }
+
+    private static String classConstant(Object[] _constants, int _index) {
+        return ((ClassConstant) _constants[_index]).internalName.replace('/', '.');
+    }
+
+    private static MemberAttributes readAttributes(DataInputStream _in, Object[] _constants) throws IOException {
+        final MemberAttributes attributes = new MemberAttributes();
+
+        final int count = _in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            final String name = (String) _constants[_in.readUnsignedShort()];
+            final int length = _in.readInt();
+
+            if (ATTRIBUTE_ANNOTATIONS.equals(name)) {
+                final int annotationCount = _in.readUnsignedShort();
+                for (int annotation = 0; annotation < annotationCount; annotation++) {
+                    final AnnotationInfo info = readAnnotation(_in, _constants);
+                    attributes.annotations.put(info.getType(), info);
+                }
+            } else if (ATTRIBUTE_SIGNATURE.equals(name)) {
+                attributes.signature = (String) _constants[_in.readUnsignedShort()];
+            } else {
+                skipFully(_in, length);
+            }
+        }
+        return attributes;
+    }
+
+    private static void skipAttributes(DataInputStream _in) throws IOException {
+        final int count = _in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            _in.readUnsignedShort();
+            skipFully(_in, _in.readInt());
+        }
+    }
+
+    private static void skipFully(DataInputStream _in, int _length) throws IOException {
+        int remaining = _length;
+        while (remaining > 0) {
+            final int skipped = _in.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new IOException("Truncated class file.");
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private static AnnotationInfo readAnnotation(DataInputStream _in, Object[] _constants) throws IOException {
+        final String type = descriptorToClassName((String) _constants[_in.readUnsignedShort()]);
+        final Map<String, Object> values = new LinkedHashMap<String, Object>();
+
+        final int pairCount = _in.readUnsignedShort();
+        for (int i = 0; i < pairCount; i++) {
+            final String name = (String) _constants[_in.readUnsignedShort()];
+            values.put(name, readElementValue(_in, _constants));
+        }
+        return new AnnotationInfo(type, values);
+    }
+
+    /**
+     * Reads an annotation element value.
+     * Constants are returned as their value, enum constants by name, classes by class name,
+     * nested annotations as AnnotationInfo and arrays as lists.
+     */
+    private static Object readElementValue(DataInputStream _in, Object[] _constants) throws IOException {
+        final char tag = (char) _in.readUnsignedByte();
+        switch (tag) {
+            case 'B':
+                return ((Integer) _constants[_in.readUnsignedShort()]).byteValue();
+            case 'C':
+                return (char) ((Integer) _constants[_in.readUnsignedShort()]).intValue();
+            case 'S':
+                return ((Integer) _constants[_in.readUnsignedShort()]).shortValue();
+            case 'Z':
+                return ((Integer) _constants[_in.readUnsignedShort()]) != 0;
+            case 'I':
+            case 'J':
+            case 'F':
+            case 'D':
+            case 's':
+                return _constants[_in.readUnsignedShort()];
+            case 'e':
+                _in.readUnsignedShort();
+                return _constants[_in.readUnsignedShort()];
+            case 'c':
+                return descriptorToClassName((String) _constants[_in.readUnsignedShort()]);
+            case '@':
+                return readAnnotation(_in, _constants);
+            case '[':
+                final int count = _in.readUnsignedShort();
+                final List<Object> values = new ArrayList<Object>(count);
+                for (int i = 0; i < count; i++) {
+                    values.add(readElementValue(_in, _constants));
+                }
+                return values;
+            default:
+                throw new IOException("Unknown element value tag: " + tag);
+        }
+    }
+
+    /**
+     * Converts a type descriptor to a class name, e.g. "Lcom/example/Document;" to "com.example.Document".
+     * @param _descriptor the type descriptor.
+     * @return the class name, or the descriptor itself for primitive and array types.
+     */
+    public static String descriptorToClassName(String _descriptor) {
+        if (_descriptor.startsWith("L") && _descriptor.endsWith(";")) {
+            return _descriptor.substring(1, _descriptor.length() - 1).replace('/', '.');
+        }
+        if ("V".equals(_descriptor)) {
+            return "void";
+        }
+        return _descriptor;
+    }
+
+    private static class ClassConstant {
+        private final String internalName;
+
+        ClassConstant(String _internalName) {
+            internalName = _internalName;
+        }
+    }
+
+    private static class MemberAttributes {
+        private final Map<String, AnnotationInfo> annotations = new LinkedHashMap<String, AnnotationInfo>();
+        private String signature;
+    }
+}
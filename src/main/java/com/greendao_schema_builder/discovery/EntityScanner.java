@@ -0,0 +1,341 @@
+package com.greendao_schema_builder.discovery;
+
+import com.greendao_schema_builder.annotation.Embedded;
+import com.greendao_schema_builder.annotation.GreenDaoEntity;
+import com.greendao_schema_builder.annotation.Indexed;
+import com.greendao_schema_builder.annotation.PrimaryKey;
+import com.greendao_schema_builder.annotation.Relation;
+import com.greendao_schema_builder.embedding.EmbeddingMode;
+import com.greendao_schema_builder.errors.InvalidEntityException;
+import com.greendao_schema_builder.property.IndexDefinition;
+import com.greendao_schema_builder.property.PropertyOptions;
+import com.greendao_schema_builder.relationship.EntityRelation;
+import com.greendao_schema_builder.relationship.EntityRelationType;
+import com.greendao_schema_builder.relationship.FetchStrategy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Discovers the {@link GreenDaoEntity} classes of a package, in directories or jars.
+ * The class files are read without loading the classes, only the entity classes are loaded in the end,
+ * without being initialized.
+ */
+public class EntityScanner {
+
+    private static final String CLASS_FILE_EXTENSION = ".class";
+
+    // The class loader which the entity classes are loaded from.
+    private final ClassLoader classLoader;
+
+    // Class name to class file, of all the scanned classes, sorted in order to discover in a stable order.
+    private final Map<String, ClassFileInfo> classFiles;
+
+    /**
+     * Constructor.
+     * @param _classLoader the class loader of the model classes.
+     */
+    public EntityScanner(ClassLoader _classLoader) {
+        classLoader = _classLoader;
+        classFiles = new TreeMap<String, ClassFileInfo>();
+    }
+
+    /**
+     * Scans a package and its sub packages, in all the directories and jars of the class loader.
+     * @param _packageName the package name.
+     * @return this scanner.
+     * @throws IOException
+     */
+    public EntityScanner scanPackage(String _packageName) throws IOException {
+        final String packagePath = _packageName.replace('.', '/');
+
+        final Enumeration<URL> resources = classLoader.getResources(packagePath);
+        while (resources.hasMoreElements()) {
+            final URL resource = resources.nextElement();
+
+            if ("file".equals(resource.getProtocol())) {
+                scanDirectory(toFile(resource));
+            } else if ("jar".equals(resource.getProtocol())) {
+                final JarFile jarFile = ((JarURLConnection) resource.openConnection()).getJarFile();
+                scanJar(jarFile, packagePath);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Scans a class directory or a jar for a package and its sub packages.
+     * @param _path a directory of class files, or a jar.
+     * @param _packageName the package name.
+     * @return this scanner.
+     * @throws IOException
+     */
+    public EntityScanner scanPath(File _path, String _packageName) throws IOException {
+        final String packagePath = _packageName.replace('.', '/');
+
+        if (_path.isDirectory()) {
+            scanDirectory(new File(_path, packagePath));
+        } else {
+            final JarFile jarFile = new JarFile(_path);
+            try {
+                scanJar(jarFile, packagePath);
+            } finally {
+                jarFile.close();
+            }
+        }
+        return this;
+    }
+
+    private static File toFile(URL _url) throws IOException {
+        try {
+            return new File(new URI(_url.toString()));
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void scanDirectory(File _directory) throws IOException {
+        final File[] files = _directory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            if (file.isDirectory()) {
+                scanDirectory(file);
+            } else if (file.getName().endsWith(CLASS_FILE_EXTENSION)) {
+                addClassFile(Files.readAllBytes(file.toPath()));
+            }
+        }
+    }
+
+    private void scanJar(JarFile _jarFile, String _packagePath) throws IOException {
+        final Enumeration<JarEntry> entries = _jarFile.entries();
+        while (entries.hasMoreElements()) {
+            final JarEntry entry = entries.nextElement();
+            final String name = entry.getName();
+
+            if (name.startsWith(_packagePath + "/") && name.endsWith(CLASS_FILE_EXTENSION)) {
+                final InputStream in = _jarFile.getInputStream(entry);
+                try {
+                    addClassFile(readAll(in));
+                } finally {
+                    in.close();
+                }
+            }
+        }
+    }
+
+    private static byte[] readAll(InputStream _in) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = _in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void addClassFile(byte[] _classFile) throws IOException {
+        final ClassFileInfo classFile = ClassFileReader.read(_classFile);
+        classFiles.put(classFile.getClassName(), classFile);
+    }
+
+    /**
+     * Returns the options of the discovered entities, loading their classes.
+     * @return the entity options, sorted by class name.
+     * @throws InvalidEntityException if an entity class can not be loaded.
+     */
+    public List<PropertyOptions> getEntityOptions() throws InvalidEntityException {
+        final List<PropertyOptions> entityOptions = new ArrayList<PropertyOptions>();
+
+        for (ClassFileInfo classFile : classFiles.values()) {
+            final AnnotationInfo entity = classFile.getAnnotation(GreenDaoEntity.class);
+            if (entity == null) {
+                continue;
+            }
+
+            String primaryKey = entity.getString("primaryKey", "");
+            final FieldInfo primaryKeyField = findPrimaryKeyField(classFile);
+            if (primaryKeyField != null) {
+                primaryKey = primaryKeyField.getName();
+            }
+
+            final String superClassName = entity.getString("superClassName", "");
+
+            final PropertyOptions options = new PropertyOptions(
+                    loadClass(classFile.getClassName()),
+                    primaryKey.isEmpty() ? null : primaryKey,
+                    superClassName.isEmpty() ? null : superClassName,
+                    entity.getStrings("interfaces"));
+
+            for (IndexDefinition index : findIndexes(classFile)) {
+                options.addIndex(index);
+            }
+            for (FieldInfo field : getFieldsRecursively(classFile)) {
+                final AnnotationInfo embedded = field.getAnnotation(Embedded.class);
+                if (embedded != null) {
+                    options.embed(field.getName(),
+                            EmbeddingMode.valueOf(embedded.getString("mode", EmbeddingMode.BLOB.name())));
+                }
+            }
+            entityOptions.add(options);
+        }
+        return entityOptions;
+    }
+
+    /**
+     * Returns the indexes of the {@link Indexed} fields of a class,
+     * the named indexes after the unnamed ones, with their fields in field order.
+     */
+    private List<IndexDefinition> findIndexes(ClassFileInfo _classFile) {
+        final List<IndexDefinition> indexes = new ArrayList<IndexDefinition>();
+
+        // Index name to its fields, and whether it is unique.
+        final Map<String, List<String>> namedIndexFields = new LinkedHashMap<String, List<String>>();
+        final Map<String, Boolean> namedIndexUnique = new LinkedHashMap<String, Boolean>();
+
+        for (FieldInfo field : getFieldsRecursively(_classFile)) {
+            final AnnotationInfo indexed = field.getAnnotation(Indexed.class);
+            if (indexed == null) {
+                continue;
+            }
+
+            final String name = indexed.getString("name", "");
+            final boolean unique = indexed.getBoolean("unique", false);
+            if (name.isEmpty()) {
+                indexes.add(new IndexDefinition(unique, field.getName()));
+                continue;
+            }
+
+            List<String> fieldNames = namedIndexFields.get(name);
+            if (fieldNames == null) {
+                fieldNames = new ArrayList<String>();
+                namedIndexFields.put(name, fieldNames);
+                namedIndexUnique.put(name, false);
+            }
+            fieldNames.add(field.getName());
+            namedIndexUnique.put(name, namedIndexUnique.get(name) || unique);
+        }
+
+        for (Map.Entry<String, List<String>> namedIndex : namedIndexFields.entrySet()) {
+            final List<String> fieldNames = namedIndex.getValue();
+            indexes.add(new IndexDefinition(
+                    namedIndex.getKey(),
+                    namedIndexUnique.get(namedIndex.getKey()),
+                    fieldNames.toArray(new String[fieldNames.size()])));
+        }
+        return indexes;
+    }
+
+    /**
+     * Returns the relations of the discovered entities, loading their classes.
+     * @return the relations, sorted by source class name and in field order.
+     * @throws InvalidEntityException if a relation class can not be loaded, or not inferred.
+     */
+    public List<EntityRelation> getEntityRelations() throws InvalidEntityException {
+        final List<EntityRelation> entityRelations = new ArrayList<EntityRelation>();
+
+        for (ClassFileInfo classFile : classFiles.values()) {
+            if (classFile.getAnnotation(GreenDaoEntity.class) == null) {
+                continue;
+            }
+
+            for (FieldInfo field : getFieldsRecursively(classFile)) {
+                final AnnotationInfo relation = field.getAnnotation(Relation.class);
+                if (relation == null) {
+                    continue;
+                }
+
+                final EntityRelationType relationType = EntityRelationType.valueOf(relation.getString("type", null));
+                final String foreignKey = relation.getString("foreignKey", "");
+
+                final String joinEntityName = relation.getString("joinEntityName", "");
+                final FetchStrategy fetchStrategy =
+                        FetchStrategy.valueOf(relation.getString("fetch", FetchStrategy.LAZY.name()));
+
+                final EntityRelation entityRelation = new EntityRelation(
+                        loadClass(classFile.getClassName()),
+                        loadClass(findRelationClassName(classFile, field, relation, relationType)),
+                        field.getName(),
+                        relationType,
+                        foreignKey.isEmpty() ? null : foreignKey);
+                if (!joinEntityName.isEmpty()) {
+                    entityRelation.setJoinEntityName(joinEntityName);
+                }
+                entityRelation.setFetchStrategy(fetchStrategy);
+                entityRelations.add(entityRelation);
+            }
+        }
+        return entityRelations;
+    }
+
+    private static String findRelationClassName(
+            ClassFileInfo _classFile,
+            FieldInfo _field,
+            AnnotationInfo _relation,
+            EntityRelationType _relationType)
+    throws InvalidEntityException
+    {
+        final String target = _relation.getString("target", "void");
+        if (!"void".equals(target)) {
+            return target;
+        }
+
+        // A to many relation is a collection of the related entity.
+        final String relationClassName = _relationType == EntityRelationType.ONE_TO_ONE
+                ? _field.getTypeName()
+                : _field.getTypeArgumentName();
+
+        if (relationClassName == null) {
+            throw new InvalidEntityException("Can not infer the relation target of "
+                    + _classFile.getClassName() + "." + _field.getName() + ", set it on the @Relation.");
+        }
+        return relationClassName;
+    }
+
+    /**
+     * Returns the fields of a class and of its scanned super classes.
+     */
+    private List<FieldInfo> getFieldsRecursively(ClassFileInfo _classFile) {
+        final List<FieldInfo> fields = new ArrayList<FieldInfo>();
+        for (ClassFileInfo classFile = _classFile; classFile != null;
+                classFile = classFiles.get(classFile.getSuperClassName()))
+        {
+            fields.addAll(classFile.getFields());
+        }
+        return fields;
+    }
+
+    private FieldInfo findPrimaryKeyField(ClassFileInfo _classFile) {
+        for (FieldInfo field : getFieldsRecursively(_classFile)) {
+            if (field.getAnnotation(PrimaryKey.class) != null) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private Class<?> loadClass(String _className) throws InvalidEntityException {
+        try {
+            return Class.forName(_className, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new InvalidEntityException("Can not load the entity class " + _className, e);
+        }
+    }
+}
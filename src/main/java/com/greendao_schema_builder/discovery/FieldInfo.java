@@ -0,0 +1,81 @@
+package com.greendao_schema_builder.discovery;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A field as read from a class file.
+ */
+public class FieldInfo {
+
+    private final String name;
+
+    // The type descriptor, e.g. "Ljava/lang/String;".
+    private final String descriptor;
+
+    // The generic signature, e.g. "Ljava/util/List<Lcom/example/Line;>;", null if not generic.
+    private final String signature;
+
+    // Annotation class name to annotation.
+    private final Map<String, AnnotationInfo> annotations;
+
+    /**
+     * Constructor.
+     * @param _name the field name.
+     * @param _descriptor the type descriptor.
+     * @param _signature the generic signature.
+     * @param _annotations annotation class name to annotation.
+     */
+    public FieldInfo(String _name, String _descriptor, String _signature, Map<String, AnnotationInfo> _annotations) {
+        name = _name;
+        descriptor = _descriptor;
+        signature = _signature;
+        annotations = Collections.unmodifiableMap(_annotations);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescriptor() {
+        return descriptor;
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public AnnotationInfo getAnnotation(Class<?> _annotationClass) {
+        return annotations.get(_annotationClass.getName());
+    }
+
+    /**
+     * Returns the class name of the field type.
+     * @return the class name.
+     */
+    public String getTypeName() {
+        return ClassFileReader.descriptorToClassName(descriptor);
+    }
+
+    /**
+     * Returns the class name of the first type argument of a generic field, e.g. the elements of a List.
+     * @return the class name, or null if the field is not generic.
+     */
+    public String getTypeArgumentName() {
+        if (signature == null) {
+            return null;
+        }
+
+        final int start = signature.indexOf('<');
+        if (start < 0 || signature.charAt(start + 1) != 'L') {
+            return null;
+        }
+
+        // Up to the end of the type argument, or to its own type arguments.
+        int end = start + 1;
+        while (signature.charAt(end) != ';' && signature.charAt(end) != '<') {
+            end++;
+        }
+        return signature.substring(start + 2, end).replace('/', '.');
+    }
+}
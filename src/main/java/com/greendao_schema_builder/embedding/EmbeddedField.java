@@ -0,0 +1,153 @@
+package com.greendao_schema_builder.embedding;
+
+import com.greendao_schema_builder.property.PropertyDefinition;
+import de.greenrobot.daogenerator.PropertyType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A field of an entity class which is embedded in the table of its entity,
+ * as a blob column or as flattened columns, and converted by a generated serializer.
+ */
+public class EmbeddedField {
+
+    private final String fieldName;
+
+    // The property name, including the field prefix, which also prefixes the flattened columns.
+    private final String propertyName;
+
+    private final EmbeddingMode mode;
+    private final EmbeddedType type;
+
+    /**
+     * Constructor.
+     * @param _fieldName the field name.
+     * @param _propertyName the property name, including the field prefix.
+     * @param _mode how the field is stored.
+     * @param _type the field type.
+     */
+    EmbeddedField(String _fieldName, String _propertyName, EmbeddingMode _mode, EmbeddedType _type) {
+        fieldName = _fieldName;
+        propertyName = _propertyName;
+        mode = _mode;
+        type = _type;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    public EmbeddingMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the name of the mode, for the templates.
+     * @return the mode name.
+     */
+    public String getModeName() {
+        return mode.name();
+    }
+
+    public EmbeddedType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the property name of the flattened column of a member of the value.
+     * @param _member the member.
+     * @return the property name, e.g. addressCity.
+     */
+    public String getColumnPropertyName(EmbeddedMember _member) {
+        final String memberName = _member.getName();
+        return propertyName + Character.toUpperCase(memberName.charAt(0)) + memberName.substring(1);
+    }
+
+    /**
+     * Returns the properties which store the field, the blob or the flattened columns.
+     * @return the properties, in member order.
+     */
+    public List<PropertyDefinition> getProperties() {
+        if (mode == EmbeddingMode.BLOB) {
+            return Collections.singletonList(new PropertyDefinition(PropertyType.ByteArray, propertyName, false));
+        }
+
+        final List<PropertyDefinition> properties = new ArrayList<PropertyDefinition>(type.getMembers().size());
+        for (EmbeddedMember member : type.getMembers()) {
+            properties.add(new PropertyDefinition(member.getType().getPropertyType(), getColumnPropertyName(member), false));
+        }
+        return properties;
+    }
+
+    /**
+     * Returns the values and collections that the blob of the field is made of,
+     * each one gets a read and a write method.
+     * @return the types, in the order they are reached from the field type.
+     */
+    public List<EmbeddedType> getSerializedTypes() {
+        final Map<String, EmbeddedType> types = new LinkedHashMap<String, EmbeddedType>();
+        if (mode == EmbeddingMode.BLOB) {
+            addSerializedTypes(type, types);
+        }
+        return new ArrayList<EmbeddedType>(types.values());
+    }
+
+    private static void addSerializedTypes(EmbeddedType _type, Map<String, EmbeddedType> _types) {
+        if (_type.getKind() == EmbeddedType.Kind.SIMPLE || _types.containsKey(_type.getMethodName())) {
+            return;
+        }
+
+        _types.put(_type.getMethodName(), _type);
+        if (_type.getKind() == EmbeddedType.Kind.COLLECTION) {
+            addSerializedTypes(_type.getElementType(), _types);
+        }
+        for (EmbeddedMember member : _type.getMembers()) {
+            addSerializedTypes(member.getType(), _types);
+        }
+    }
+
+    /**
+     * Returns the codecs of the nullable simple types that the blob of the field is made of,
+     * each one gets a read and a write method.
+     * @return the codecs, sorted.
+     */
+    public Set<String> getNullableCodecs() {
+        final Set<String> codecs = new TreeSet<String>();
+        for (EmbeddedType serializedType : getSerializedTypes()) {
+            if (serializedType.getKind() == EmbeddedType.Kind.COLLECTION) {
+                addNullableCodec(serializedType.getElementType(), codecs);
+            }
+            for (EmbeddedMember member : serializedType.getMembers()) {
+                addNullableCodec(member.getType(), codecs);
+            }
+        }
+        return codecs;
+    }
+
+    private static void addNullableCodec(EmbeddedType _type, Set<String> _codecs) {
+        if (_type.getKind() == EmbeddedType.Kind.SIMPLE && !_type.isPrimitive()) {
+            _codecs.add(_type.getCodec());
+        }
+    }
+
+    /**
+     * Describes the field and its types, in order to detect a change of the generated serializer.
+     * @return the description.
+     */
+    public String getDescription() {
+        final StringBuilder description = new StringBuilder()
+                .append(fieldName).append(',').append(propertyName).append(',').append(mode).append(',');
+        type.describe(description);
+        return description.toString();
+    }
+}
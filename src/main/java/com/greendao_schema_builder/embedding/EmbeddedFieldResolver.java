@@ -0,0 +1,315 @@
+package com.greendao_schema_builder.embedding;
+
+import com.greendao_schema_builder.utils.ClassMetadataCache;
+import de.greenrobot.daogenerator.PropertyType;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Resolves the embedded fields of an entity class into their value classes and collections, using reflection.
+ * A value class is a public class with a public constructor without arguments,
+ * whose fields are public or have public getters and setters.
+ * A resolver is used for the fields of a single entity, so the method names of its serializer are unique.
+ */
+public class EmbeddedFieldResolver {
+
+    // The simple types, which greenDao maps by default, the enums aside.
+    private static final Map<Class<?>, EmbeddedType> SIMPLE_TYPES = createSimpleTypes();
+
+    // Java type to its resolved value or collection type.
+    private final Map<String, EmbeddedType> resolvedTypes;
+
+    // The read and write method names which are taken.
+    private final Set<String> methodNames;
+
+    // The value classes being resolved, in order to detect the values which contain themselves.
+    private final Set<Class<?>> resolvingClasses;
+
+    // Why the last field could not be resolved.
+    private String failure;
+
+    /**
+     * Constructor.
+     */
+    public EmbeddedFieldResolver() {
+        resolvedTypes = new HashMap<String, EmbeddedType>();
+        methodNames = new HashSet<String>();
+        resolvingClasses = new HashSet<Class<?>>();
+    }
+
+    private static Map<Class<?>, EmbeddedType> createSimpleTypes() {
+        final Map<Class<?>, EmbeddedType> simpleTypes = new IdentityHashMap<Class<?>, EmbeddedType>();
+
+        addSimpleType(simpleTypes, byte.class, Byte.class, "Byte", PropertyType.Byte);
+        addSimpleType(simpleTypes, short.class, Short.class, "Short", PropertyType.Short);
+        addSimpleType(simpleTypes, int.class, Integer.class, "Int", PropertyType.Int);
+        addSimpleType(simpleTypes, long.class, Long.class, "Long", PropertyType.Long);
+        addSimpleType(simpleTypes, boolean.class, Boolean.class, "Boolean", PropertyType.Boolean);
+        addSimpleType(simpleTypes, float.class, Float.class, "Float", PropertyType.Float);
+        addSimpleType(simpleTypes, double.class, Double.class, "Double", PropertyType.Double);
+        simpleTypes.put(String.class, EmbeddedType.simple("String", "String", PropertyType.String, false));
+        simpleTypes.put(Date.class, EmbeddedType.simple("java.util.Date", "Date", PropertyType.Date, false));
+        simpleTypes.put(byte[].class, EmbeddedType.simple("byte[]", "Bytes", PropertyType.ByteArray, false));
+
+        return Collections.unmodifiableMap(simpleTypes);
+    }
+
+    private static void addSimpleType(
+            Map<Class<?>, EmbeddedType> _simpleTypes,
+            Class<?> _primitiveClass,
+            Class<?> _boxedClass,
+            String _codec,
+            PropertyType _propertyType)
+    {
+        _simpleTypes.put(_primitiveClass, EmbeddedType.simple(_primitiveClass.getName(), _codec, _propertyType, true));
+        _simpleTypes.put(_boxedClass, EmbeddedType.simple(_boxedClass.getSimpleName(), _codec, _propertyType, false));
+    }
+
+    /**
+     * Resolves an embedded field.
+     * @param _field the field of the entity class.
+     * @param _propertyName the property name, including the field prefix.
+     * @param _mode how the field is stored.
+     * @return the embedded field, or null if its type can not be embedded, see {@link #getFailure()}.
+     */
+    public EmbeddedField resolve(Field _field, String _propertyName, EmbeddingMode _mode) {
+        failure = null;
+
+        final EmbeddedType type = resolveType(_field.getType(), _field.getGenericType(), true);
+        if (type == null) {
+            return null;
+        }
+        if (type.getKind() == EmbeddedType.Kind.SIMPLE) {
+            return fail(_field.getType().getName() + " is a simple type");
+        }
+
+        if (_mode == EmbeddingMode.FLATTENED) {
+            if (type.getKind() != EmbeddedType.Kind.VALUE) {
+                return fail("only a value class can be flattened");
+            }
+            for (EmbeddedMember member : type.getMembers()) {
+                if (member.getType().getKind() != EmbeddedType.Kind.SIMPLE) {
+                    return fail("the field " + member.getName() + " of a flattened value is not a simple type");
+                }
+            }
+        }
+        return new EmbeddedField(_field.getName(), _propertyName, _mode, type);
+    }
+
+    /**
+     * Returns why the last field could not be resolved.
+     * @return the reason, or null if it was resolved.
+     */
+    public String getFailure() {
+        return failure;
+    }
+
+    private <T> T fail(String _failure) {
+        failure = _failure;
+        return null;
+    }
+
+    private EmbeddedType resolveType(Class<?> _class, Type _genericType, boolean _collectionAllowed) {
+        final EmbeddedType simpleType = SIMPLE_TYPES.get(_class);
+        if (simpleType != null) {
+            return simpleType;
+        }
+        if (_class.isEnum()) {
+            return EmbeddedType.simple(_class.getCanonicalName(), "Enum", PropertyType.String, false);
+        }
+
+        if (Collection.class.isAssignableFrom(_class)) {
+            if (!_collectionAllowed) {
+                return fail("the collections of collections are not supported");
+            }
+            return resolveCollection(_class, _genericType);
+        }
+        return resolveValue(_class);
+    }
+
+    private EmbeddedType resolveCollection(Class<?> _class, Type _genericType) {
+        if (!(_genericType instanceof ParameterizedType)) {
+            return fail("the element type of " + _class.getName() + " is unknown");
+        }
+
+        final Type[] typeArguments = ((ParameterizedType) _genericType).getActualTypeArguments();
+        if (typeArguments.length != 1 || !(typeArguments[0] instanceof Class)) {
+            return fail("the element type of " + _genericType + " is not a class");
+        }
+
+        final Class<?> elementClass = (Class<?>) typeArguments[0];
+        final EmbeddedType elementType = resolveType(elementClass, elementClass, false);
+        if (elementType == null) {
+            return null;
+        }
+
+        final String javaType = _class.getCanonicalName() + "<" + elementType.getJavaType() + ">";
+        final EmbeddedType resolvedType = resolvedTypes.get(javaType);
+        if (resolvedType != null) {
+            return resolvedType;
+        }
+
+        final String implementationType = findImplementationType(_class);
+        if (implementationType == null) {
+            return fail(_class.getName() + " can not be instantiated");
+        }
+
+        final String elementName = elementType.getKind() == EmbeddedType.Kind.SIMPLE
+                ? elementType.getCodec() : elementType.getMethodName();
+        final EmbeddedType collectionType = EmbeddedType.collection(
+                javaType, createMethodName(elementName + _class.getSimpleName()), elementType, implementationType);
+        resolvedTypes.put(javaType, collectionType);
+        return collectionType;
+    }
+
+    /**
+     * Returns the collection class which is instantiated for a collection type,
+     * the type itself if it can be, or a collection of the JDK which is assignable to it.
+     */
+    private static String findImplementationType(Class<?> _class) {
+        if (isInstantiable(_class)) {
+            return _class.getCanonicalName();
+        }
+        if (SortedSet.class.isAssignableFrom(_class) && _class.isAssignableFrom(TreeSet.class)) {
+            return TreeSet.class.getName();
+        }
+        if (_class.isAssignableFrom(ArrayList.class)) {
+            return ArrayList.class.getName();
+        }
+        if (_class.isAssignableFrom(LinkedHashSet.class)) {
+            return LinkedHashSet.class.getName();
+        }
+        if (_class.isAssignableFrom(ArrayDeque.class)) {
+            return ArrayDeque.class.getName();
+        }
+        return null;
+    }
+
+    private static boolean isInstantiable(Class<?> _class) {
+        final int modifiers = _class.getModifiers();
+        if (_class.isPrimitive()
+                || _class.isArray()
+                || _class.isInterface()
+                || Modifier.isAbstract(modifiers)
+                || !Modifier.isPublic(modifiers)
+                || (_class.getEnclosingClass() != null && !Modifier.isStatic(modifiers))
+                || _class.getCanonicalName() == null)
+        {
+            return false;
+        }
+
+        try {
+            _class.getConstructor();
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private EmbeddedType resolveValue(Class<?> _class) {
+        if (!isInstantiable(_class)) {
+            return fail(_class.getName() + " is not a public class with a public constructor without arguments");
+        }
+
+        final EmbeddedType resolvedType = resolvedTypes.get(_class.getCanonicalName());
+        if (resolvedType != null) {
+            return resolvedType;
+        }
+
+        if (!resolvingClasses.add(_class)) {
+            return fail(_class.getName() + " contains itself");
+        }
+        try {
+            // The fields of the class first, a field hides those of its super classes with the same name.
+            final List<EmbeddedMember> members = new ArrayList<EmbeddedMember>();
+            final Set<String> memberNames = new HashSet<String>();
+            for (Field field : ClassMetadataCache.get(_class).getFields()) {
+                final int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()
+                        || !memberNames.add(field.getName()))
+                {
+                    continue;
+                }
+
+                final EmbeddedType memberType = resolveType(field.getType(), field.getGenericType(), true);
+                if (memberType == null) {
+                    return null;
+                }
+
+                final EmbeddedMember member = createMember(_class, field, memberType);
+                if (member == null) {
+                    return fail(_class.getName() + "." + field.getName() + " has no public getter and setter");
+                }
+                members.add(member);
+            }
+
+            if (members.isEmpty()) {
+                return fail(_class.getName() + " has no fields");
+            }
+
+            final EmbeddedType valueType = EmbeddedType.value(
+                    _class.getCanonicalName(), createMethodName(_class.getSimpleName()), members);
+            resolvedTypes.put(_class.getCanonicalName(), valueType);
+            return valueType;
+        } finally {
+            resolvingClasses.remove(_class);
+        }
+    }
+
+    /**
+     * Creates the member of a field, accessed directly if it is public, through its getter and setter otherwise.
+     * @return the member, or null if the field is not accessible.
+     */
+    private static EmbeddedMember createMember(Class<?> _class, Field _field, EmbeddedType _type) {
+        final String name = _field.getName();
+        final int modifiers = _field.getModifiers();
+        if (Modifier.isPublic(modifiers) && !Modifier.isFinal(modifiers)) {
+            return new EmbeddedMember(name, _type, name, null);
+        }
+
+        final String capitalizedName = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        Method getter = findMethod(_class, "get" + capitalizedName);
+        if (getter == null && _field.getType() == boolean.class) {
+            getter = findMethod(_class, "is" + capitalizedName);
+        }
+        final Method setter = findMethod(_class, "set" + capitalizedName, _field.getType());
+        if (getter == null || getter.getReturnType() != _field.getType() || setter == null) {
+            return null;
+        }
+        return new EmbeddedMember(name, _type, getter.getName() + "()", setter.getName());
+    }
+
+    private static Method findMethod(Class<?> _class, String _name, Class<?> ... _parameterTypes) {
+        try {
+            return _class.getMethod(_name, _parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private String createMethodName(String _name) {
+        String methodName = _name;
+        for (int i = 2; !methodNames.add(methodName); i++) {
+            methodName = _name + i;
+        }
+        return methodName;
+    }
+}
@@ -0,0 +1,46 @@
+package com.greendao_schema_builder.embedding;
+
+/**
+ * A field of an embedded value class, together with how the generated serializer accesses it.
+ */
+public class EmbeddedMember {
+
+    private final String name;
+    private final EmbeddedType type;
+
+    // The expression which reads the member of a value, e.g. "getCity()" or "city".
+    private final String getter;
+
+    // The setter method name, or null if the field is assigned directly.
+    private final String setter;
+
+    /**
+     * Constructor.
+     * @param _name the field name.
+     * @param _type the field type.
+     * @param _getter the expression which reads the member of a value.
+     * @param _setter the setter method name, or null if the field is assigned directly.
+     */
+    EmbeddedMember(String _name, EmbeddedType _type, String _getter, String _setter) {
+        name = _name;
+        type = _type;
+        getter = _getter;
+        setter = _setter;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public EmbeddedType getType() {
+        return type;
+    }
+
+    public String getGetter() {
+        return getter;
+    }
+
+    public String getSetter() {
+        return setter;
+    }
+}
@@ -0,0 +1,149 @@
+package com.greendao_schema_builder.embedding;
+
+import de.greenrobot.daogenerator.PropertyType;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The type of an embedded field, or of a member or an element of an embedded value:
+ * a simple type which greenDao maps, a value class, or a collection of simple types or values.
+ */
+public class EmbeddedType {
+
+    /**
+     * The kinds of embedded types.
+     */
+    public enum Kind {
+        SIMPLE,
+        VALUE,
+        COLLECTION
+    }
+
+    private final Kind kind;
+
+    // The type as written in the generated sources, with its type argument, e.g. java.util.List<java.lang.String>.
+    private final String javaType;
+
+    // A simple type: how it is written, e.g. Int, String, Date, Bytes or Enum, its property type and whether it is primitive.
+    private final String codec;
+    private final PropertyType propertyType;
+    private final boolean primitive;
+
+    // A value or a collection: the name of its generated read and write methods, e.g. Address or StringList.
+    private final String methodName;
+
+    // A value: its members, in field order.
+    private final List<EmbeddedMember> members;
+
+    // A collection: its element type, and the collection class which is instantiated.
+    private final EmbeddedType elementType;
+    private final String implementationType;
+
+    private EmbeddedType(
+            Kind _kind,
+            String _javaType,
+            String _codec,
+            PropertyType _propertyType,
+            boolean _primitive,
+            String _methodName,
+            List<EmbeddedMember> _members,
+            EmbeddedType _elementType,
+            String _implementationType)
+    {
+        kind = _kind;
+        javaType = _javaType;
+        codec = _codec;
+        propertyType = _propertyType;
+        primitive = _primitive;
+        methodName = _methodName;
+        members = _members;
+        elementType = _elementType;
+        implementationType = _implementationType;
+    }
+
+    static EmbeddedType simple(String _javaType, String _codec, PropertyType _propertyType, boolean _primitive) {
+        return new EmbeddedType(Kind.SIMPLE, _javaType, _codec, _propertyType, _primitive,
+                null, Collections.<EmbeddedMember>emptyList(), null, null);
+    }
+
+    static EmbeddedType value(String _javaType, String _methodName, List<EmbeddedMember> _members) {
+        return new EmbeddedType(Kind.VALUE, _javaType, null, null, false,
+                _methodName, Collections.unmodifiableList(_members), null, null);
+    }
+
+    static EmbeddedType collection(
+            String _javaType,
+            String _methodName,
+            EmbeddedType _elementType,
+            String _implementationType)
+    {
+        return new EmbeddedType(Kind.COLLECTION, _javaType, null, null, false,
+                _methodName, Collections.<EmbeddedMember>emptyList(), _elementType, _implementationType);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the name of the kind, for the templates.
+     * @return the kind name.
+     */
+    public String getKindName() {
+        return kind.name();
+    }
+
+    public String getJavaType() {
+        return javaType;
+    }
+
+    public String getCodec() {
+        return codec;
+    }
+
+    public PropertyType getPropertyType() {
+        return propertyType;
+    }
+
+    public boolean isPrimitive() {
+        return primitive;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public List<EmbeddedMember> getMembers() {
+        return members;
+    }
+
+    public EmbeddedType getElementType() {
+        return elementType;
+    }
+
+    public String getImplementationType() {
+        return implementationType;
+    }
+
+    /**
+     * Describes the type and its members, in order to detect a change of the value classes.
+     * @param _description receives the description.
+     */
+    void describe(StringBuilder _description) {
+        _description.append(kind).append(' ').append(javaType);
+        if (kind == Kind.COLLECTION) {
+            _description.append(" as ").append(implementationType).append(" of ");
+            elementType.describe(_description);
+        } else if (kind == Kind.VALUE) {
+            _description.append(" {");
+            for (EmbeddedMember member : members) {
+                _description.append(member.getName()).append(':')
+                        .append(member.getGetter()).append(',').append(member.getSetter()).append(' ');
+                member.getType().describe(_description);
+                _description.append(';');
+            }
+            _description.append('}');
+        }
+    }
+}
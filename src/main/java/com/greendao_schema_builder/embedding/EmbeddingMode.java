@@ -0,0 +1,18 @@
+package com.greendao_schema_builder.embedding;
+
+/**
+ * How an embedded field, a value object or a collection, is stored in the table of its entity.
+ */
+public enum EmbeddingMode {
+
+    /**
+     * A single binary column, the value and its nested values and collections are written by the serializer.
+     */
+    BLOB,
+
+    /**
+     * A column per field of the value object, named after the embedded field, e.g. addressCity.
+     * The fields of the value object have to be simple types.
+     */
+    FLATTENED
+}
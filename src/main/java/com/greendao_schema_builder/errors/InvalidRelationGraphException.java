@@ -0,0 +1,37 @@
+package com.greendao_schema_builder.errors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reports all the problems of the relations together, found before any entity class is reflected:
+ * the missing entities, the duplicate relations and entity names, and the conflicting foreign keys.
+ */
+public class InvalidRelationGraphException extends InvalidEntityException {
+
+    private final List<String> problems;
+
+    /**
+     * Constructor.
+     * @param _problems the problems, one sentence each.
+     */
+    public InvalidRelationGraphException(List<String> _problems) {
+        super(buildMessage(_problems));
+        problems = Collections.unmodifiableList(new ArrayList<String>(_problems));
+    }
+
+    private static String buildMessage(List<String> _problems) {
+        final StringBuilder message = new StringBuilder()
+                .append(_problems.size())
+                .append(" problem(s) with the entity relations:");
+        for (String problem : _problems) {
+            message.append("\n  ").append(problem);
+        }
+        return message.toString();
+    }
+
+    public List<String> getProblems() {
+        return problems;
+    }
+}
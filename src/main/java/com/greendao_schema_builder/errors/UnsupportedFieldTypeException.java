@@ -0,0 +1,38 @@
+package com.greendao_schema_builder.errors;
+
+import java.io.InvalidClassException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reports all the fields whose type can not be mapped to a greenDao property type.
+ */
+public class UnsupportedFieldTypeException extends InvalidClassException {
+
+    private final List<String> unsupportedFields;
+
+    /**
+     * Constructor.
+     * @param _unsupportedFields the unsupported fields, as "Class.field (type)".
+     */
+    public UnsupportedFieldTypeException(List<String> _unsupportedFields) {
+        super(buildMessage(_unsupportedFields));
+        unsupportedFields = Collections.unmodifiableList(new ArrayList<String>(_unsupportedFields));
+    }
+
+    private static String buildMessage(List<String> _unsupportedFields) {
+        final StringBuilder message = new StringBuilder()
+                .append(_unsupportedFields.size())
+                .append(" field(s) with a type that is not supported,")
+                .append(" blacklist them, embed them or register their type to the TypeMapper:");
+        for (String unsupportedField : _unsupportedFields) {
+            message.append("\n  ").append(unsupportedField);
+        }
+        return message.toString();
+    }
+
+    public List<String> getUnsupportedFields() {
+        return unsupportedFields;
+    }
+}
@@ -0,0 +1,419 @@
+package com.greendao_schema_builder.generator;
+
+import com.greendao_schema_builder.embedding.EmbeddedField;
+import com.greendao_schema_builder.migration.MigrationHistory;
+import com.greendao_schema_builder.property.EntityProjection;
+import com.greendao_schema_builder.relationship.RelationFetch;
+import de.greenrobot.daogenerator.DaoGenerator;
+import de.greenrobot.daogenerator.Entity;
+import de.greenrobot.daogenerator.Schema;
+import freemarker.template.Configuration;
+import freemarker.template.DefaultObjectWrapper;
+import freemarker.template.Template;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Renders the greenDao templates of a schema file by file,
+ * so that a subset of the entities can be generated.
+ * Produces the same output as the greenDao DaoGenerator, written through a {@link GeneratedFileWriter}.
+ */
+public class DaoRenderer {
+
+    static final String DAO_MASTER = "DaoMaster";
+    static final String DAO_SESSION = "DaoSession";
+    static final String MIGRATION_OPEN_HELPER = "MigrationOpenHelper";
+    static final String FETCHER_POSTFIX = "Fetcher";
+    static final String SERIALIZER_POSTFIX = "Serializer";
+    static final String BULK_WRITER_POSTFIX = "BulkWriter";
+    static final String PROJECTIONS_POSTFIX = "Projections";
+
+    private final Template templateDao;
+    private final Template templateDaoMaster;
+    private final Template templateDaoSession;
+    private final Template templateEntity;
+    private final Template templateFetcher;
+    private final Template templateSerializer;
+    private final Template templateBulkWriter;
+    private final Template templateProjections;
+    private final Template templateMigration;
+
+    private final Pattern patternKeepIncludes;
+    private final Pattern patternKeepFields;
+    private final Pattern patternKeepMethods;
+
+    /**
+     * Constructor, loads the greenDao templates.
+     * @throws IOException
+     */
+    public DaoRenderer() throws IOException {
+        // The templates are packaged together with the greenDao generator.
+        Configuration config = new Configuration();
+        config.setClassForTemplateLoading(DaoGenerator.class, "/");
+        config.setObjectWrapper(new DefaultObjectWrapper());
+
+        templateDao = config.getTemplate("dao.ftl");
+        templateDaoMaster = config.getTemplate("dao-master.ftl");
+        templateDaoSession = config.getTemplate("dao-session.ftl");
+        templateEntity = config.getTemplate("entity.ftl");
+
+        // The templates of the schema builder are packaged next to this class.
+        Configuration builderConfig = new Configuration();
+        builderConfig.setClassForTemplateLoading(DaoRenderer.class, "");
+        builderConfig.setObjectWrapper(new DefaultObjectWrapper());
+
+        templateFetcher = builderConfig.getTemplate("fetcher.ftl");
+        templateSerializer = builderConfig.getTemplate("serializer.ftl");
+        templateBulkWriter = builderConfig.getTemplate("bulk-writer.ftl");
+        templateProjections = builderConfig.getTemplate("projections.ftl");
+        templateMigration = builderConfig.getTemplate("migration.ftl");
+
+        patternKeepIncludes = compileKeepPattern("INCLUDES");
+        patternKeepFields = compileKeepPattern("FIELDS");
+        patternKeepMethods = compileKeepPattern("METHODS");
+    }
+
+    /**
+     * Runs the greenDao second and third initialization passes over the schema.
+     * Those are package private in greenDao, and are normally called by the DaoGenerator.
+     * @param _schema the schema to be initialized, should be called once per schema.
+     * @throws Exception
+     */
+    public static void initialize(Schema _schema) throws Exception {
+        invokeSchemaPass(_schema, "init2ndPass");
+        invokeSchemaPass(_schema, "init3ndPass");
+    }
+
+    private static void invokeSchemaPass(Schema _schema, String _passName) throws Exception {
+        final Method pass = Schema.class.getDeclaredMethod(_passName);
+        pass.setAccessible(true);
+        try {
+            pass.invoke(_schema);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the output directory, it should already exist.
+     * @param _outDirectory the output directory path.
+     * @return the output directory.
+     * @throws IOException
+     */
+    public static File toOutDirectory(String _outDirectory) throws IOException {
+        final File outDirectory = new File(_outDirectory);
+        if (!outDirectory.exists()) {
+            throw new IOException(_outDirectory
+                    + " does not exist. This check is to prevent accidental file generation into a wrong path.");
+        }
+        return outDirectory;
+    }
+
+    /**
+     * Returns the java file of a class in the output directory.
+     * @param _outDirectory the output directory.
+     * @param _javaPackage the java package of the class.
+     * @param _className the simple class name.
+     * @return the java file.
+     */
+    public static File toJavaFile(File _outDirectory, String _javaPackage, String _className) {
+        final File packageDirectory = new File(_outDirectory, _javaPackage.replace('.', '/'));
+        return new File(packageDirectory, _className + ".java");
+    }
+
+    /**
+     * Returns the Dao java file of an initialized entity.
+     * @param _outDirectory the output directory.
+     * @param _entity the greenDao entity.
+     * @return the Dao java file.
+     */
+    public static File toDaoFile(File _outDirectory, Entity _entity) {
+        return toJavaFile(_outDirectory, _entity.getJavaPackageDao(), _entity.getClassNameDao());
+    }
+
+    /**
+     * Returns the java file of an initialized entity,
+     * or null if the entity class is not generated.
+     * @param _outDirectory the output directory.
+     * @param _entity the greenDao entity.
+     * @return the entity java file.
+     */
+    public static File toEntityFile(File _outDirectory, Entity _entity) {
+        if (_entity.isProtobuf() || _entity.isSkipGeneration()) {
+            return null;
+        }
+        return toJavaFile(_outDirectory, _entity.getJavaPackage(), _entity.getClassName());
+    }
+
+    /**
+     * Returns the fetch helper java file of an initialized entity, next to its Dao.
+     * @param _outDirectory the output directory.
+     * @param _entity the greenDao entity.
+     * @return the fetch helper java file.
+     */
+    public static File toFetcherFile(File _outDirectory, Entity _entity) {
+        return toJavaFile(_outDirectory, _entity.getJavaPackageDao(), _entity.getClassName() + FETCHER_POSTFIX);
+    }
+
+    /**
+     * Returns the serializer java file of an initialized entity, next to its class.
+     * @param _outDirectory the output directory.
+     * @param _entity the greenDao entity.
+     * @return the serializer java file.
+     */
+    public static File toSerializerFile(File _outDirectory, Entity _entity) {
+        return toJavaFile(_outDirectory, _entity.getJavaPackage(), _entity.getClassName() + SERIALIZER_POSTFIX);
+    }
+
+    /**
+     * Returns the bulk writer java file of an initialized entity, next to its Dao.
+     * @param _outDirectory the output directory.
+     * @param _entity the greenDao entity.
+     * @return the bulk writer java file.
+     */
+    public static File toBulkWriterFile(File _outDirectory, Entity _entity) {
+        return toJavaFile(_outDirectory, _entity.getJavaPackageDao(), _entity.getClassName() + BULK_WRITER_POSTFIX);
+    }
+
+    /**
+     * Returns the projections java file of an initialized entity, next to its Dao.
+     * @param _outDirectory the output directory.
+     * @param _entity the greenDao entity.
+     * @return the projections java file.
+     */
+    public static File toProjectionsFile(File _outDirectory, Entity _entity) {
+        return toJavaFile(_outDirectory, _entity.getJavaPackageDao(), _entity.getClassName() + PROJECTIONS_POSTFIX);
+    }
+
+    /**
+     * Returns the helper java files of an initialized entity.
+     * @param _outDirectory the output directory.
+     * @param _entity the greenDao entity.
+     * @param _helpers what the helper classes of the entities are made of.
+     * @return the helper java files, the fetcher, the serializer, the bulk writer and the projections
+     *         if the entity has them.
+     */
+    public static List<File> toHelperFiles(File _outDirectory, Entity _entity, EntityHelpers _helpers) {
+        final List<File> helperFiles = new ArrayList<File>(4);
+        if (!_helpers.getRelationFetches(_entity).isEmpty()) {
+            helperFiles.add(toFetcherFile(_outDirectory, _entity));
+        }
+        if (!_helpers.getEmbeddedFields(_entity).isEmpty()) {
+            helperFiles.add(toSerializerFile(_outDirectory, _entity));
+        }
+        if (_helpers.hasBulkWriter(_entity)) {
+            helperFiles.add(toBulkWriterFile(_outDirectory, _entity));
+        }
+        if (!_helpers.getProjections(_entity).isEmpty()) {
+            helperFiles.add(toProjectionsFile(_outDirectory, _entity));
+        }
+        return helperFiles;
+    }
+
+    /**
+     * Renders the Dao and the class of an initialized entity.
+     * @param _schema the initialized schema.
+     * @param _entity the entity to be rendered.
+     * @param _output the writer of the output directory.
+     * @throws Exception
+     */
+    public void renderEntity(Schema _schema, Entity _entity, GeneratedFileWriter _output) throws Exception {
+        renderEntity(_schema, _entity, new EntityHelpers(), _output);
+    }
+
+    /**
+     * Renders the Dao and the class of an initialized entity, and its helper classes:
+     * the fetcher if some of its relations are not loaded lazily,
+     * the serializer if some of its fields are embedded, the bulk writer if it has one,
+     * and the projections if it has some.
+     * @param _schema the initialized schema.
+     * @param _entity the entity to be rendered.
+     * @param _helpers what the helper classes of the entities are made of.
+     * @param _output the writer of the output directory.
+     * @throws Exception
+     */
+    public void renderEntity(
+            Schema _schema,
+            Entity _entity,
+            EntityHelpers _helpers,
+            GeneratedFileWriter _output)
+    throws Exception
+    {
+        final File outDirectory = _output.getOutDirectory();
+        render(templateDao, toDaoFile(outDirectory, _entity), _schema, _entity, _output);
+
+        final File entityFile = toEntityFile(outDirectory, _entity);
+        if (entityFile != null) {
+            render(templateEntity, entityFile, _schema, _entity, _output);
+        }
+
+        final List<RelationFetch> relationFetches = _helpers.getRelationFetches(_entity);
+        if (!relationFetches.isEmpty()) {
+            renderHelper(templateFetcher, toFetcherFile(outDirectory, _entity), _schema, _entity,
+                    "fetches", relationFetches, _output);
+        }
+
+        final List<EmbeddedField> embeddedFields = _helpers.getEmbeddedFields(_entity);
+        if (!embeddedFields.isEmpty()) {
+            renderHelper(templateSerializer, toSerializerFile(outDirectory, _entity), _schema, _entity,
+                    "embeddedFields", embeddedFields, _output);
+        }
+
+        if (_helpers.hasBulkWriter(_entity)) {
+            renderHelper(templateBulkWriter, toBulkWriterFile(outDirectory, _entity), _schema, _entity,
+                    "bulkWriter", Boolean.TRUE, _output);
+        }
+
+        final List<EntityProjection> projections = _helpers.getProjections(_entity);
+        if (!projections.isEmpty()) {
+            renderHelper(templateProjections, toProjectionsFile(outDirectory, _entity), _schema, _entity,
+                    "projections", projections, _output);
+        }
+    }
+
+    /**
+     * Renders a helper template of the schema builder in memory, then writes it into a java file if it changed.
+     * @param _template the template.
+     * @param _file the file to be written.
+     * @param _schema the schema.
+     * @param _entity the entity.
+     * @param _name the template root name of what the helper is made of.
+     * @param _value what the helper is made of.
+     * @param _output the writer of the output directory.
+     * @throws Exception
+     */
+    private static void renderHelper(
+            Template _template,
+            File _file,
+            Schema _schema,
+            Entity _entity,
+            String _name,
+            Object _value,
+            GeneratedFileWriter _output)
+    throws Exception
+    {
+        final Map<String, Object> root = new HashMap<String, Object>();
+        root.put("schema", _schema);
+        root.put("entity", _entity);
+        root.put(_name, _value);
+
+        final StringWriter writer = new StringWriter();
+        _template.process(root, writer);
+        _output.write(_file, writer.toString());
+    }
+
+    /**
+     * Renders the schema wide DaoMaster and DaoSession of an initialized schema.
+     * @param _schema the initialized schema.
+     * @param _output the writer of the output directory.
+     * @throws Exception
+     */
+    public void renderSchema(Schema _schema, GeneratedFileWriter _output) throws Exception {
+        final File outDirectory = _output.getOutDirectory();
+        final String javaPackageDao = _schema.getDefaultJavaPackageDao();
+        render(templateDaoMaster, toJavaFile(outDirectory, javaPackageDao, DAO_MASTER), _schema, null, _output);
+        render(templateDaoSession, toJavaFile(outDirectory, javaPackageDao, DAO_SESSION), _schema, null, _output);
+    }
+
+    /**
+     * Renders the schema wide MigrationOpenHelper, next to the DaoMaster,
+     * which upgrades the tables of an older schema version through the recorded migrations.
+     * @param _schema the schema, only its version and Dao package are used.
+     * @param _history the migration history, which recorded the tables of the schema.
+     * @param _output the writer of the output directory.
+     * @throws Exception
+     */
+    public void renderMigrations(Schema _schema, MigrationHistory _history, GeneratedFileWriter _output)
+    throws Exception
+    {
+        final Map<String, Object> root = new HashMap<String, Object>();
+        root.put("schema", _schema);
+        root.put("firstVersion", _history.getFirstVersion());
+        root.put("migrations", _history.getMigrations());
+
+        final StringWriter writer = new StringWriter();
+        templateMigration.process(root, writer);
+        _output.write(
+                toJavaFile(_output.getOutDirectory(), _schema.getDefaultJavaPackageDao(), MIGRATION_OPEN_HELPER),
+                writer.toString());
+    }
+
+    /**
+     * Renders a template in memory, then writes it into a java file if it changed.
+     * @param _template the template.
+     * @param _file the file to be written.
+     * @param _schema the schema.
+     * @param _entity the entity, null for the schema wide templates.
+     * @param _output the writer of the output directory.
+     * @throws Exception
+     */
+    private void render(
+            Template _template,
+            File _file,
+            Schema _schema,
+            Entity _entity,
+            GeneratedFileWriter _output)
+    throws Exception
+    {
+        final Map<String, Object> root = new HashMap<String, Object>();
+        root.put("schema", _schema);
+        root.put("entity", _entity);
+
+        if (_entity != null && _entity.getHasKeepSections()) {
+            readKeepSections(_file, root);
+        }
+
+        final StringWriter writer = new StringWriter();
+        _template.process(root, writer);
+        _output.write(_file, writer.toString());
+    }
+
+    /**
+     * Reads the keep sections of an existing file, in order to render them again.
+     * @param _file the existing file.
+     * @param _root the template root to add the sections to.
+     * @throws IOException
+     */
+    private void readKeepSections(File _file, Map<String, Object> _root) throws IOException {
+        if (!_file.exists()) {
+            return;
+        }
+
+        final String contents = new String(Files.readAllBytes(_file.toPath()));
+
+        Matcher matcher = patternKeepIncludes.matcher(contents);
+        if (matcher.matches()) {
+            _root.put("keepIncludes", matcher.group(1));
+        }
+
+        matcher = patternKeepFields.matcher(contents);
+        if (matcher.matches()) {
+            _root.put("keepFields", matcher.group(1));
+        }
+
+        matcher = patternKeepMethods.matcher(contents);
+        if (matcher.matches()) {
+            _root.put("keepMethods", matcher.group(1));
+        }
+    }
+
+    private static Pattern compileKeepPattern(String _sectionName) {
+        return Pattern.compile(
+                ".*^\\s*?//\\s*?KEEP " + _sectionName + ".*?\n(.*?)^\\s*// KEEP " + _sectionName + " END.*?\n",
+                Pattern.DOTALL | Pattern.MULTILINE);
+    }
+}
@@ -0,0 +1,221 @@
+package com.greendao_schema_builder.generator;
+
+import com.greendao_schema_builder.embedding.EmbeddedField;
+import com.greendao_schema_builder.property.EntityProjection;
+import com.greendao_schema_builder.relationship.RelationFetch;
+import de.greenrobot.daogenerator.Entity;
+import de.greenrobot.daogenerator.Index;
+import de.greenrobot.daogenerator.Property;
+import de.greenrobot.daogenerator.Schema;
+import de.greenrobot.daogenerator.ToMany;
+import de.greenrobot.daogenerator.ToOne;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Computes a fingerprint of an initialized greenDao Entity,
+ * out of everything that ends up in its generated files:
+ * the reflected properties, the indexes, the relations, their fetches, the embedded fields,
+ * the bulk writer and the projections.
+ */
+public class EntityFingerprint {
+
+    private static final String DIGEST_ALGORITHM = "SHA-1";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private EntityFingerprint() {
+    }
+
+    /**
+     * Computes the fingerprint of the schema wide files, the DaoMaster and the DaoSession.
+     * @param _schema the initialized schema.
+     * @return the fingerprint as a hex string.
+     */
+    public static String computeSchema(Schema _schema) {
+        final StringBuilder description = new StringBuilder();
+
+        description.append("schema:")
+                .append(_schema.getVersion()).append(',')
+                .append(_schema.getDefaultJavaPackage()).append(',')
+                .append(_schema.getDefaultJavaPackageDao()).append('\n');
+
+        for (Entity entity : _schema.getEntities()) {
+            description.append("entity:")
+                    .append(entity.getClassName()).append(',')
+                    .append(entity.getJavaPackage()).append(',')
+                    .append(entity.getJavaPackageDao()).append(',')
+                    .append(entity.getClassNameDao()).append(',')
+                    .append(entity.isSkipTableCreation()).append('\n');
+        }
+
+        return digest(description.toString());
+    }
+
+    /**
+     * Computes the fingerprint of an entity.
+     * @param _schema the initialized schema of the entity.
+     * @param _entity the initialized entity.
+     * @return the fingerprint as a hex string.
+     */
+    public static String compute(Schema _schema, Entity _entity) {
+        return compute(_schema, _entity, new EntityHelpers());
+    }
+
+    /**
+     * Computes the fingerprint of an entity, together with its helper classes.
+     * @param _schema the initialized schema of the entity.
+     * @param _entity the initialized entity.
+     * @param _helpers what the helper classes of the entities are made of.
+     * @return the fingerprint as a hex string.
+     */
+    public static String compute(Schema _schema, Entity _entity, EntityHelpers _helpers) {
+        final StringBuilder description = new StringBuilder();
+
+        // The schema wide options end up in every file.
+        description.append("schema:")
+                .append(_schema.getVersion()).append(',')
+                .append(_schema.getDefaultJavaPackage()).append(',')
+                .append(_schema.getDefaultJavaPackageDao()).append('\n');
+
+        description.append("entity:")
+                .append(_entity.getClassName()).append(',')
+                .append(_entity.getTableName()).append(',')
+                .append(_entity.getJavaPackage()).append(',')
+                .append(_entity.getJavaPackageDao()).append(',')
+                .append(_entity.getClassNameDao()).append(',')
+                .append(_entity.getSuperclass()).append(',')
+                .append(_entity.getInterfacesToImplement()).append(',')
+                .append(_entity.getActive()).append(',')
+                .append(_entity.getHasKeepSections()).append(',')
+                .append(_entity.isSkipGeneration()).append(',')
+                .append(_entity.isSkipTableCreation()).append('\n');
+
+        for (Property property : _entity.getProperties()) {
+            description.append("property:");
+            appendProperty(description, property);
+            description.append(',')
+                    .append(property.getColumnType()).append(',')
+                    .append(property.getConstraints()).append(',')
+                    .append(property.getJavaType()).append('\n');
+        }
+
+        for (Index index : _entity.getIndexes()) {
+            description.append("index:")
+                    .append(index.getName()).append(',')
+                    .append(index.isUnique()).append(',');
+            appendProperties(description, index.getProperties());
+            description.append('\n');
+        }
+
+        for (ToOne toOne : _entity.getToOneRelations()) {
+            description.append("toOne:")
+                    .append(toOne.getName()).append(',')
+                    .append(toOne.getTargetEntity().getClassName()).append(',');
+            appendProperties(description, toOne.getFkProperties());
+            description.append('\n');
+        }
+
+        for (ToMany toMany : _entity.getToManyRelations()) {
+            appendToMany(description, "toMany:", toMany);
+        }
+
+        for (ToMany toMany : _entity.getIncomingToManyRelations()) {
+            appendToMany(description, "incomingToMany:", toMany);
+        }
+
+        for (RelationFetch relationFetch : _helpers.getRelationFetches(_entity)) {
+            description.append("fetch:")
+                    .append(relationFetch.getName()).append(',')
+                    .append(relationFetch.getFetchStrategy()).append('\n');
+        }
+
+        for (EmbeddedField embeddedField : _helpers.getEmbeddedFields(_entity)) {
+            description.append("embedded:").append(embeddedField.getDescription()).append('\n');
+        }
+
+        if (_helpers.hasBulkWriter(_entity)) {
+            description.append("bulkWriter\n");
+        }
+
+        for (EntityProjection projection : _helpers.getProjections(_entity)) {
+            description.append("projection:").append(projection.getName()).append(',');
+            appendProperties(description, projection.getProperties());
+            description.append('\n');
+        }
+
+        return digest(description.toString());
+    }
+
+    private static void appendToMany(StringBuilder _description, String _kind, ToMany _toMany) {
+        _description.append(_kind)
+                .append(_toMany.getName()).append(',')
+                .append(_toMany.getSourceEntity().getClassName()).append(',')
+                .append(_toMany.getTargetEntity().getClassName()).append(',')
+                .append(_toMany.getOrder()).append(',');
+        appendProperties(_description, _toMany.getSourceProperties());
+        _description.append(',');
+        appendProperties(_description, _toMany.getTargetProperties());
+        _description.append('\n');
+    }
+
+    private static void appendProperties(StringBuilder _description, List<Property> _properties) {
+        appendProperties(_description, _properties.toArray(new Property[_properties.size()]));
+    }
+
+    private static void appendProperties(StringBuilder _description, Property[] _properties) {
+        _description.append('[');
+        if (_properties != null) {
+            for (Property property : _properties) {
+                appendProperty(_description, property);
+                _description.append(';');
+            }
+        }
+        _description.append(']');
+    }
+
+    private static void appendProperty(StringBuilder _description, Property _property) {
+        _description
+                .append(_property.getPropertyName()).append(',')
+                .append(_property.getPropertyType()).append(',')
+                .append(_property.getColumnName()).append(',')
+                .append(_property.isPrimaryKey()).append(',')
+                .append(_property.isNotNull());
+    }
+
+    /**
+     * Returns the hex digest of a text.
+     * @param _text the text.
+     * @return the hex digest.
+     */
+    public static String digest(String _text) {
+        return digest(_text.getBytes(UTF_8));
+    }
+
+    /**
+     * Returns the hex digest of some bytes.
+     * @param _bytes the bytes.
+     * @return the hex digest.
+     */
+    public static String digest(byte[] _bytes) {
+        final MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        return toHex(messageDigest.digest(_bytes));
+    }
+
+    private static String toHex(byte[] _bytes) {
+        final char[] hex = new char[_bytes.length * 2];
+        for (int i = 0; i < _bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(_bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[_bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+}
@@ -0,0 +1,120 @@
+package com.greendao_schema_builder.generator;
+
+import com.greendao_schema_builder.embedding.EmbeddedField;
+import com.greendao_schema_builder.property.EntityProjection;
+import com.greendao_schema_builder.relationship.RelationFetch;
+import de.greenrobot.daogenerator.Entity;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What the helper classes generated beside the greenDao files of the entities are made of:
+ * the relations which are not loaded lazily, for the fetchers, the embedded fields, for the serializers,
+ * the entities which are written in bulk, for the bulk writers, and the named projections, for the projections.
+ */
+public class EntityHelpers {
+
+    // Source entity to its relations which are not loaded lazily.
+    private final Map<Entity, List<RelationFetch>> relationFetches;
+
+    // Entity to its embedded fields.
+    private final Map<Entity, List<EmbeddedField>> embeddedFields;
+
+    // The entities which have a bulk writer.
+    private final Set<Entity> bulkWriters;
+
+    // Entity to its projections.
+    private final Map<Entity, List<EntityProjection>> projections;
+
+    /**
+     * Constructor, without any helper.
+     */
+    public EntityHelpers() {
+        relationFetches = new HashMap<Entity, List<RelationFetch>>();
+        embeddedFields = new HashMap<Entity, List<EmbeddedField>>();
+        bulkWriters = new HashSet<Entity>();
+        projections = new HashMap<Entity, List<EntityProjection>>();
+    }
+
+    /**
+     * Adds the relations which are not loaded lazily.
+     * @param _relationFetches source entity to its relations which are not loaded lazily.
+     */
+    public void addRelationFetches(Map<Entity, List<RelationFetch>> _relationFetches) {
+        relationFetches.putAll(_relationFetches);
+    }
+
+    /**
+     * Adds the embedded fields of an entity.
+     * @param _entity the greenDao entity.
+     * @param _embeddedFields the embedded fields, there is no serializer if there are none.
+     */
+    public void addEmbeddedFields(Entity _entity, List<EmbeddedField> _embeddedFields) {
+        if (!_embeddedFields.isEmpty()) {
+            embeddedFields.put(_entity, _embeddedFields);
+        }
+    }
+
+    /**
+     * Adds a bulk writer to an entity.
+     * @param _entity the greenDao entity.
+     */
+    public void addBulkWriter(Entity _entity) {
+        bulkWriters.add(_entity);
+    }
+
+    /**
+     * Adds the projections of an entity.
+     * @param _entity the greenDao entity.
+     * @param _projections the resolved projections, there is no projection class if there are none.
+     */
+    public void addProjections(Entity _entity, List<EntityProjection> _projections) {
+        if (!_projections.isEmpty()) {
+            projections.put(_entity, _projections);
+        }
+    }
+
+    /**
+     * Returns the relations of an entity which are not loaded lazily.
+     * @param _entity the greenDao entity.
+     * @return the relations, empty if the entity has no fetcher.
+     */
+    public List<RelationFetch> getRelationFetches(Entity _entity) {
+        final List<RelationFetch> entityFetches = relationFetches.get(_entity);
+        return entityFetches != null ? entityFetches : Collections.<RelationFetch>emptyList();
+    }
+
+    /**
+     * Returns the embedded fields of an entity.
+     * @param _entity the greenDao entity.
+     * @return the embedded fields, empty if the entity has no serializer.
+     */
+    public List<EmbeddedField> getEmbeddedFields(Entity _entity) {
+        final List<EmbeddedField> entityFields = embeddedFields.get(_entity);
+        return entityFields != null ? entityFields : Collections.<EmbeddedField>emptyList();
+    }
+
+    /**
+     * Returns whether an entity has a bulk writer.
+     * @param _entity the greenDao entity.
+     * @return true if the entity has a bulk writer.
+     */
+    public boolean hasBulkWriter(Entity _entity) {
+        return bulkWriters.contains(_entity);
+    }
+
+    /**
+     * Returns the projections of an entity.
+     * @param _entity the greenDao entity.
+     * @return the projections, empty if the entity has no projection class.
+     */
+    public List<EntityProjection> getProjections(Entity _entity) {
+        final List<EntityProjection> entityProjections = projections.get(_entity);
+        return entityProjections != null ? entityProjections : Collections.<EntityProjection>emptyList();
+    }
+}
@@ -0,0 +1,156 @@
+package com.greendao_schema_builder.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Writes the generated files of an output directory only if their content changed,
+ * so that the timestamps of the unchanged files are kept and the build tools do not compile them again.
+ * A file is written to a temporary file next to it first, then renamed over it.
+ * A writer is not thread safe, concurrent renderings use a writer each and are merged with {@link #addAll}.
+ */
+public class GeneratedFileWriter {
+
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+
+    // The files are written in the platform encoding, as the greenDao DaoGenerator does.
+    private static final Charset CHARSET = Charset.defaultCharset();
+
+    private final File outDirectory;
+
+    // The paths of the generated files, relative to the output directory.
+    private final Set<String> generatedFiles;
+
+    private final GenerationReport report;
+
+    /**
+     * Constructor.
+     * @param _outDirectory the output directory.
+     */
+    public GeneratedFileWriter(File _outDirectory) {
+        outDirectory = _outDirectory;
+        generatedFiles = new TreeSet<String>();
+        report = new GenerationReport();
+    }
+
+    public File getOutDirectory() {
+        return outDirectory;
+    }
+
+    public GenerationReport getReport() {
+        return report;
+    }
+
+    /**
+     * Returns the paths of the files of this generation, relative to the output directory.
+     * @return the sorted paths.
+     */
+    public Set<String> getGeneratedFiles() {
+        return generatedFiles;
+    }
+
+    /**
+     * Writes a generated file, unless it already has the same content.
+     * @param _file the file.
+     * @param _contents the generated contents.
+     * @return true if the file was written.
+     * @throws IOException
+     */
+    public boolean write(File _file, String _contents) throws IOException {
+        generatedFiles.add(toRelativePath(_file));
+
+        final byte[] bytes = _contents.getBytes(CHARSET);
+        if (hasContent(_file, bytes)) {
+            report.addSkipped(_file);
+            return false;
+        }
+
+        _file.getParentFile().mkdirs();
+        final File tempFile = new File(_file.getParentFile(), "." + _file.getName() + TEMP_FILE_EXTENSION);
+        writeFully(tempFile.toPath(), bytes);
+        try {
+            Files.move(tempFile.toPath(), _file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), _file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        report.addWritten(_file, bytes.length);
+        return true;
+    }
+
+    /**
+     * Keeps a file of a previous generation which is not generated again, so that it is not an orphan.
+     * @param _file the file.
+     */
+    public void keep(File _file) {
+        generatedFiles.add(toRelativePath(_file));
+        report.addSkipped(_file);
+    }
+
+    /**
+     * Adds the files and the report of another writer of the same output directory, after the files of this one.
+     * @param _output the other writer.
+     */
+    public void addAll(GeneratedFileWriter _output) {
+        generatedFiles.addAll(_output.generatedFiles);
+        report.addAll(_output.report);
+    }
+
+    /**
+     * Deletes the files of a previous generation which are not part of this generation.
+     * @param _previousFiles the paths of the previously generated files, relative to the output directory.
+     * @throws IOException
+     */
+    public void deleteOrphans(Collection<String> _previousFiles) throws IOException {
+        for (String previousFile : _previousFiles) {
+            if (generatedFiles.contains(previousFile)) {
+                continue;
+            }
+
+            final File file = new File(outDirectory, previousFile);
+            if (Files.deleteIfExists(file.toPath())) {
+                report.addDeleted(file);
+            }
+        }
+    }
+
+    private static void writeFully(Path _path, byte[] _bytes) throws IOException {
+        final FileChannel channel = FileChannel.open(_path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            final ByteBuffer buffer = ByteBuffer.wrap(_bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Returns whether a file exists with exactly the given content,
+     * the lengths are compared first so that most changed files are not read.
+     */
+    private static boolean hasContent(File _file, byte[] _bytes) throws IOException {
+        if (!_file.isFile() || _file.length() != _bytes.length) {
+            return false;
+        }
+        return Arrays.equals(Files.readAllBytes(_file.toPath()), _bytes);
+    }
+
+    private String toRelativePath(File _file) {
+        return outDirectory.toPath().relativize(_file.toPath()).toString().replace(File.separatorChar, '/');
+    }
+}
@@ -0,0 +1,72 @@
+package com.greendao_schema_builder.generator;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The files of a generation that were written, skipped because their content did not change,
+ * and deleted because their entity was removed.
+ */
+public class GenerationReport {
+
+    private final List<File> writtenFiles;
+    private final List<File> skippedFiles;
+    private final List<File> deletedFiles;
+
+    // The number of bytes of the written files.
+    private long writtenBytes;
+
+    /**
+     * Constructor.
+     */
+    public GenerationReport() {
+        writtenFiles = new ArrayList<File>();
+        skippedFiles = new ArrayList<File>();
+        deletedFiles = new ArrayList<File>();
+    }
+
+    void addWritten(File _file, long _bytes) {
+        writtenFiles.add(_file);
+        writtenBytes += _bytes;
+    }
+
+    void addSkipped(File _file) {
+        skippedFiles.add(_file);
+    }
+
+    void addDeleted(File _file) {
+        deletedFiles.add(_file);
+    }
+
+    void addAll(GenerationReport _report) {
+        writtenFiles.addAll(_report.writtenFiles);
+        skippedFiles.addAll(_report.skippedFiles);
+        deletedFiles.addAll(_report.deletedFiles);
+        writtenBytes += _report.writtenBytes;
+    }
+
+    public List<File> getWrittenFiles() {
+        return Collections.unmodifiableList(writtenFiles);
+    }
+
+    public List<File> getSkippedFiles() {
+        return Collections.unmodifiableList(skippedFiles);
+    }
+
+    public List<File> getDeletedFiles() {
+        return Collections.unmodifiableList(deletedFiles);
+    }
+
+    public long getWrittenBytes() {
+        return writtenBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "Written " + writtenFiles.size()
+                + ", skipped " + skippedFiles.size()
+                + ", deleted " + deletedFiles.size() + " files.";
+    }
+}
@@ -0,0 +1,390 @@
+package com.greendao_schema_builder.generator;
+
+import com.greendao_schema_builder.metrics.CompositeGenerationListener;
+import com.greendao_schema_builder.metrics.GenerationListener;
+import com.greendao_schema_builder.migration.MigrationHistory;
+import com.greendao_schema_builder.migration.SchemaLayout;
+import com.greendao_schema_builder.migration.TableLayout;
+import de.greenrobot.daogenerator.Entity;
+import de.greenrobot.daogenerator.Schema;
+import de.greenrobot.daogenerator.ToMany;
+import de.greenrobot.daogenerator.ToOne;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Generates the files of a schema through a {@link GeneratedFileWriter}, so that only the changed files are written.
+ * The generation is described by the manifest in the output directory.
+ * In incremental mode, only the entities that changed since the previous generation are rendered,
+ * and those of the entities that are related to them.
+ * The entities can be generated in batches, between {@link #begin} and {@link #finish},
+ * so that only the greenDao schema of a batch is kept in memory, a batch holding whole groups of related entities.
+ * With the migrations enabled, the tables of every generated schema version are recorded in the output directory,
+ * and a MigrationOpenHelper upgrades the tables of the older versions.
+ */
+public class SchemaGenerator {
+
+    // Manifest key of the schema wide files, can not clash with an entity class name.
+    private static final String SCHEMA_KEY = "@schema";
+
+    private final DaoRenderer renderer;
+
+    // Render only the entities that changed since the previous generation.
+    private boolean incremental;
+
+    // Delete the files of the previous generation which are not generated anymore.
+    private boolean deleteOrphans;
+
+    // Record the migrations of the tables and render the MigrationOpenHelper.
+    private boolean migrations;
+
+    // The number of threads rendering the entities.
+    private int parallelism;
+
+    // Listens to the rendered entities.
+    private GenerationListener listener;
+
+    // The state of the current generation, from begin to finish.
+    private File outDirectory;
+    private GeneratedFileWriter output;
+    private SchemaManifest manifest;
+    private Map<String, String> fingerprints;
+    private MigrationHistory history;
+    private SchemaLayout layout;
+
+    /**
+     * Constructor, loads the greenDao templates.
+     * @throws IOException
+     */
+    public SchemaGenerator() throws IOException {
+        this(new DaoRenderer());
+    }
+
+    /**
+     * Constructor, with a renderer whose templates are already loaded.
+     * A renderer can be shared by several generators, even concurrently.
+     * @param _renderer the renderer.
+     */
+    public SchemaGenerator(DaoRenderer _renderer) {
+        renderer = _renderer;
+        parallelism = 1;
+        listener = new CompositeGenerationListener();
+    }
+
+    public void setIncremental(boolean _incremental) {
+        incremental = _incremental;
+    }
+
+    public void setDeleteOrphans(boolean _deleteOrphans) {
+        deleteOrphans = _deleteOrphans;
+    }
+
+    public void setMigrations(boolean _migrations) {
+        migrations = _migrations;
+    }
+
+    public void setListener(GenerationListener _listener) {
+        listener = _listener;
+    }
+
+    /**
+     * Sets the number of threads rendering the entities, defaults to 1.
+     * The schema wide files are rendered last, and the output does not depend on it.
+     * @param _parallelism the number of threads.
+     */
+    public void setParallelism(int _parallelism) {
+        if (_parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism should be at least 1.");
+        }
+        parallelism = _parallelism;
+    }
+
+    /**
+     * Generates a schema.
+     * @param _schema the greenDao schema to be generated.
+     * @param _outDirectory The directory which the schema will be generated.
+     * @return the files written, skipped and deleted.
+     * @throws Exception
+     */
+    public GenerationReport generate(Schema _schema, String _outDirectory) throws Exception {
+        return generate(_schema, new EntityHelpers(), _outDirectory);
+    }
+
+    /**
+     * Generates a schema, with the helper classes of the entities.
+     * @param _schema the greenDao schema to be generated.
+     * @param _helpers what the helper classes of the entities are made of.
+     * @param _outDirectory The directory which the schema will be generated.
+     * @return the files written, skipped and deleted.
+     * @throws Exception
+     */
+    public GenerationReport generate(
+            Schema _schema,
+            EntityHelpers _helpers,
+            String _outDirectory)
+    throws Exception
+    {
+        begin(_outDirectory);
+        generateEntities(_schema, _helpers);
+        return finish(_schema);
+    }
+
+    /**
+     * Starts a generation, whose entities are then generated in one or more batches.
+     * @param _outDirectory The directory which the schema will be generated.
+     * @throws IOException
+     */
+    public void begin(String _outDirectory) throws IOException {
+        outDirectory = DaoRenderer.toOutDirectory(_outDirectory);
+        output = new GeneratedFileWriter(outDirectory);
+        manifest = SchemaManifest.load(outDirectory);
+        fingerprints = new HashMap<String, String>();
+        history = migrations ? MigrationHistory.load(outDirectory) : null;
+        layout = null;
+    }
+
+    /**
+     * Generates the entity files of a batch of entities.
+     * A batch should contain every entity that its entities are related to.
+     * @param _schema the greenDao schema of the batch, it is initialized here.
+     * @throws Exception
+     */
+    public void generateEntities(Schema _schema) throws Exception {
+        generateEntities(_schema, new EntityHelpers());
+    }
+
+    /**
+     * Generates the entity files of a batch of entities, with their helper classes.
+     * A batch should contain every entity that its entities are related to.
+     * @param _schema the greenDao schema of the batch, it is initialized here.
+     * @param _helpers what the helper classes of the entities are made of.
+     * @throws Exception
+     */
+    public void generateEntities(Schema _schema, EntityHelpers _helpers) throws Exception {
+        DaoRenderer.initialize(_schema);
+
+        if (migrations) {
+            if (layout == null) {
+                // Fail before anything is written.
+                history.checkVersion(_schema.getVersion());
+                layout = new SchemaLayout(_schema.getVersion());
+            }
+            for (Entity entity : _schema.getEntities()) {
+                layout.addTable(TableLayout.of(entity));
+            }
+        }
+
+        // Find the entities that changed, or whose files are missing.
+        final Set<Entity> changedEntities = new LinkedHashSet<Entity>();
+        for (Entity entity : _schema.getEntities()) {
+            final String fingerprint = EntityFingerprint.compute(_schema, entity, _helpers);
+            fingerprints.put(entity.getClassName(), fingerprint);
+
+            if (!incremental
+                    || !fingerprint.equals(manifest.getFingerprint(entity.getClassName()))
+                    || !filesExist(outDirectory, entity, _helpers))
+            {
+                changedEntities.add(entity);
+            }
+        }
+
+        // The generated files of an entity use the properties of the related entities.
+        final Set<Entity> affectedEntities = new LinkedHashSet<Entity>(changedEntities);
+        final Map<Entity, Set<Entity>> relatedEntities = findRelatedEntities(_schema);
+        for (Entity entity : changedEntities) {
+            affectedEntities.addAll(relatedEntities.get(entity));
+        }
+
+        renderEntities(_schema, _helpers, affectedEntities, output);
+    }
+
+    /**
+     * Generates the schema wide files, and the MigrationOpenHelper if the migrations are enabled,
+     * then deletes the orphaned files and saves the manifest.
+     * @param _schema the initialized greenDao schema of all the entities,
+     *                the DaoMaster and DaoSession only use the names of its entities.
+     * @return the files written, skipped and deleted.
+     * @throws Exception
+     */
+    public GenerationReport finish(Schema _schema) throws Exception {
+        final String schemaFingerprint = EntityFingerprint.computeSchema(_schema);
+        if (!incremental
+                || !schemaFingerprint.equals(manifest.getFingerprint(SCHEMA_KEY))
+                || !schemaFilesExist(outDirectory, _schema))
+        {
+            renderer.renderSchema(_schema, output);
+        } else {
+            keepSchemaFiles(output, _schema);
+        }
+        fingerprints.put(SCHEMA_KEY, schemaFingerprint);
+
+        if (migrations) {
+            history.record(layout != null ? layout : new SchemaLayout(_schema.getVersion()));
+            renderer.renderMigrations(_schema, history, output);
+            history.save();
+        }
+
+        if (deleteOrphans) {
+            output.deleteOrphans(manifest.getFiles());
+        }
+
+        manifest.setFingerprints(fingerprints);
+        manifest.setFiles(output.getGeneratedFiles());
+        manifest.save();
+
+        return output.getReport();
+    }
+
+    /**
+     * Renders the affected entities, on a fork join pool if the parallelism allows it.
+     * Every entity is rendered through a writer of its own, merged in schema order
+     * in order to keep the output deterministic.
+     * @param _schema the initialized schema.
+     * @param _helpers what the helper classes of the entities are made of.
+     * @param _affectedEntities the entities to be rendered, the files of the others are kept.
+     * @param _output the writer of the output directory.
+     * @throws Exception
+     */
+    private void renderEntities(
+            final Schema _schema,
+            final EntityHelpers _helpers,
+            Set<Entity> _affectedEntities,
+            GeneratedFileWriter _output)
+    throws Exception
+    {
+        if (parallelism == 1 || _affectedEntities.size() < 2) {
+            for (Entity entity : _schema.getEntities()) {
+                if (_affectedEntities.contains(entity)) {
+                    final long start = System.nanoTime();
+                    renderer.renderEntity(_schema, entity, _helpers, _output);
+                    listener.entityRendered(entity, System.nanoTime() - start);
+                } else {
+                    keepFiles(_output, entity, _helpers);
+                }
+            }
+            return;
+        }
+
+        final File outDirectory = _output.getOutDirectory();
+        final long[] durations = new long[_schema.getEntities().size()];
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            final List<Future<GeneratedFileWriter>> futures =
+                    new ArrayList<Future<GeneratedFileWriter>>(_schema.getEntities().size());
+
+            for (int i = 0; i < _schema.getEntities().size(); i++) {
+                final int index = i;
+                final Entity entity = _schema.getEntities().get(i);
+                final boolean affected = _affectedEntities.contains(entity);
+                futures.add(pool.submit(new Callable<GeneratedFileWriter>() {
+                    @Override
+                    public GeneratedFileWriter call() throws Exception {
+                        final GeneratedFileWriter entityOutput = new GeneratedFileWriter(outDirectory);
+                        if (affected) {
+                            final long start = System.nanoTime();
+                            renderer.renderEntity(_schema, entity, _helpers, entityOutput);
+                            durations[index] = System.nanoTime() - start;
+                        } else {
+                            keepFiles(entityOutput, entity, _helpers);
+                        }
+                        return entityOutput;
+                    }
+                }));
+            }
+
+            // Merge in order, so the first failing entity is reported as in a sequential generation.
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    _output.addAll(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw e;
+                }
+
+                final Entity entity = _schema.getEntities().get(i);
+                if (_affectedEntities.contains(entity)) {
+                    listener.entityRendered(entity, durations[i]);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Returns, for every entity of the schema, the entities that it is related to in any direction.
+     * @param _schema the initialized schema.
+     * @return entity to its related entities.
+     */
+    private static Map<Entity, Set<Entity>> findRelatedEntities(Schema _schema) {
+        final Map<Entity, Set<Entity>> relatedEntities = new HashMap<Entity, Set<Entity>>();
+        for (Entity entity : _schema.getEntities()) {
+            relatedEntities.put(entity, new LinkedHashSet<Entity>());
+        }
+
+        for (Entity entity : _schema.getEntities()) {
+            for (ToOne toOne : entity.getToOneRelations()) {
+                relate(relatedEntities, entity, toOne.getTargetEntity());
+            }
+            for (ToMany toMany : entity.getToManyRelations()) {
+                relate(relatedEntities, entity, toMany.getTargetEntity());
+            }
+        }
+        return relatedEntities;
+    }
+
+    private static void relate(Map<Entity, Set<Entity>> _relatedEntities, Entity _source, Entity _target) {
+        _relatedEntities.get(_source).add(_target);
+        _relatedEntities.get(_target).add(_source);
+    }
+
+    private static void keepFiles(GeneratedFileWriter _output, Entity _entity, EntityHelpers _helpers) {
+        final File entityFile = DaoRenderer.toEntityFile(_output.getOutDirectory(), _entity);
+        _output.keep(DaoRenderer.toDaoFile(_output.getOutDirectory(), _entity));
+        if (entityFile != null) {
+            _output.keep(entityFile);
+        }
+        for (File helperFile : DaoRenderer.toHelperFiles(_output.getOutDirectory(), _entity, _helpers)) {
+            _output.keep(helperFile);
+        }
+    }
+
+    private static void keepSchemaFiles(GeneratedFileWriter _output, Schema _schema) {
+        final String javaPackageDao = _schema.getDefaultJavaPackageDao();
+        _output.keep(DaoRenderer.toJavaFile(_output.getOutDirectory(), javaPackageDao, DaoRenderer.DAO_MASTER));
+        _output.keep(DaoRenderer.toJavaFile(_output.getOutDirectory(), javaPackageDao, DaoRenderer.DAO_SESSION));
+    }
+
+    private static boolean filesExist(File _outDirectory, Entity _entity, EntityHelpers _helpers) {
+        final File entityFile = DaoRenderer.toEntityFile(_outDirectory, _entity);
+        if (!DaoRenderer.toDaoFile(_outDirectory, _entity).exists() || (entityFile != null && !entityFile.exists())) {
+            return false;
+        }
+
+        for (File helperFile : DaoRenderer.toHelperFiles(_outDirectory, _entity, _helpers)) {
+            if (!helperFile.exists()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean schemaFilesExist(File _outDirectory, Schema _schema) {
+        final String javaPackageDao = _schema.getDefaultJavaPackageDao();
+        return DaoRenderer.toJavaFile(_outDirectory, javaPackageDao, DaoRenderer.DAO_MASTER).exists()
+                && DaoRenderer.toJavaFile(_outDirectory, javaPackageDao, DaoRenderer.DAO_SESSION).exists();
+    }
+}
@@ -0,0 +1,136 @@
+package com.greendao_schema_builder.generator;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The manifest of a generation, kept in the output directory.
+ * Holds the fingerprint of every generated entity,
+ * in order to find the entities that changed since the previous generation,
+ * and the generated files, in order to find the files of the removed entities.
+ */
+public class SchemaManifest {
+
+    public static final String FILE_NAME = ".greendao-schema-manifest";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String HEADER = "# greenDao schema builder manifest, do not edit.";
+    private static final char SEPARATOR = '=';
+
+    // Key of the generated file lines, can not clash with an entity class name.
+    private static final String FILE_KEY = "@file";
+
+    // The manifest file.
+    private final File file;
+
+    // Entity class name to fingerprint, sorted in order to write a stable file.
+    private final Map<String, String> fingerprints;
+
+    // The generated file paths relative to the output directory, sorted in order to write a stable file.
+    private final Set<String> files;
+
+    /**
+     * Constructor.
+     * @param _file the manifest file.
+     */
+    private SchemaManifest(File _file) {
+        file = _file;
+        fingerprints = new TreeMap<String, String>();
+        files = new TreeSet<String>();
+    }
+
+    /**
+     * Loads the manifest of an output directory, it is empty if there is no previous generation.
+     * @param _outDirectory the output directory.
+     * @return the manifest.
+     * @throws IOException
+     */
+    public static SchemaManifest load(File _outDirectory) throws IOException {
+        final SchemaManifest manifest = new SchemaManifest(new File(_outDirectory, FILE_NAME));
+        if (!manifest.file.exists()) {
+            return manifest;
+        }
+
+        final String contents = new String(Files.readAllBytes(manifest.file.toPath()), UTF_8);
+        final BufferedReader reader = new BufferedReader(new StringReader(contents));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            final int separator = line.indexOf(SEPARATOR);
+            if (line.startsWith("#") || separator < 0) {
+                continue;
+            }
+            final String key = line.substring(0, separator);
+            if (FILE_KEY.equals(key)) {
+                manifest.files.add(line.substring(separator + 1));
+            } else {
+                manifest.fingerprints.put(key, line.substring(separator + 1));
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Returns the fingerprint of an entity.
+     * @param _entityName the entity class name.
+     * @return the fingerprint, or null if the entity is not in the manifest.
+     */
+    public String getFingerprint(String _entityName) {
+        return fingerprints.get(_entityName);
+    }
+
+    /**
+     * Replaces all the fingerprints of the manifest.
+     * @param _fingerprints entity class name to fingerprint.
+     */
+    public void setFingerprints(Map<String, String> _fingerprints) {
+        fingerprints.clear();
+        fingerprints.putAll(_fingerprints);
+    }
+
+    /**
+     * Returns the files of the generation.
+     * @return the file paths relative to the output directory.
+     */
+    public Set<String> getFiles() {
+        return Collections.unmodifiableSet(files);
+    }
+
+    /**
+     * Replaces all the files of the manifest.
+     * @param _files the file paths relative to the output directory.
+     */
+    public void setFiles(Collection<String> _files) {
+        files.clear();
+        files.addAll(_files);
+    }
+
+    /**
+     * Writes the manifest, only if it changed.
+     * @throws IOException
+     */
+    public void save() throws IOException {
+        final StringBuilder contents = new StringBuilder(HEADER).append('\n');
+        for (Map.Entry<String, String> entry : fingerprints.entrySet()) {
+            contents.append(entry.getKey()).append(SEPARATOR).append(entry.getValue()).append('\n');
+        }
+        for (String generatedFile : files) {
+            contents.append(FILE_KEY).append(SEPARATOR).append(generatedFile).append('\n');
+        }
+
+        final byte[] bytes = contents.toString().getBytes(UTF_8);
+        if (!file.exists() || !Arrays.equals(Files.readAllBytes(file.toPath()), bytes)) {
+            Files.write(file.toPath(), bytes);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.greendao_schema_builder.metrics;
+
+import com.greendao_schema_builder.generator.GenerationReport;
+import com.greendao_schema_builder.property.EntityDefinition;
+import de.greenrobot.daogenerator.Entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends the events to several listeners, in the order they were added.
+ */
+public class CompositeGenerationListener implements GenerationListener {
+
+    private final List<GenerationListener> listeners;
+
+    /**
+     * Constructor.
+     */
+    public CompositeGenerationListener() {
+        listeners = new ArrayList<GenerationListener>();
+    }
+
+    public void add(GenerationListener _listener) {
+        listeners.add(_listener);
+    }
+
+    public void remove(GenerationListener _listener) {
+        listeners.remove(_listener);
+    }
+
+    @Override
+    public void phaseCompleted(GenerationPhase _phase, long _durationNanos) {
+        for (GenerationListener listener : listeners) {
+            listener.phaseCompleted(_phase, _durationNanos);
+        }
+    }
+
+    @Override
+    public void entityResolved(EntityDefinition _entityDefinition, long _durationNanos) {
+        for (GenerationListener listener : listeners) {
+            listener.entityResolved(_entityDefinition, _durationNanos);
+        }
+    }
+
+    @Override
+    public void relationsBuilt(int _relationCount) {
+        for (GenerationListener listener : listeners) {
+            listener.relationsBuilt(_relationCount);
+        }
+    }
+
+    @Override
+    public void entityRendered(Entity _entity, long _durationNanos) {
+        for (GenerationListener listener : listeners) {
+            listener.entityRendered(_entity, _durationNanos);
+        }
+    }
+
+    @Override
+    public void outputWritten(GenerationReport _report) {
+        for (GenerationListener listener : listeners) {
+            listener.outputWritten(_report);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.greendao_schema_builder.metrics;
+
+import com.greendao_schema_builder.generator.GenerationReport;
+import com.greendao_schema_builder.property.EntityDefinition;
+import de.greenrobot.daogenerator.Entity;
+
+/**
+ * Listens to the progress of a schema generation.
+ * The events are sent from the generating thread and in schema order, also when the phases run concurrently,
+ * so a listener does not have to be thread safe.
+ * When the entities are generated in batches, the events of every batch are sent in turn,
+ * and the phases are completed once, with their durations summed over the batches, after the output is written.
+ */
+public interface GenerationListener {
+
+    /**
+     * A phase is completed.
+     * @param _phase the phase.
+     * @param _durationNanos the duration of the phase.
+     */
+    void phaseCompleted(GenerationPhase _phase, long _durationNanos);
+
+    /**
+     * The properties of an entity class are resolved.
+     * @param _entityDefinition the resolved entity, with its reflected and filtered field counts.
+     * @param _durationNanos the duration of the resolution.
+     */
+    void entityResolved(EntityDefinition _entityDefinition, long _durationNanos);
+
+    /**
+     * The relations are added to the schema.
+     * @param _relationCount the number of relations.
+     */
+    void relationsBuilt(int _relationCount);
+
+    /**
+     * The files of an entity are rendered and written.
+     * @param _entity the greenDao entity.
+     * @param _durationNanos the duration of the rendering.
+     */
+    void entityRendered(Entity _entity, long _durationNanos);
+
+    /**
+     * The output is written.
+     * @param _report the files written, skipped and deleted.
+     */
+    void outputWritten(GenerationReport _report);
+}
@@ -0,0 +1,203 @@
+package com.greendao_schema_builder.metrics;
+
+import com.greendao_schema_builder.generator.GenerationReport;
+import com.greendao_schema_builder.property.EntityDefinition;
+import de.greenrobot.daogenerator.Entity;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Collects the metrics of a schema generation, and writes them as a JSON report.
+ */
+public class GenerationMetrics implements GenerationListener {
+
+    public static final String FILE_NAME = ".greendao-schema-metrics.json";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    // Phase to its duration, in phase order.
+    private final Map<GenerationPhase, Long> phaseDurations;
+
+    // The resolved entities, by class name.
+    private final List<EntityMetrics> resolvedEntities;
+
+    // The rendered entities, by greenDao entity name.
+    private final List<EntityMetrics> renderedEntities;
+
+    private int reflectedFieldCount;
+    private int filteredFieldCount;
+    private int relationCount;
+    private GenerationReport report;
+
+    /**
+     * Constructor.
+     */
+    public GenerationMetrics() {
+        phaseDurations = new EnumMap<GenerationPhase, Long>(GenerationPhase.class);
+        resolvedEntities = new ArrayList<EntityMetrics>();
+        renderedEntities = new ArrayList<EntityMetrics>();
+    }
+
+    @Override
+    public void phaseCompleted(GenerationPhase _phase, long _durationNanos) {
+        phaseDurations.put(_phase, _durationNanos);
+    }
+
+    @Override
+    public void entityResolved(EntityDefinition _entityDefinition, long _durationNanos) {
+        resolvedEntities.add(new EntityMetrics(
+                _entityDefinition.getEntityClass().getName(),
+                _durationNanos,
+                _entityDefinition.getReflectedFieldCount(),
+                _entityDefinition.getFilteredFieldCount()));
+
+        reflectedFieldCount += _entityDefinition.getReflectedFieldCount();
+        filteredFieldCount += _entityDefinition.getFilteredFieldCount();
+    }
+
+    @Override
+    public void relationsBuilt(int _relationCount) {
+        relationCount += _relationCount;
+    }
+
+    @Override
+    public void entityRendered(Entity _entity, long _durationNanos) {
+        renderedEntities.add(new EntityMetrics(_entity.getClassName(), _durationNanos, 0, 0));
+    }
+
+    @Override
+    public void outputWritten(GenerationReport _report) {
+        report = _report;
+    }
+
+    /**
+     * Returns the duration of a phase.
+     * @param _phase the phase.
+     * @return the duration in nanoseconds, or -1 if the phase is not completed.
+     */
+    public long getPhaseDuration(GenerationPhase _phase) {
+        final Long duration = phaseDurations.get(_phase);
+        return duration != null ? duration : -1;
+    }
+
+    public int getReflectedFieldCount() {
+        return reflectedFieldCount;
+    }
+
+    public int getFilteredFieldCount() {
+        return filteredFieldCount;
+    }
+
+    public int getRelationCount() {
+        return relationCount;
+    }
+
+    public GenerationReport getReport() {
+        return report;
+    }
+
+    /**
+     * Writes the metrics as a JSON report.
+     * @param _file the report file.
+     * @throws IOException
+     */
+    public void writeJson(File _file) throws IOException {
+        Files.write(_file.toPath(), toJson().getBytes(UTF_8));
+    }
+
+    /**
+     * Returns the metrics as a JSON document.
+     * @return the JSON document.
+     */
+    public String toJson() {
+        final StringBuilder json = new StringBuilder("{\n");
+
+        json.append("  \"phases\": {");
+        String separator = "\n";
+        for (Map.Entry<GenerationPhase, Long> phase : phaseDurations.entrySet()) {
+            json.append(separator).append("    ");
+            appendString(json, phase.getKey().name()).append(": ").append(toMillis(phase.getValue()));
+            separator = ",\n";
+        }
+        json.append("\n  },\n");
+
+        json.append("  \"reflectedFields\": ").append(reflectedFieldCount).append(",\n");
+        json.append("  \"filteredFields\": ").append(filteredFieldCount).append(",\n");
+        json.append("  \"relations\": ").append(relationCount).append(",\n");
+
+        if (report != null) {
+            json.append("  \"filesWritten\": ").append(report.getWrittenFiles().size()).append(",\n");
+            json.append("  \"filesSkipped\": ").append(report.getSkippedFiles().size()).append(",\n");
+            json.append("  \"filesDeleted\": ").append(report.getDeletedFiles().size()).append(",\n");
+            json.append("  \"bytesWritten\": ").append(report.getWrittenBytes()).append(",\n");
+        }
+
+        json.append("  \"resolvedEntities\": [");
+        separator = "\n";
+        for (EntityMetrics entity : resolvedEntities) {
+            json.append(separator).append("    {\"class\": ");
+            appendString(json, entity.name)
+                    .append(", \"durationMs\": ").append(toMillis(entity.durationNanos))
+                    .append(", \"reflectedFields\": ").append(entity.reflectedFieldCount)
+                    .append(", \"filteredFields\": ").append(entity.filteredFieldCount)
+                    .append('}');
+            separator = ",\n";
+        }
+        json.append("\n  ],\n");
+
+        json.append("  \"renderedEntities\": [");
+        separator = "\n";
+        for (EntityMetrics entity : renderedEntities) {
+            json.append(separator).append("    {\"entity\": ");
+            appendString(json, entity.name)
+                    .append(", \"durationMs\": ").append(toMillis(entity.durationNanos))
+                    .append('}');
+            separator = ",\n";
+        }
+        json.append("\n  ]\n");
+
+        return json.append("}\n").toString();
+    }
+
+    private static String toMillis(long _nanos) {
+        return String.format(Locale.ROOT, "%.3f", _nanos / NANOS_PER_MILLI);
+    }
+
+    private static StringBuilder appendString(StringBuilder _json, String _value) {
+        _json.append('"');
+        for (int i = 0; i < _value.length(); i++) {
+            final char c = _value.charAt(i);
+            if (c == '"' || c == '\\') {
+                _json.append('\\').append(c);
+            } else if (c < 0x20) {
+                _json.append(String.format("\\u%04x", (int) c));
+            } else {
+                _json.append(c);
+            }
+        }
+        return _json.append('"');
+    }
+
+    private static class EntityMetrics {
+        private final String name;
+        private final long durationNanos;
+        private final int reflectedFieldCount;
+        private final int filteredFieldCount;
+
+        EntityMetrics(String _name, long _durationNanos, int _reflectedFieldCount, int _filteredFieldCount) {
+            name = _name;
+            durationNanos = _durationNanos;
+            reflectedFieldCount = _reflectedFieldCount;
+            filteredFieldCount = _filteredFieldCount;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.greendao_schema_builder.metrics;
+
+/**
+ * The phases of a schema generation, in order.
+ */
+public enum GenerationPhase {
+
+    // Analysis of the relations, before anything is reflected.
+    ANALYZE_RELATIONS,
+
+    // Reflection over the entity classes.
+    RESOLVE_PROPERTIES,
+
+    // Adding the resolved entities to the greenDao schema.
+    BUILD_PROPERTIES,
+
+    // Adding the relations to the greenDao schema.
+    BUILD_RELATIONS,
+
+    // Rendering and writing the files.
+    GENERATE
+}
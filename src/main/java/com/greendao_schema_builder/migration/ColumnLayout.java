@@ -0,0 +1,97 @@
+package com.greendao_schema_builder.migration;
+
+import de.greenrobot.daogenerator.Property;
+
+/**
+ * A column of a generated table, as created by the greenDao Dao of its entity.
+ */
+public class ColumnLayout {
+
+    private final String name;
+    private final String type;
+
+    // The greenDao constraints of the column, e.g. "PRIMARY KEY NOT NULL", empty if there are none.
+    private final String constraints;
+
+    /**
+     * Constructor.
+     * @param _name the column name.
+     * @param _type the SQLite column type.
+     * @param _constraints the column constraints, empty if there are none.
+     */
+    public ColumnLayout(String _name, String _type, String _constraints) {
+        name = _name;
+        type = _type;
+        constraints = _constraints;
+    }
+
+    /**
+     * Returns the column of an initialized greenDao property.
+     * @param _property the property.
+     * @return the column.
+     */
+    static ColumnLayout of(Property _property) {
+        final String constraints = _property.getConstraints();
+        return new ColumnLayout(
+                _property.getColumnName(),
+                _property.getColumnType(),
+                constraints != null ? constraints.trim() : "");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getConstraints() {
+        return constraints;
+    }
+
+    public boolean isPrimaryKey() {
+        return constraints.contains("PRIMARY KEY");
+    }
+
+    public boolean isNotNull() {
+        return constraints.contains("NOT NULL");
+    }
+
+    /**
+     * Returns the value of the column for the existing rows when it is added as not null,
+     * the default value of its type.
+     * @return the SQL literal.
+     */
+    String getDefaultValue() {
+        if ("TEXT".equals(type)) {
+            return "''";
+        }
+        if ("BLOB".equals(type)) {
+            return "X''";
+        }
+        return "0";
+    }
+
+    /**
+     * Returns the definition of the column in a create table statement.
+     * @return the column definition.
+     */
+    String toDefinition() {
+        return SchemaDiff.quote(name) + " " + type + (constraints.isEmpty() ? "" : " " + constraints);
+    }
+
+    @Override
+    public boolean equals(Object _other) {
+        if (!(_other instanceof ColumnLayout)) {
+            return false;
+        }
+        final ColumnLayout other = (ColumnLayout) _other;
+        return name.equals(other.name) && type.equals(other.type) && constraints.equals(other.constraints);
+    }
+
+    @Override
+    public int hashCode() {
+        return (name.hashCode() * 31 + type.hashCode()) * 31 + constraints.hashCode();
+    }
+}
@@ -0,0 +1,92 @@
+package com.greendao_schema_builder.migration;
+
+import de.greenrobot.daogenerator.Index;
+import de.greenrobot.daogenerator.Property;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An index of a generated table, as created by the greenDao Dao of its entity.
+ */
+public class IndexLayout {
+
+    private final String name;
+    private final boolean unique;
+
+    // The indexed column names, in index order.
+    private final List<String> columnNames;
+
+    /**
+     * Constructor.
+     * @param _name the index name.
+     * @param _unique whether the indexed values are unique.
+     * @param _columnNames the indexed column names, in index order.
+     */
+    public IndexLayout(String _name, boolean _unique, List<String> _columnNames) {
+        name = _name;
+        unique = _unique;
+        columnNames = Collections.unmodifiableList(new ArrayList<String>(_columnNames));
+    }
+
+    /**
+     * Returns the index of an initialized greenDao index.
+     * @param _index the index, named by the greenDao initialization.
+     * @return the index.
+     */
+    static IndexLayout of(Index _index) {
+        final List<String> columnNames = new ArrayList<String>(_index.getProperties().size());
+        for (Property property : _index.getProperties()) {
+            columnNames.add(property.getColumnName());
+        }
+        return new IndexLayout(_index.getName(), _index.isUnique(), columnNames);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isUnique() {
+        return unique;
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * Returns the statement creating the index.
+     * @param _tableName the name of the indexed table.
+     * @return the SQL statement.
+     */
+    String toCreateStatement(String _tableName) {
+        final StringBuilder sql = new StringBuilder("CREATE ");
+        if (unique) {
+            sql.append("UNIQUE ");
+        }
+        sql.append("INDEX ").append(SchemaDiff.quote(name))
+                .append(" ON ").append(SchemaDiff.quote(_tableName)).append(" (");
+        for (int i = 0; i < columnNames.size(); i++) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(SchemaDiff.quote(columnNames.get(i)));
+        }
+        return sql.append(')').toString();
+    }
+
+    @Override
+    public boolean equals(Object _other) {
+        if (!(_other instanceof IndexLayout)) {
+            return false;
+        }
+        final IndexLayout other = (IndexLayout) _other;
+        return name.equals(other.name) && unique == other.unique && columnNames.equals(other.columnNames);
+    }
+
+    @Override
+    public int hashCode() {
+        return (name.hashCode() * 31 + (unique ? 1 : 0)) * 31 + columnNames.hashCode();
+    }
+}
@@ -0,0 +1,247 @@
+package com.greendao_schema_builder.migration;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The migrations of a schema, kept in the output directory next to the manifest.
+ * Holds the tables of the last two generated schema versions, and the migration to every version since the first one.
+ * A generation with a newer version records the migration from the tables of the previous version,
+ * and a generation with the same version records it again, so that a version can be changed until it is released.
+ */
+public class MigrationHistory {
+
+    public static final String FILE_NAME = ".greendao-schema-migrations";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String HEADER = "# greenDao schema builder migrations, do not edit.";
+    private static final char SEPARATOR = '=';
+    private static final String FIELD_SEPARATOR = "\t";
+
+    private static final String FIRST_KEY = "first";
+    private static final String LAYOUT_KEY = "layout";
+    private static final String TABLE_KEY = "table";
+    private static final String COLUMN_KEY = "column";
+    private static final String INDEX_KEY = "index";
+    private static final String MIGRATION_KEY = "migration";
+    private static final String STATEMENT_KEY = "statement";
+
+    // The history file.
+    private final File file;
+
+    // The first generated version, which databases can be migrated from, or -1 before the first generation.
+    private int firstVersion;
+
+    // Version to its tables, the last two versions only.
+    private final TreeMap<Integer, SchemaLayout> layouts;
+
+    // Version to the migration statements from the previous version, only for the versions which have some.
+    private final TreeMap<Integer, List<String>> migrations;
+
+    /**
+     * Constructor.
+     * @param _file the history file.
+     */
+    private MigrationHistory(File _file) {
+        file = _file;
+        firstVersion = -1;
+        layouts = new TreeMap<Integer, SchemaLayout>();
+        migrations = new TreeMap<Integer, List<String>>();
+    }
+
+    /**
+     * Loads the migration history of an output directory, it is empty if there is no previous generation.
+     * @param _outDirectory the output directory.
+     * @return the history.
+     * @throws IOException
+     */
+    public static MigrationHistory load(File _outDirectory) throws IOException {
+        final MigrationHistory history = new MigrationHistory(new File(_outDirectory, FILE_NAME));
+        if (!history.file.exists()) {
+            return history;
+        }
+
+        final String contents = new String(Files.readAllBytes(history.file.toPath()), UTF_8);
+        final BufferedReader reader = new BufferedReader(new StringReader(contents));
+
+        // The layout and table being read, then the statements being read.
+        SchemaLayout layout = null;
+        String tableName = null;
+        List<ColumnLayout> columns = null;
+        List<IndexLayout> indexes = null;
+        List<String> statements = null;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            final int separator = line.indexOf(SEPARATOR);
+            if (line.startsWith("#") || separator < 0) {
+                continue;
+            }
+            final String key = line.substring(0, separator);
+            final String value = line.substring(separator + 1);
+
+            // A table ends at the next table, layout or migration.
+            if (tableName != null && !COLUMN_KEY.equals(key) && !INDEX_KEY.equals(key)) {
+                layout.addTable(new TableLayout(tableName, columns, indexes));
+                tableName = null;
+            }
+
+            if (FIRST_KEY.equals(key)) {
+                history.firstVersion = parseVersion(value);
+            } else if (LAYOUT_KEY.equals(key)) {
+                layout = new SchemaLayout(parseVersion(value));
+                history.layouts.put(layout.getVersion(), layout);
+            } else if (TABLE_KEY.equals(key) && layout != null) {
+                tableName = value;
+                columns = new ArrayList<ColumnLayout>();
+                indexes = new ArrayList<IndexLayout>();
+            } else if (COLUMN_KEY.equals(key) && tableName != null) {
+                final String[] fields = value.split(FIELD_SEPARATOR, -1);
+                columns.add(new ColumnLayout(fields[0], fields[1], fields[2]));
+            } else if (INDEX_KEY.equals(key) && tableName != null) {
+                final String[] fields = value.split(FIELD_SEPARATOR, -1);
+                indexes.add(new IndexLayout(
+                        fields[0],
+                        Boolean.parseBoolean(fields[1]),
+                        Arrays.asList(fields).subList(2, fields.length)));
+            } else if (MIGRATION_KEY.equals(key)) {
+                layout = null;
+                statements = new ArrayList<String>();
+                history.migrations.put(parseVersion(value), statements);
+            } else if (STATEMENT_KEY.equals(key) && statements != null) {
+                statements.add(value);
+            }
+        }
+        if (tableName != null) {
+            layout.addTable(new TableLayout(tableName, columns, indexes));
+        }
+        return history;
+    }
+
+    private static int parseVersion(String _value) throws IOException {
+        try {
+            return Integer.parseInt(_value);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid schema version " + _value + " in the migration history.", e);
+        }
+    }
+
+    /**
+     * Checks that a schema version can be recorded, it should not be older than the last recorded version.
+     * @param _version the schema version.
+     * @throws IllegalStateException if the version is older than the last recorded version.
+     */
+    public void checkVersion(int _version) {
+        if (!layouts.isEmpty() && _version < layouts.lastKey()) {
+            throw new IllegalStateException("The schema version " + _version
+                    + " is older than the version " + layouts.lastKey() + " of the migration history " + file + ".");
+        }
+    }
+
+    /**
+     * Records the tables of a generated schema version, and the migration to it from the previous version.
+     * @param _layout the tables of the generated version.
+     * @throws IllegalStateException if the version is older than the last recorded version.
+     */
+    public void record(SchemaLayout _layout) {
+        final int version = _layout.getVersion();
+        if (layouts.isEmpty()) {
+            firstVersion = version;
+            layouts.put(version, _layout);
+            return;
+        }
+
+        checkVersion(version);
+        final int lastVersion = layouts.lastKey();
+        final Map.Entry<Integer, SchemaLayout> previous =
+                version == lastVersion ? layouts.lowerEntry(version) : layouts.lastEntry();
+        if (previous != null) {
+            final List<String> statements = SchemaDiff.diff(previous.getValue(), _layout);
+            if (statements.isEmpty()) {
+                migrations.remove(version);
+            } else {
+                migrations.put(version, statements);
+            }
+        }
+
+        layouts.put(version, _layout);
+        while (layouts.size() > 2) {
+            layouts.pollFirstEntry();
+        }
+    }
+
+    /**
+     * Returns the first generated version, which databases can be migrated from.
+     * @return the version, or -1 if nothing was recorded yet.
+     */
+    public int getFirstVersion() {
+        return firstVersion;
+    }
+
+    /**
+     * Returns the recorded migrations, in version order.
+     * @return the migrations to every version which has migration statements.
+     */
+    public List<SchemaMigration> getMigrations() {
+        final List<SchemaMigration> schemaMigrations = new ArrayList<SchemaMigration>(migrations.size());
+        for (Map.Entry<Integer, List<String>> migration : migrations.entrySet()) {
+            schemaMigrations.add(new SchemaMigration(migration.getKey(), migration.getValue()));
+        }
+        return Collections.unmodifiableList(schemaMigrations);
+    }
+
+    /**
+     * Writes the history, only if it changed.
+     * @throws IOException
+     */
+    public void save() throws IOException {
+        final StringBuilder contents = new StringBuilder(HEADER).append('\n');
+        append(contents, FIRST_KEY, String.valueOf(firstVersion));
+
+        for (SchemaLayout layout : layouts.values()) {
+            append(contents, LAYOUT_KEY, String.valueOf(layout.getVersion()));
+            for (TableLayout table : layout.getTables()) {
+                append(contents, TABLE_KEY, table.getName());
+                for (ColumnLayout column : table.getColumns()) {
+                    append(contents, COLUMN_KEY, column.getName()
+                            + FIELD_SEPARATOR + column.getType()
+                            + FIELD_SEPARATOR + column.getConstraints());
+                }
+                for (IndexLayout index : table.getIndexes()) {
+                    final StringBuilder value = new StringBuilder(index.getName())
+                            .append(FIELD_SEPARATOR).append(index.isUnique());
+                    for (String columnName : index.getColumnNames()) {
+                        value.append(FIELD_SEPARATOR).append(columnName);
+                    }
+                    append(contents, INDEX_KEY, value.toString());
+                }
+            }
+        }
+
+        for (Map.Entry<Integer, List<String>> migration : migrations.entrySet()) {
+            append(contents, MIGRATION_KEY, String.valueOf(migration.getKey()));
+            for (String statement : migration.getValue()) {
+                append(contents, STATEMENT_KEY, statement);
+            }
+        }
+
+        final byte[] bytes = contents.toString().getBytes(UTF_8);
+        if (!file.exists() || !Arrays.equals(Files.readAllBytes(file.toPath()), bytes)) {
+            Files.write(file.toPath(), bytes);
+        }
+    }
+
+    private static void append(StringBuilder _contents, String _key, String _value) {
+        _contents.append(_key).append(SEPARATOR).append(_value).append('\n');
+    }
+}
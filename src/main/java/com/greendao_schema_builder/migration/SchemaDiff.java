@@ -0,0 +1,169 @@
+package com.greendao_schema_builder.migration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the tables of two schema versions, and computes the SQL statements migrating the older to the newer.
+ * New tables are created and removed tables are dropped.
+ * A column is added by an ALTER TABLE when SQLite allows it: a nullable column,
+ * or a not null column which gets the default value of its type.
+ * Any other change of the columns of a table rebuilds it: a table with the new columns is created,
+ * the rows are copied over for the columns that both have, and it replaces the old table.
+ * The indexes that changed are dropped and created again.
+ */
+public class SchemaDiff {
+
+    // The prefix of the name of a table while it is rebuilt.
+    private static final String REBUILD_PREFIX = "_MIGRATION_";
+
+    private SchemaDiff() {
+    }
+
+    /**
+     * Computes the statements migrating the tables of a schema version to those of another version.
+     * @param _from the older tables.
+     * @param _to the newer tables.
+     * @return the SQL statements, in execution order, empty if the tables are the same.
+     */
+    public static List<String> diff(SchemaLayout _from, SchemaLayout _to) {
+        final List<String> statements = new ArrayList<String>();
+
+        // Drop the removed tables first, their index names may be taken by the other tables.
+        for (TableLayout fromTable : _from.getTables()) {
+            if (_to.getTable(fromTable.getName()) == null) {
+                statements.add("DROP TABLE IF EXISTS " + quote(fromTable.getName()));
+            }
+        }
+
+        for (TableLayout toTable : _to.getTables()) {
+            final TableLayout fromTable = _from.getTable(toTable.getName());
+            if (fromTable == null) {
+                statements.add(toTable.toCreateStatement(toTable.getName()));
+                for (IndexLayout index : toTable.getIndexes()) {
+                    statements.add(index.toCreateStatement(toTable.getName()));
+                }
+            } else if (!fromTable.equals(toTable)) {
+                diffTable(fromTable, toTable, statements);
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * Computes the statements migrating a table whose columns or indexes changed.
+     * @param _from the older table.
+     * @param _to the newer table.
+     * @param _statements receives the SQL statements.
+     */
+    private static void diffTable(TableLayout _from, TableLayout _to, List<String> _statements) {
+        if (needsRebuild(_from, _to)) {
+            rebuildTable(_from, _to, _statements);
+            return;
+        }
+
+        final String tableName = quote(_to.getName());
+        for (IndexLayout index : _from.getIndexes()) {
+            if (!index.equals(_to.getIndex(index.getName()))) {
+                _statements.add("DROP INDEX IF EXISTS " + quote(index.getName()));
+            }
+        }
+
+        for (ColumnLayout column : _to.getColumns()) {
+            if (_from.getColumn(column.getName()) == null) {
+                String statement = "ALTER TABLE " + tableName + " ADD COLUMN " + column.toDefinition();
+                if (column.isNotNull()) {
+                    statement += " DEFAULT " + column.getDefaultValue();
+                }
+                _statements.add(statement);
+            }
+        }
+
+        for (IndexLayout index : _to.getIndexes()) {
+            if (!index.equals(_from.getIndex(index.getName()))) {
+                _statements.add(index.toCreateStatement(_to.getName()));
+            }
+        }
+    }
+
+    /**
+     * Returns whether a table can not be migrated by adding columns:
+     * a column was removed or changed, or a column which was added is a primary key or unique.
+     * @param _from the older table.
+     * @param _to the newer table.
+     * @return true if the table is rebuilt.
+     */
+    private static boolean needsRebuild(TableLayout _from, TableLayout _to) {
+        for (ColumnLayout fromColumn : _from.getColumns()) {
+            if (!fromColumn.equals(_to.getColumn(fromColumn.getName()))) {
+                return true;
+            }
+        }
+
+        for (ColumnLayout toColumn : _to.getColumns()) {
+            if (_from.getColumn(toColumn.getName()) == null
+                    && !toColumn.getConstraints().isEmpty()
+                    && !"NOT NULL".equals(toColumn.getConstraints()))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Computes the statements rebuilding a table, keeping the values of the columns that both tables have.
+     * A not null column takes the default value of its type where it has no value,
+     * and a new primary key column is left to SQLite, which numbers the rows of an integer primary key.
+     * @param _from the older table.
+     * @param _to the newer table.
+     * @param _statements receives the SQL statements.
+     */
+    private static void rebuildTable(TableLayout _from, TableLayout _to, List<String> _statements) {
+        final String tableName = quote(_to.getName());
+        final String rebuildName = REBUILD_PREFIX + _to.getName();
+
+        final StringBuilder columns = new StringBuilder();
+        final StringBuilder values = new StringBuilder();
+        for (ColumnLayout column : _to.getColumns()) {
+            final boolean copied = _from.getColumn(column.getName()) != null;
+            final String value;
+            if (column.isNotNull() && !column.isPrimaryKey()) {
+                value = copied
+                        ? "IFNULL(" + quote(column.getName()) + "," + column.getDefaultValue() + ")"
+                        : column.getDefaultValue();
+            } else {
+                value = copied ? quote(column.getName()) : null;
+            }
+
+            if (value != null) {
+                if (columns.length() > 0) {
+                    columns.append(',');
+                    values.append(',');
+                }
+                columns.append(quote(column.getName()));
+                values.append(value);
+            }
+        }
+
+        _statements.add(_to.toCreateStatement(rebuildName));
+        if (columns.length() > 0) {
+            _statements.add("INSERT INTO " + quote(rebuildName) + " (" + columns + ") SELECT " + values
+                    + " FROM " + tableName);
+        }
+        _statements.add("DROP TABLE " + tableName);
+        _statements.add("ALTER TABLE " + quote(rebuildName) + " RENAME TO " + tableName);
+        for (IndexLayout index : _to.getIndexes()) {
+            _statements.add(index.toCreateStatement(_to.getName()));
+        }
+    }
+
+    /**
+     * Quotes an SQL identifier.
+     * @param _identifier the table, column or index name.
+     * @return the quoted identifier.
+     */
+    static String quote(String _identifier) {
+        return '"' + _identifier.replace("\"", "\"\"") + '"';
+    }
+}
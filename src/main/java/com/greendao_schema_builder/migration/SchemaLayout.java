@@ -0,0 +1,57 @@
+package com.greendao_schema_builder.migration;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The generated tables of a schema version, collected from the initialized entities of one or more batches.
+ */
+public class SchemaLayout {
+
+    private final int version;
+
+    // Table name to table, sorted so that the migration steps do not depend on the entity order or the batches.
+    private final Map<String, TableLayout> tables;
+
+    /**
+     * Constructor.
+     * @param _version the schema version.
+     */
+    public SchemaLayout(int _version) {
+        version = _version;
+        tables = new TreeMap<String, TableLayout>();
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Adds a table.
+     * @param _table the table, null for an entity which does not create its table.
+     */
+    public void addTable(TableLayout _table) {
+        if (_table != null) {
+            tables.put(_table.getName(), _table);
+        }
+    }
+
+    /**
+     * Returns a table by name.
+     * @param _name the table name.
+     * @return the table, null if the schema has no such table.
+     */
+    public TableLayout getTable(String _name) {
+        return tables.get(_name);
+    }
+
+    /**
+     * Returns the tables, sorted by name.
+     * @return the tables.
+     */
+    public Collection<TableLayout> getTables() {
+        return Collections.unmodifiableCollection(tables.values());
+    }
+}
@@ -0,0 +1,32 @@
+package com.greendao_schema_builder.migration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The SQL statements which migrate the tables from the previous recorded schema version to a version.
+ */
+public class SchemaMigration {
+
+    private final int version;
+    private final List<String> statements;
+
+    /**
+     * Constructor.
+     * @param _version the schema version reached by the migration.
+     * @param _statements the SQL statements, in execution order.
+     */
+    public SchemaMigration(int _version, List<String> _statements) {
+        version = _version;
+        statements = Collections.unmodifiableList(new ArrayList<String>(_statements));
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public List<String> getStatements() {
+        return statements;
+    }
+}
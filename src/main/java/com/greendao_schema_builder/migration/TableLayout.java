@@ -0,0 +1,124 @@
+package com.greendao_schema_builder.migration;
+
+import de.greenrobot.daogenerator.Entity;
+import de.greenrobot.daogenerator.Index;
+import de.greenrobot.daogenerator.Property;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A generated table, with its columns and indexes, as created by the greenDao Dao of its entity.
+ */
+public class TableLayout {
+
+    private final String name;
+
+    // The columns and indexes, in creation order.
+    private final List<ColumnLayout> columns;
+    private final List<IndexLayout> indexes;
+
+    /**
+     * Constructor.
+     * @param _name the table name.
+     * @param _columns the columns, in creation order.
+     * @param _indexes the indexes, in creation order.
+     */
+    public TableLayout(String _name, List<ColumnLayout> _columns, List<IndexLayout> _indexes) {
+        name = _name;
+        columns = Collections.unmodifiableList(new ArrayList<ColumnLayout>(_columns));
+        indexes = Collections.unmodifiableList(new ArrayList<IndexLayout>(_indexes));
+    }
+
+    /**
+     * Returns the table of an initialized greenDao entity.
+     * @param _entity the entity.
+     * @return the table, null if the entity does not create its table.
+     */
+    public static TableLayout of(Entity _entity) {
+        if (_entity.isSkipTableCreation()) {
+            return null;
+        }
+
+        final List<ColumnLayout> columns = new ArrayList<ColumnLayout>(_entity.getPropertiesColumns().size());
+        for (Property property : _entity.getPropertiesColumns()) {
+            columns.add(ColumnLayout.of(property));
+        }
+        final List<IndexLayout> indexes = new ArrayList<IndexLayout>(_entity.getIndexes().size());
+        for (Index index : _entity.getIndexes()) {
+            indexes.add(IndexLayout.of(index));
+        }
+        return new TableLayout(_entity.getTableName(), columns, indexes);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<ColumnLayout> getColumns() {
+        return columns;
+    }
+
+    public List<IndexLayout> getIndexes() {
+        return indexes;
+    }
+
+    /**
+     * Returns a column by name.
+     * @param _name the column name.
+     * @return the column, null if the table has no such column.
+     */
+    public ColumnLayout getColumn(String _name) {
+        for (ColumnLayout column : columns) {
+            if (column.getName().equals(_name)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns an index by name.
+     * @param _name the index name.
+     * @return the index, null if the table has no such index.
+     */
+    public IndexLayout getIndex(String _name) {
+        for (IndexLayout index : indexes) {
+            if (index.getName().equals(_name)) {
+                return index;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the statement creating the table, without its indexes.
+     * @param _tableName the name of the created table, which is the name of this table unless it is rebuilt.
+     * @return the SQL statement.
+     */
+    String toCreateStatement(String _tableName) {
+        final StringBuilder sql = new StringBuilder("CREATE TABLE ").append(SchemaDiff.quote(_tableName)).append(" (");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(columns.get(i).toDefinition());
+        }
+        return sql.append(')').toString();
+    }
+
+    @Override
+    public boolean equals(Object _other) {
+        if (!(_other instanceof TableLayout)) {
+            return false;
+        }
+        final TableLayout other = (TableLayout) _other;
+        return name.equals(other.name) && columns.equals(other.columns) && indexes.equals(other.indexes);
+    }
+
+    @Override
+    public int hashCode() {
+        return (name.hashCode() * 31 + columns.hashCode()) * 31 + indexes.hashCode();
+    }
+}
@@ -0,0 +1,122 @@
+package com.greendao_schema_builder.property;
+
+import com.greendao_schema_builder.embedding.EmbeddedField;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A greenDao Entity as resolved from an entity class, before it is added to the schema.
+ * Resolving does not touch the schema, so entity classes can be resolved concurrently.
+ */
+public class EntityDefinition {
+
+    // The entity class which the properties are resolved from.
+    private final Class<?> entityClass;
+
+    // The resolved properties, in field order.
+    private final List<PropertyDefinition> properties;
+
+    // The embedded fields, whose properties are among the resolved properties.
+    private final List<EmbeddedField> embeddedFields;
+
+    // The fields whose type is not supported, as "Class.field (type)".
+    private final List<String> unsupportedFields;
+
+    // The number of fields of the class and its super classes.
+    private final int reflectedFieldCount;
+
+    // The number of those fields excluded by the blacklist.
+    private final int filteredFieldCount;
+
+    /**
+     * Constructor.
+     * @param _entityClass the entity class.
+     * @param _properties the resolved properties.
+     */
+    public EntityDefinition(Class<?> _entityClass, List<PropertyDefinition> _properties) {
+        this(_entityClass, _properties, Collections.<String>emptyList());
+    }
+
+    /**
+     * Constructor.
+     * @param _entityClass the entity class.
+     * @param _properties the resolved properties.
+     * @param _unsupportedFields the fields whose type is not supported.
+     */
+    public EntityDefinition(
+            Class<?> _entityClass,
+            List<PropertyDefinition> _properties,
+            List<String> _unsupportedFields)
+    {
+        this(_entityClass, _properties, _unsupportedFields, _properties.size() + _unsupportedFields.size(), 0);
+    }
+
+    /**
+     * Constructor.
+     * @param _entityClass the entity class.
+     * @param _properties the resolved properties.
+     * @param _unsupportedFields the fields whose type is not supported.
+     * @param _reflectedFieldCount the number of fields of the class and its super classes.
+     * @param _filteredFieldCount the number of fields excluded by the blacklist.
+     */
+    public EntityDefinition(
+            Class<?> _entityClass,
+            List<PropertyDefinition> _properties,
+            List<String> _unsupportedFields,
+            int _reflectedFieldCount,
+            int _filteredFieldCount)
+    {
+        this(_entityClass, _properties, Collections.<EmbeddedField>emptyList(), _unsupportedFields,
+                _reflectedFieldCount, _filteredFieldCount);
+    }
+
+    /**
+     * Constructor.
+     * @param _entityClass the entity class.
+     * @param _properties the resolved properties.
+     * @param _embeddedFields the embedded fields.
+     * @param _unsupportedFields the fields whose type is not supported.
+     * @param _reflectedFieldCount the number of fields of the class and its super classes.
+     * @param _filteredFieldCount the number of fields excluded by the blacklist.
+     */
+    public EntityDefinition(
+            Class<?> _entityClass,
+            List<PropertyDefinition> _properties,
+            List<EmbeddedField> _embeddedFields,
+            List<String> _unsupportedFields,
+            int _reflectedFieldCount,
+            int _filteredFieldCount)
+    {
+        entityClass = _entityClass;
+        properties = Collections.unmodifiableList(_properties);
+        embeddedFields = Collections.unmodifiableList(_embeddedFields);
+        unsupportedFields = Collections.unmodifiableList(_unsupportedFields);
+        reflectedFieldCount = _reflectedFieldCount;
+        filteredFieldCount = _filteredFieldCount;
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    public List<PropertyDefinition> getProperties() {
+        return properties;
+    }
+
+    public List<EmbeddedField> getEmbeddedFields() {
+        return embeddedFields;
+    }
+
+    public List<String> getUnsupportedFields() {
+        return unsupportedFields;
+    }
+
+    public int getReflectedFieldCount() {
+        return reflectedFieldCount;
+    }
+
+    public int getFilteredFieldCount() {
+        return filteredFieldCount;
+    }
+}
@@ -0,0 +1,42 @@
+package com.greendao_schema_builder.property;
+
+import de.greenrobot.daogenerator.Property;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A projection resolved against the properties of an added greenDao Entity,
+ * what its projection class and query methods are made of.
+ */
+public class EntityProjection {
+
+    private final String name;
+    private final List<Property> properties;
+
+    /**
+     * Constructor.
+     * @param _name the projection name, also the name of its class.
+     * @param _properties the projected properties, in column order.
+     */
+    public EntityProjection(String _name, List<Property> _properties) {
+        name = _name;
+        properties = Collections.unmodifiableList(_properties);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the name of the projection class.
+     * @return the name, capitalized.
+     */
+    public String getClassName() {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    public List<Property> getProperties() {
+        return properties;
+    }
+}
@@ -1,15 +1,26 @@
 package com.greendao_schema_builder.property;
 
-import com.greendao_schema_builder.SchemaBuilder;
-import com.greendao_schema_builder.utils.SchemaGenUtils;
+import com.greendao_schema_builder.embedding.EmbeddedField;
+import com.greendao_schema_builder.embedding.EmbeddedFieldResolver;
+import com.greendao_schema_builder.embedding.EmbeddingMode;
+import com.greendao_schema_builder.errors.InvalidEntityException;
+import com.greendao_schema_builder.errors.UnsupportedFieldTypeException;
+import com.greendao_schema_builder.type.TypeMapper;
+import com.greendao_schema_builder.utils.ClassMetadata;
+import com.greendao_schema_builder.utils.ClassMetadataCache;
 import de.greenrobot.daogenerator.Entity;
+import de.greenrobot.daogenerator.Index;
+import de.greenrobot.daogenerator.Property;
 import de.greenrobot.daogenerator.PropertyType;
 import de.greenrobot.daogenerator.Schema;
 
 import java.io.InvalidClassException;
-import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Builds properties of a greenDao Entity based on a given class, uses reflection.
@@ -18,14 +29,24 @@ public class EntityPropertiesBuilder {
 
     private static final String PRIMARY_KEY_DEFAULT_NAME = "Id";
 
+    // The name of the rowid primary key property, as greenDao names it.
+    private static final String ROW_ID_PROPERTY_NAME = "id";
+
     // The greenDao schema.
     private final Schema daoSchema;
     private final String fieldPrefix;
 
-    // The entities that have already added to the schema.
-    private final List<Class<?>> addedEntityClasses;
+    // The prefix of the entity names.
+    private String prefixEntityName;
 
+    // Maps the field types to property types.
+    private final TypeMapper typeMapper;
 
+    // The entities that have already added to the schema.
+    private final EntityRegistry addedEntities;
+
+    // Give every entity a Long autoincrement primary key, backed by the SQLite rowid.
+    private boolean rowIdPrimaryKeys;
 
     /**
      * Constructor.
@@ -33,28 +54,58 @@ public class EntityPropertiesBuilder {
      * @param _fieldPrefix prefix for fields.
      */
     public EntityPropertiesBuilder(Schema _daoSchema, String _fieldPrefix) {
+        this(_daoSchema, _fieldPrefix, new TypeMapper());
+    }
+
+    /**
+     * Constructor.
+     * @param _daoSchema the greenDao Schema.
+     * @param _fieldPrefix prefix for fields.
+     * @param _typeMapper maps the field types to property types.
+     */
+    public EntityPropertiesBuilder(Schema _daoSchema, String _fieldPrefix, TypeMapper _typeMapper) {
         daoSchema = _daoSchema;
         fieldPrefix = _fieldPrefix;
-        addedEntityClasses = new ArrayList<Class<?>>();
+        typeMapper = _typeMapper;
+        prefixEntityName = PropertyOptions.PREFIX_ENTITY_NAME;
+        addedEntities = new EntityRegistry();
     }
 
     /**
-     * Adds a new Dao entity to the schema, with name the class's simple name.
-     * @param _entityClass the entity class to be added.
-     * @return the added Dao Entity.
+     * Enables the Long autoincrement primary keys, backed by the SQLite rowid.
+     * An entity whose primary key field is a long keeps it, with autoincrement.
+     * Any other entity gets an "id" primary key, and its primary key field becomes a unique property.
+     * The foreign keys of the relations take the type of the primary key they reference.
+     * @param _rowIdPrimaryKeys true in order to generate rowid primary keys.
      */
-    private Entity addEntityToSchema(Class<?> _entityClass) {
-        return addEntityToSchema(_entityClass, _entityClass.getSimpleName());
+    public void setRowIdPrimaryKeys(boolean _rowIdPrimaryKeys) {
+        rowIdPrimaryKeys = _rowIdPrimaryKeys;
     }
 
     /**
-     * Adds a new Dao entity to the schema with a given name.
+     * Sets the prefix of the entity names, defaults to {@value PropertyOptions#PREFIX_ENTITY_NAME}.
+     * @param _prefixEntityName the prefix.
+     */
+    public void setPrefixEntityName(String _prefixEntityName) {
+        prefixEntityName = _prefixEntityName;
+    }
+
+    /**
+     * Returns the entities that have been added to the schema, keyed by their entity class.
+     * @return the entity registry.
+     */
+    public EntityRegistry getAddedEntities() {
+        return addedEntities;
+    }
+
+    /**
+     * Adds a new Dao entity to the schema, with name the class's simple name.
      * @param _entityClass the entity class to be added.
-     * @param _entityName the entity's name.
+     * @param _prefixEntityName the prefix of the entity name.
      * @return the added Dao Entity.
      */
-    private Entity addEntityToSchema(Class<?> _entityClass, String _entityName) {
-        return daoSchema.addEntity(PropertyOptions.PREFIX_ENTITY_NAME + _entityName);
+    private Entity addEntityToSchema(Class<?> _entityClass, String _prefixEntityName) {
+        return daoSchema.addEntity(_prefixEntityName + _entityClass.getSimpleName());
     }
 
     /**
@@ -65,6 +116,17 @@ public class EntityPropertiesBuilder {
      * @throws InvalidClassException
      */
     public Entity buildPropertiesForEntity(Class<?> _entityClass, List<String> _blackListFields) throws InvalidClassException {
+        return buildPropertiesForEntity(_entityClass, new FieldBlackList(_blackListFields), PRIMARY_KEY_DEFAULT_NAME);
+    }
+
+    /**
+     * Builds the properties of a greenDao Entity based on the given class, using reflection.
+     * @param _entityClass the class to take the properties from.
+     * @param _blackListFields the fields that can be excluded.
+     * @return the new greenDao Entity.
+     * @throws InvalidClassException
+     */
+    public Entity buildPropertiesForEntity(Class<?> _entityClass, FieldBlackList _blackListFields) throws InvalidClassException {
         return buildPropertiesForEntity(_entityClass, _blackListFields, PRIMARY_KEY_DEFAULT_NAME);
     }
 
@@ -81,6 +143,80 @@ public class EntityPropertiesBuilder {
         List<String> _blackListFields,
         String _primaryKeyName)
     throws InvalidClassException
+    {
+        return buildPropertiesForEntity(_entityClass, new FieldBlackList(_blackListFields), _primaryKeyName);
+    }
+
+    /**
+     * Builds the properties of a greenDao Entity based on the given class, using reflection.
+     * @param _entityClass the class to take the properties from.
+     * @param _blackListFields the fields that can be excluded.
+     * @param _primaryKeyName a field name which will marked as primary key of this entity.
+     *  @throws InvalidClassException
+     * @return the new greenDao Entity.
+     */
+    public Entity buildPropertiesForEntity(
+        Class<?> _entityClass,
+        FieldBlackList _blackListFields,
+        String _primaryKeyName)
+    throws InvalidClassException
+    {
+
+        if (_entityClass == null) {
+            throw new InvalidClassException("The entity class is null.");
+        }
+
+        // If the class is already added, return.
+        if (addedEntities.contains(_entityClass)) {
+            return null;
+        }
+
+        final EntityDefinition entityDefinition = resolveEntity(_entityClass, _blackListFields, _primaryKeyName);
+        if (!entityDefinition.getUnsupportedFields().isEmpty()) {
+            throw new UnsupportedFieldTypeException(entityDefinition.getUnsupportedFields());
+        }
+
+        return addEntity(entityDefinition);
+    }
+
+    /**
+     * Resolves the properties of a greenDao Entity based on the given class, using reflection.
+     * Does not modify the schema, so it can be called concurrently.
+     * The fields whose type is not supported are collected into the resolved entity.
+     * @param _entityClass the class to take the properties from.
+     * @param _blackListFields the fields that can be excluded.
+     * @param _primaryKeyName a field name which will marked as primary key of this entity.
+     * @return the resolved entity.
+     * @throws InvalidClassException
+     */
+    public EntityDefinition resolveEntity(
+        Class<?> _entityClass,
+        FieldBlackList _blackListFields,
+        String _primaryKeyName)
+    throws InvalidClassException
+    {
+        return resolveEntity(_entityClass, _blackListFields, _primaryKeyName,
+                Collections.<String, EmbeddingMode>emptyMap());
+    }
+
+    /**
+     * Resolves the properties of a greenDao Entity based on the given class, using reflection.
+     * Does not modify the schema, so it can be called concurrently.
+     * The embedded fields whose type is not mapped are resolved into a blob or flattened columns,
+     * the fields whose type is not supported are collected into the resolved entity.
+     * @param _entityClass the class to take the properties from.
+     * @param _blackListFields the fields that can be excluded.
+     * @param _primaryKeyName a field name which will marked as primary key of this entity.
+     * @param _embeddedFields field name to how it is stored, for the embedded fields.
+     * @return the resolved entity.
+     * @throws InvalidClassException
+     */
+    public EntityDefinition resolveEntity(
+        Class<?> _entityClass,
+        FieldBlackList _blackListFields,
+        String _primaryKeyName,
+        Map<String, EmbeddingMode> _embeddedFields)
+    throws InvalidClassException
     {
 
         if (_entityClass == null) {
@@ -92,60 +228,198 @@ public class EntityPropertiesBuilder {
             _primaryKeyName = PRIMARY_KEY_DEFAULT_NAME;
         }
 
-        // If the class is already added, return.
-        if (addedEntityClasses.contains(_entityClass)) {
-            return null;
+        // Get all the fields of the given Class included those of it's superclass recursively.
+        final ClassMetadata metadata = ClassMetadataCache.get(_entityClass);
+        final int primaryKeyIndex = metadata.getPrimaryKeyIndex(_primaryKeyName);
+
+        final List<PropertyDefinition> properties = new ArrayList<PropertyDefinition>(metadata.getFieldCount());
+        final List<EmbeddedField> embeddedFields = new ArrayList<EmbeddedField>();
+        final List<String> unsupportedFields = new ArrayList<String>();
+        final EmbeddedFieldResolver embeddedFieldResolver = new EmbeddedFieldResolver();
+        int filteredFieldCount = 0;
+
+        // Resolve the properties of the fields.
+        for (int i = 0; i < metadata.getFieldCount(); i++) {
+            final String fieldName = metadata.getField(i).getName();
+
+            // Ignore field Blacklist.
+            if (_blackListFields.isBlackListed(_entityClass, fieldName)) {
+                filteredFieldCount++;
+                continue;
+            }
+
+            final PropertyType propertyType = typeMapper.map(metadata.getFieldType(i));
+
+            // Embedded, stored as a blob or as flattened columns.
+            final EmbeddingMode embeddingMode = _embeddedFields.get(fieldName);
+            if (propertyType == null && embeddingMode != null) {
+                final EmbeddedField embeddedField =
+                        embeddedFieldResolver.resolve(metadata.getField(i), fieldPrefix + fieldName, embeddingMode);
+                if (embeddedField == null) {
+                    unsupportedFields.add(_entityClass.getName() + "." + fieldName
+                            + " (" + metadata.getFieldType(i).getName() + ": " + embeddedFieldResolver.getFailure() + ")");
+                    continue;
+                }
+                embeddedFields.add(embeddedField);
+                properties.addAll(embeddedField.getProperties());
+                continue;
+            }
+
+            // Not supported, collect it in order to report all of them together.
+            if (propertyType == null) {
+                unsupportedFields.add(_entityClass.getName() + "." + fieldName
+                        + " (" + metadata.getFieldType(i).getName() + ")");
+                continue;
+            }
+
+            // Mark the primary key, if this is the field.
+            properties.add(new PropertyDefinition(propertyType, fieldPrefix + fieldName, i == primaryKeyIndex));
         }
+        return new EntityDefinition(_entityClass, properties, embeddedFields, unsupportedFields,
+                metadata.getFieldCount(), filteredFieldCount);
+    }
 
-        // add class.
-        addedEntityClasses.add(_entityClass);
+    /**
+     * Adds a resolved entity to the schema, named with the prefix of this builder.
+     * @param _entityDefinition the resolved entity.
+     * @return the new greenDao Entity, or null if the entity class is already added.
+     */
+    public Entity addEntity(EntityDefinition _entityDefinition) {
+        return addEntity(_entityDefinition, null);
+    }
 
-        // create a new greenDao entity.
-        Entity greenDaoEntity = addEntityToSchema(_entityClass);
+    /**
+     * Adds a resolved entity to the schema.
+     * @param _entityDefinition the resolved entity.
+     * @param _prefixEntityName the prefix of the entity name, null for the prefix of this builder.
+     * @return the new greenDao Entity, or null if the entity class is already added.
+     */
+    public Entity addEntity(EntityDefinition _entityDefinition, String _prefixEntityName) {
+        final Class<?> entityClass = _entityDefinition.getEntityClass();
 
-        // Get all the fields of the given Class included those of it's superclass recursively.
-        Field[] allFields = SchemaGenUtils.getSuperFieldsRecursively(_entityClass, new Field[]{});
+        // If the class is already added, return.
+        if (addedEntities.contains(entityClass)) {
+            return null;
+        }
 
-        // Add fields to the greenDao Entity.
-        for (Field field : allFields) {
-            final Class fieldType = field.getType();
-            final String fieldTypeName = fieldType.getSimpleName();
+        // The rowid primary key is added, unless the primary key field is a long already.
+        final boolean rowIdProperty = rowIdPrimaryKeys && !hasLongPrimaryKey(_entityDefinition);
+        if (rowIdProperty) {
+            for (PropertyDefinition property : _entityDefinition.getProperties()) {
+                if (property.getPropertyName().equalsIgnoreCase(ROW_ID_PROPERTY_NAME)) {
+                    throw new IllegalStateException("The field " + entityClass.getName() + "."
+                            + property.getPropertyName() + " clashes with the rowid primary key.");
+                }
+            }
+        }
 
-            final PropertyType propertyType;
-            final String fieldName = field.getName();
+        // create a new greenDao entity, and add class.
+        Entity greenDaoEntity = addEntityToSchema(
+                entityClass, _prefixEntityName != null ? _prefixEntityName : prefixEntityName);
+        addedEntities.register(entityClass, greenDaoEntity);
+        if (rowIdProperty) {
+            greenDaoEntity.addIdProperty().autoincrement();
+        }
 
-            final String propertyName = fieldPrefix + fieldName;
+        // Add properties to the greenDao Entity.
+        for (PropertyDefinition property : _entityDefinition.getProperties()) {
+            final Property.PropertyBuilder propertyBuilder =
+                    greenDaoEntity.addProperty(property.getPropertyType(), property.getPropertyName());
 
-            // Ignore field Blacklist.
-            if (_blackListFields.contains(fieldName) ||
-                    _blackListFields.contains(SchemaBuilder.extractFullPathName(_entityClass, fieldName)))
-            {
+            if (!property.isPrimaryKey()) {
                 continue;
             }
 
-            // There is no "Integer" into the PropertyType, there is PropertyType.Int, so convert it.
-            else if (fieldType.equals(Integer.class) || fieldType.equals(int.class)) {
-                propertyType = PropertyType.Int;
+            // With a rowid primary key, the primary key field is still unique.
+            if (rowIdProperty) {
+                propertyBuilder.unique();
+            } else if (rowIdPrimaryKeys) {
+                propertyBuilder.primaryKey().autoincrement();
+            } else {
+                propertyBuilder.primaryKey();
+            }
+        }
+        return greenDaoEntity;
+    }
+
+    private static boolean hasLongPrimaryKey(EntityDefinition _entityDefinition) {
+        for (PropertyDefinition property : _entityDefinition.getProperties()) {
+            if (property.isPrimaryKey()) {
+                return property.getPropertyType() == PropertyType.Long;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds indexes to an added greenDao Entity.
+     * @param _entity the greenDao Entity.
+     * @param _indexes the indexes, over the field names of the entity class,
+     *                 or over the foreign key properties which the relations added.
+     * @throws InvalidEntityException if an indexed field is not a property of the entity.
+     */
+    public void addIndexes(Entity _entity, List<IndexDefinition> _indexes) throws InvalidEntityException {
+        for (IndexDefinition indexDefinition : _indexes) {
+            final Index index = new Index();
+            for (String fieldName : indexDefinition.getFieldNames()) {
+                index.addProperty(getProperty(_entity, fieldName, "indexed"));
             }
 
-            // Convert the Enums to Strings.
-            else if (((Class<?>) fieldType).isEnum()) {
-                propertyType = PropertyType.String;
+            if (indexDefinition.getName() != null) {
+                index.setName(indexDefinition.getName());
+            }
+            if (indexDefinition.isUnique()) {
+                index.makeUnique();
             }
+            _entity.addIndex(index);
+        }
+    }
 
-            // Convert from the string field name to the PropertyType Enum.
-            else {
-                propertyType = PropertyType.valueOf(fieldTypeName);
+    /**
+     * Resolves the projections of an added greenDao Entity against its properties.
+     * @param _entity the greenDao Entity.
+     * @param _projections the projections, over the field names of the entity class,
+     *                     or over the foreign key properties which the relations added.
+     * @return the resolved projections, in order.
+     * @throws InvalidEntityException if a projected field is not a property of the entity or is projected twice,
+     *                                or if two projections have the same name.
+     */
+    public List<EntityProjection> resolveProjections(Entity _entity, List<ProjectionDefinition> _projections)
+            throws InvalidEntityException
+    {
+        final List<EntityProjection> entityProjections = new ArrayList<EntityProjection>(_projections.size());
+        final Set<String> classNames = new HashSet<String>();
+        for (ProjectionDefinition projectionDefinition : _projections) {
+            final List<Property> properties = new ArrayList<Property>();
+            for (String fieldName : projectionDefinition.getFieldNames()) {
+                final Property property = getProperty(_entity, fieldName, "projected");
+                if (properties.contains(property)) {
+                    throw new InvalidEntityException("Duplicate projected property: "
+                            + _entity.getClassName() + "." + property.getPropertyName()
+                            + " in the projection " + projectionDefinition.getName());
+                }
+                properties.add(property);
             }
 
-            // Add the primary key, if this is the field.
-            if (fieldName.equalsIgnoreCase(_primaryKeyName)) {
-                greenDaoEntity.addProperty(propertyType, propertyName).primaryKey();
-            } else {
-                greenDaoEntity.addProperty(propertyType, propertyName);
+            final EntityProjection projection = new EntityProjection(projectionDefinition.getName(), properties);
+            if (!classNames.add(projection.getClassName())) {
+                throw new InvalidEntityException("Duplicate projection: "
+                        + _entity.getClassName() + "." + projection.getClassName());
             }
+            entityProjections.add(projection);
+        }
+        return entityProjections;
+    }
 
+    private Property getProperty(Entity _entity, String _fieldName, String _usage) throws InvalidEntityException {
+        Property property = addedEntities.getProperty(_entity, fieldPrefix + _fieldName);
+        if (property == null) {
+            property = addedEntities.getProperty(_entity, _fieldName);
         }
-        return greenDaoEntity;
+        if (property == null) {
+            throw new InvalidEntityException("No such " + _usage + " property: "
+                    + _entity.getClassName() + "." + fieldPrefix + _fieldName);
+        }
+        return property;
     }
 }
@@ -0,0 +1,88 @@
+package com.greendao_schema_builder.property;
+
+import de.greenrobot.daogenerator.Entity;
+import de.greenrobot.daogenerator.Property;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The greenDao entities that have been added to the schema, keyed by their entity class,
+ * together with an index of the properties of every entity by property name.
+ */
+public class EntityRegistry {
+
+    // Entity class to greenDao Entity, in insertion order.
+    private final Map<Class<?>, Entity> entities;
+
+    // greenDao Entity to its properties by name.
+    private final Map<Entity, PropertyIndex> properties;
+
+    /**
+     * Constructor.
+     */
+    public EntityRegistry() {
+        entities = new LinkedHashMap<Class<?>, Entity>();
+        properties = new HashMap<Entity, PropertyIndex>();
+    }
+
+    /**
+     * Registers the greenDao Entity of an entity class.
+     * @param _entityClass the entity class.
+     * @param _entity the greenDao Entity.
+     */
+    public void register(Class<?> _entityClass, Entity _entity) {
+        entities.put(_entityClass, _entity);
+    }
+
+    /**
+     * Returns whether an entity class has been added.
+     * @param _entityClass the entity class.
+     * @return true if it has been added.
+     */
+    public boolean contains(Class<?> _entityClass) {
+        return entities.containsKey(_entityClass);
+    }
+
+    /**
+     * Returns the greenDao Entity of an entity class.
+     * @param _entityClass the entity class.
+     * @return the greenDao Entity, or null if the class has not been added.
+     */
+    public Entity get(Class<?> _entityClass) {
+        return entities.get(_entityClass);
+    }
+
+    /**
+     * Returns a property of an entity by name.
+     * The properties of an entity are only ever appended, so the index catches up with the added ones.
+     * @param _entity the greenDao Entity.
+     * @param _propertyName the property name.
+     * @return the property, or null if the entity has no such property.
+     */
+    public Property getProperty(Entity _entity, String _propertyName) {
+        PropertyIndex propertyIndex = properties.get(_entity);
+        if (propertyIndex == null) {
+            propertyIndex = new PropertyIndex();
+            properties.put(_entity, propertyIndex);
+        }
+
+        final List<Property> allProperties = _entity.getProperties();
+        for (; propertyIndex.indexedCount < allProperties.size(); propertyIndex.indexedCount++) {
+            final Property property = allProperties.get(propertyIndex.indexedCount);
+            propertyIndex.byName.put(property.getPropertyName(), property);
+        }
+
+        return propertyIndex.byName.get(_propertyName);
+    }
+
+    /**
+     * The properties of an entity by name.
+     */
+    private static class PropertyIndex {
+        private final Map<String, Property> byName = new HashMap<String, Property>();
+        private int indexedCount;
+    }
+}
@@ -0,0 +1,186 @@
+package com.greendao_schema_builder.property;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hash indexed blacklist of fields that will not become properties.
+ *
+ * An entry can be:
+ * <ul>
+ *     <li>a simple field name, excluded on every class: {@code "ENTITY_NAME"}</li>
+ *     <li>a field of a class: {@code "com.example.Document.title"}</li>
+ *     <li>all the fields of a class: {@code "com.example.Document.*"}</li>
+ *     <li>a field of every class of a package: {@code "com.example.*.title"}</li>
+ *     <li>a field of every class of a package and its sub packages: {@code "com.example.**.title"}</li>
+ * </ul>
+ * The entries that apply to a class are resolved once per class,
+ * after that every field lookup is a single hash lookup.
+ */
+public class FieldBlackList {
+
+    private static final String WILDCARD = "*";
+    private static final String PACKAGE_WILDCARD = ".*";
+    private static final String SUB_PACKAGE_WILDCARD = ".**";
+
+    // All the entries, in insertion order.
+    private final Set<String> entries;
+
+    // Field names excluded on every class.
+    private final Set<String> fieldNames;
+
+    // Canonical class name to the excluded field names.
+    private final Map<String, Set<String>> classFields;
+
+    // Package name to the excluded field names of its classes.
+    private final Map<String, Set<String>> packageFields;
+
+    // Package name to the excluded field names of the classes of it and its sub packages.
+    private final Map<String, Set<String>> subPackageFields;
+
+    // The excluded field names of a class, resolved from the entries.
+    private final Map<Class<?>, Set<String>> resolvedClassFields;
+
+    /**
+     * Constructor.
+     */
+    public FieldBlackList() {
+        entries = new LinkedHashSet<String>();
+        fieldNames = new HashSet<String>();
+        classFields = new HashMap<String, Set<String>>();
+        packageFields = new HashMap<String, Set<String>>();
+        subPackageFields = new HashMap<String, Set<String>>();
+        resolvedClassFields = new ConcurrentHashMap<Class<?>, Set<String>>();
+    }
+
+    /**
+     * Constructor.
+     * @param _entries the initial entries.
+     */
+    public FieldBlackList(Collection<String> _entries) {
+        this();
+        for (String entry : _entries) {
+            add(entry);
+        }
+    }
+
+    /**
+     * Adds an entry to the blacklist.
+     * @param _entry the entry, see the class documentation for the supported forms.
+     * @return true if the entry was not already in the blacklist.
+     */
+    public synchronized boolean add(String _entry) {
+        if (!entries.add(_entry)) {
+            return false;
+        }
+
+        final int separator = _entry.lastIndexOf('.');
+        if (separator < 0) {
+            fieldNames.add(_entry);
+        } else {
+            final String owner = _entry.substring(0, separator);
+            final String fieldName = _entry.substring(separator + 1);
+
+            if (owner.endsWith(SUB_PACKAGE_WILDCARD)) {
+                index(subPackageFields, owner.substring(0, owner.length() - SUB_PACKAGE_WILDCARD.length()), fieldName);
+            } else if (owner.endsWith(PACKAGE_WILDCARD)) {
+                index(packageFields, owner.substring(0, owner.length() - PACKAGE_WILDCARD.length()), fieldName);
+            } else {
+                index(classFields, owner, fieldName);
+            }
+        }
+
+        // The classes have to be resolved again.
+        resolvedClassFields.clear();
+        return true;
+    }
+
+    private static void index(Map<String, Set<String>> _index, String _owner, String _fieldName) {
+        Set<String> fields = _index.get(_owner);
+        if (fields == null) {
+            fields = new HashSet<String>();
+            _index.put(_owner, fields);
+        }
+        fields.add(_fieldName);
+    }
+
+    /**
+     * Returns whether an entry is in the blacklist, as it was added.
+     * @param _entry the entry.
+     * @return true if the entry is in the blacklist.
+     */
+    public synchronized boolean contains(String _entry) {
+        return entries.contains(_entry);
+    }
+
+    /**
+     * Returns all the entries, in insertion order.
+     * @return the entries.
+     */
+    public synchronized List<String> getEntries() {
+        return Collections.unmodifiableList(new ArrayList<String>(entries));
+    }
+
+    /**
+     * Returns whether a field of a class is blacklisted.
+     * @param _entityClass the class that the field belongs to.
+     * @param _fieldName the field name.
+     * @return true if the field should be excluded.
+     */
+    public boolean isBlackListed(Class<?> _entityClass, String _fieldName) {
+        Set<String> excludedFields = resolvedClassFields.get(_entityClass);
+        if (excludedFields == null) {
+            excludedFields = resolveClassFields(_entityClass);
+            resolvedClassFields.put(_entityClass, excludedFields);
+        }
+        return excludedFields.contains(_fieldName) || excludedFields.contains(WILDCARD);
+    }
+
+    /**
+     * Collects the excluded field names of a class, from all the entries that apply to it.
+     * @param _entityClass the class.
+     * @return the excluded field names, may contain the wildcard.
+     */
+    private synchronized Set<String> resolveClassFields(Class<?> _entityClass) {
+        final Set<String> excludedFields = new HashSet<String>(fieldNames);
+
+        addAll(excludedFields, classFields.get(_entityClass.getCanonicalName()));
+
+        final String packageName = packageName(_entityClass);
+        addAll(excludedFields, packageFields.get(packageName));
+
+        // Walk up the package and its parents for the sub package entries.
+        String parentPackage = packageName;
+        while (!subPackageFields.isEmpty()) {
+            addAll(excludedFields, subPackageFields.get(parentPackage));
+
+            final int separator = parentPackage.lastIndexOf('.');
+            if (separator < 0) {
+                break;
+            }
+            parentPackage = parentPackage.substring(0, separator);
+        }
+
+        return excludedFields;
+    }
+
+    private static void addAll(Set<String> _target, Set<String> _source) {
+        if (_source != null) {
+            _target.addAll(_source);
+        }
+    }
+
+    private static String packageName(Class<?> _class) {
+        final String className = _class.getName();
+        final int separator = className.lastIndexOf('.');
+        return separator < 0 ? "" : className.substring(0, separator);
+    }
+}
@@ -0,0 +1,54 @@
+package com.greendao_schema_builder.property;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An index of a greenDao Entity, over one or more of its fields.
+ */
+public class IndexDefinition {
+
+    // The index name, null for the greenDao default name.
+    private final String name;
+    private final boolean unique;
+
+    // The indexed field names, in index order.
+    private final List<String> fieldNames;
+
+    /**
+     * Constructor.
+     * @param _unique whether the indexed values are unique.
+     * @param _fieldNames the indexed field names, in index order.
+     */
+    public IndexDefinition(boolean _unique, String ... _fieldNames) {
+        this(null, _unique, _fieldNames);
+    }
+
+    /**
+     * Constructor.
+     * @param _name the index name, null for the greenDao default name.
+     * @param _unique whether the indexed values are unique.
+     * @param _fieldNames the indexed field names, in index order.
+     */
+    public IndexDefinition(String _name, boolean _unique, String ... _fieldNames) {
+        if (_fieldNames.length == 0) {
+            throw new IllegalArgumentException("An index needs at least one field.");
+        }
+        name = _name;
+        unique = _unique;
+        fieldNames = Collections.unmodifiableList(Arrays.asList(_fieldNames.clone()));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isUnique() {
+        return unique;
+    }
+
+    public List<String> getFieldNames() {
+        return fieldNames;
+    }
+}
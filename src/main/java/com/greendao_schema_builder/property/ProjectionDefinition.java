@@ -0,0 +1,53 @@
+package com.greendao_schema_builder.property;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A named projection of a greenDao Entity, a subset of its fields which are queried together.
+ */
+public class ProjectionDefinition {
+
+    // The projection name, also the name of its class.
+    private final String name;
+
+    // The projected field names, in column order.
+    private final List<String> fieldNames;
+
+    /**
+     * Constructor.
+     * @param _name the projection name, a java identifier, also the name of its class.
+     * @param _fieldNames the projected field names, in column order.
+     */
+    public ProjectionDefinition(String _name, String ... _fieldNames) {
+        if (_name == null || !isJavaIdentifier(_name)) {
+            throw new IllegalArgumentException("Invalid projection name: " + _name);
+        }
+        if (_fieldNames.length == 0) {
+            throw new IllegalArgumentException("The projection " + _name + " needs at least one field.");
+        }
+        name = _name;
+        fieldNames = Collections.unmodifiableList(Arrays.asList(_fieldNames.clone()));
+    }
+
+    private static boolean isJavaIdentifier(String _name) {
+        if (_name.isEmpty() || !Character.isJavaIdentifierStart(_name.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < _name.length(); i++) {
+            if (!Character.isJavaIdentifierPart(_name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getFieldNames() {
+        return fieldNames;
+    }
+}
@@ -0,0 +1,42 @@
+package com.greendao_schema_builder.property;
+
+import de.greenrobot.daogenerator.PropertyType;
+
+/**
+ * A property of a greenDao Entity, as resolved from a field of the entity class.
+ */
+public class PropertyDefinition {
+
+    // The greenDao property type.
+    private final PropertyType propertyType;
+
+    // The property name, including the field prefix.
+    private final String propertyName;
+
+    // Whether the property is the primary key of the entity.
+    private final boolean primaryKey;
+
+    /**
+     * Constructor.
+     * @param _propertyType the greenDao property type.
+     * @param _propertyName the property name.
+     * @param _primaryKey whether the property is the primary key.
+     */
+    public PropertyDefinition(PropertyType _propertyType, String _propertyName, boolean _primaryKey) {
+        propertyType = _propertyType;
+        propertyName = _propertyName;
+        primaryKey = _primaryKey;
+    }
+
+    public PropertyType getPropertyType() {
+        return propertyType;
+    }
+
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    public boolean isPrimaryKey() {
+        return primaryKey;
+    }
+}
@@ -1,14 +1,30 @@
 package com.greendao_schema_builder.property;
 
+import com.greendao_schema_builder.embedding.EmbeddingMode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Argument object for the Build Entity Properties.
  */
 public class PropertyOptions {
-    public static String PREFIX_ENTITY_NAME = "DB";
+
+    // The default prefix of the entity names.
+    public static final String PREFIX_ENTITY_NAME = "DB";
+
+    // The prefix of the entity name, null for the prefix of the schema builder.
+    private final String prefixEntityName;
     private final Class<?> entityClass;
     private final String primaryKey;
     private final String superClassName;
     private final String[] interfaces;
+    private final List<IndexDefinition> indexes;
+    private final Map<String, EmbeddingMode> embeddedFields;
+    private final List<ProjectionDefinition> projections;
 
     /**
      * Constructor.
@@ -23,15 +39,19 @@ public class PropertyOptions {
             String _superClassName,
             String ... _interfaces)
     {
+        prefixEntityName = null;
         entityClass = _entityClass;
         primaryKey = _primaryKey;
         superClassName = _superClassName;
         interfaces = _interfaces;
+        indexes = new ArrayList<IndexDefinition>();
+        embeddedFields = new LinkedHashMap<String, EmbeddingMode>();
+        projections = new ArrayList<ProjectionDefinition>();
     }
 
     /**
      * Constructor.
-     * @param _prefixEntityName entity name prefix.
+     * @param _prefixEntityName entity name prefix, of this entity only.
      * @param _entityClass the class which will take the properties from.
      * @param _primaryKey the primary key field name.
      * @param _superClassName a super class name.
@@ -44,11 +64,37 @@ public class PropertyOptions {
             String _superClassName,
             String ... _interfaces)
     {
-        PREFIX_ENTITY_NAME = _prefixEntityName;
+        prefixEntityName = _prefixEntityName;
         entityClass = _entityClass;
         primaryKey = _primaryKey;
         superClassName = _superClassName;
         interfaces = _interfaces;
+        indexes = new ArrayList<IndexDefinition>();
+        embeddedFields = new LinkedHashMap<String, EmbeddingMode>();
+        projections = new ArrayList<ProjectionDefinition>();
+    }
+
+    /**
+     * Copy constructor, the indexes, embedded fields and projections of the copy are independent of the original.
+     * @param _options the options to be copied.
+     */
+    public PropertyOptions(PropertyOptions _options) {
+        prefixEntityName = _options.prefixEntityName;
+        entityClass = _options.entityClass;
+        primaryKey = _options.primaryKey;
+        superClassName = _options.superClassName;
+        interfaces = _options.interfaces.clone();
+        indexes = new ArrayList<IndexDefinition>(_options.indexes);
+        embeddedFields = new LinkedHashMap<String, EmbeddingMode>(_options.embeddedFields);
+        projections = new ArrayList<ProjectionDefinition>(_options.projections);
+    }
+
+    /**
+     * Returns the prefix of the entity name.
+     * @return the prefix, null for the prefix of the schema builder.
+     */
+    public String getPrefixEntityName() {
+        return prefixEntityName;
     }
 
     public Class<?> getEntityClass() {
@@ -66,4 +112,81 @@ public class PropertyOptions {
     public String[] getInterfaces() {
         return interfaces;
     }
+
+    /**
+     * Adds an index over one or more fields, a composite index if there are several.
+     * @param _fieldNames the indexed field names, in index order.
+     * @return these options.
+     */
+    public PropertyOptions addIndex(String ... _fieldNames) {
+        return addIndex(new IndexDefinition(false, _fieldNames));
+    }
+
+    /**
+     * Adds a unique index over one or more fields, a composite index if there are several.
+     * @param _fieldNames the indexed field names, in index order.
+     * @return these options.
+     */
+    public PropertyOptions addUniqueIndex(String ... _fieldNames) {
+        return addIndex(new IndexDefinition(true, _fieldNames));
+    }
+
+    /**
+     * Adds an index.
+     * @param _index the index.
+     * @return these options.
+     */
+    public PropertyOptions addIndex(IndexDefinition _index) {
+        indexes.add(_index);
+        return this;
+    }
+
+    public List<IndexDefinition> getIndexes() {
+        return Collections.unmodifiableList(indexes);
+    }
+
+    /**
+     * Embeds a field whose type is a value class or a collection in the table of the entity,
+     * instead of blacklisting it or modelling it as a relation.
+     * @param _fieldName the field name.
+     * @param _mode how the field is stored.
+     * @return these options.
+     */
+    public PropertyOptions embed(String _fieldName, EmbeddingMode _mode) {
+        embeddedFields.put(_fieldName, _mode);
+        return this;
+    }
+
+    /**
+     * Returns the embedded fields.
+     * @return field name to how it is stored, in embedding order.
+     */
+    public Map<String, EmbeddingMode> getEmbeddedFields() {
+        return Collections.unmodifiableMap(embeddedFields);
+    }
+
+    /**
+     * Adds a named projection, a subset of the fields which are queried together,
+     * without reading the other columns nor building the entity.
+     * @param _name the projection name, also the name of its class.
+     * @param _fieldNames the projected field names, in column order.
+     * @return these options.
+     */
+    public PropertyOptions addProjection(String _name, String ... _fieldNames) {
+        return addProjection(new ProjectionDefinition(_name, _fieldNames));
+    }
+
+    /**
+     * Adds a named projection.
+     * @param _projection the projection.
+     * @return these options.
+     */
+    public PropertyOptions addProjection(ProjectionDefinition _projection) {
+        projections.add(_projection);
+        return this;
+    }
+
+    public List<ProjectionDefinition> getProjections() {
+        return Collections.unmodifiableList(projections);
+    }
 }
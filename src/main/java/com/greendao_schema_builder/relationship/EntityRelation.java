@@ -20,6 +20,12 @@ public class EntityRelation {
     // The type of the relation.
     private final EntityRelationType relationType;
 
+    // The name of the join entity of a many to many relation, null for the default name.
+    private String joinEntityName;
+
+    // How the related entities are loaded.
+    private FetchStrategy fetchStrategy = FetchStrategy.LAZY;
+
     /**
      * Constructor.
      * @param _sourceEntity The entity that has the relation.
@@ -54,6 +60,20 @@ public class EntityRelation {
         relationType = _relationType;
     }
 
+    /**
+     * Copy constructor.
+     * @param _relation the relation to be copied.
+     */
+    public EntityRelation(EntityRelation _relation) {
+        sourceEntity = _relation.sourceEntity;
+        relationEntity = _relation.relationEntity;
+        relationFieldName = _relation.relationFieldName;
+        relationType = _relation.relationType;
+        relationFieldNameToCreate = _relation.relationFieldNameToCreate;
+        joinEntityName = _relation.joinEntityName;
+        fetchStrategy = _relation.fetchStrategy;
+    }
+
     public Class<?> getSourceEntity() {
         return sourceEntity;
     }
@@ -74,6 +94,34 @@ public class EntityRelation {
         return relationType;
     }
 
+    public String getJoinEntityName() {
+        return joinEntityName;
+    }
+
+    /**
+     * Sets the name of the join entity of a many to many relation,
+     * defaults to the entity name prefix followed by the names of the source and relation classes.
+     * @param _joinEntityName the join entity name, its table is named after it.
+     */
+    public void setJoinEntityName(String _joinEntityName) {
+        joinEntityName = _joinEntityName;
+    }
+
+    public FetchStrategy getFetchStrategy() {
+        return fetchStrategy;
+    }
+
+    /**
+     * Sets how the related entities are loaded, defaults to {@link FetchStrategy#LAZY}.
+     * Any other strategy generates a fetch helper for the source entity,
+     * which loads a page of source entities together with their related entities in one or two queries.
+     * A many to many relation applies it to the to many relations of both sides.
+     * @param _fetchStrategy the fetch strategy.
+     */
+    public void setFetchStrategy(FetchStrategy _fetchStrategy) {
+        fetchStrategy = _fetchStrategy;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null) {
@@ -94,7 +142,9 @@ public class EntityRelation {
             return false;
         }
 
-        if (this.relationFieldName != other.relationFieldName) {
+        if (this.relationFieldName == null
+                ? other.relationFieldName != null
+                : !this.relationFieldName.equals(other.relationFieldName)) {
             return false;
         }
 
@@ -104,4 +154,14 @@ public class EntityRelation {
 
         return true;
     }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 31 * hash + (sourceEntity != null ? sourceEntity.hashCode() : 0);
+        hash = 31 * hash + (relationEntity != null ? relationEntity.hashCode() : 0);
+        hash = 31 * hash + (relationFieldName != null ? relationFieldName.hashCode() : 0);
+        hash = 31 * hash + (relationType != null ? relationType.hashCode() : 0);
+        return hash;
+    }
 }
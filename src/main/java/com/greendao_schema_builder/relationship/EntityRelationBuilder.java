@@ -3,10 +3,23 @@ package com.greendao_schema_builder.relationship;
 import com.greendao_schema_builder.errors.InvalidEntityException;
 import com.greendao_schema_builder.errors.InvalidEntityRelationException;
 
+import com.greendao_schema_builder.property.EntityRegistry;
 import com.greendao_schema_builder.property.PropertyOptions;
 import de.greenrobot.daogenerator.Entity;
+import de.greenrobot.daogenerator.Index;
 import de.greenrobot.daogenerator.Property;
+import de.greenrobot.daogenerator.PropertyType;
 import de.greenrobot.daogenerator.Schema;
+import de.greenrobot.daogenerator.ToMany;
+import de.greenrobot.daogenerator.ToOne;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Builds greenDao entities relation.
@@ -17,15 +30,97 @@ public class EntityRelationBuilder {
 
     private static final String CODE = "code";
 
+    // The prefix of the second key of a join entity, when both keys reference the same entity.
+    private static final String RELATED_PREFIX = "related";
+
     // the greenDao Schema
     private final Schema daoSchema;
 
+    // The entities of the schema by entity class, and their properties by name.
+    private final EntityRegistry entityRegistry;
+
+    // The entities of the schema by class name, for the classes that are not registered.
+    private final Map<String, Entity> entitiesByName;
+
+    // The prefix of the entity names, for the classes that are not registered and the join entities.
+    private String prefixEntityName;
+
+    // Index the foreign key properties of the relations.
+    private boolean indexForeignKeys;
+
+    // The foreign key properties of the built relations, to be indexed.
+    private final List<Property> foreignKeys;
+
+    // The join entities of the built many to many relations.
+    private final Map<EntityRelation, Entity> joinEntities;
+
+    // Source entity to its relations which are not loaded lazily, in build order.
+    private final Map<Entity, List<RelationFetch>> relationFetches;
+
     /**
      * Constructor.
      * @param _schema the greenDao Schema
      */
     public EntityRelationBuilder(Schema _schema) {
+        this(_schema, new EntityRegistry());
+    }
+
+    /**
+     * Constructor.
+     * @param _schema the greenDao Schema
+     * @param _entityRegistry the entities that have been added to the schema.
+     */
+    public EntityRelationBuilder(Schema _schema, EntityRegistry _entityRegistry) {
         daoSchema = _schema;
+        entityRegistry = _entityRegistry;
+        entitiesByName = new HashMap<String, Entity>();
+        prefixEntityName = PropertyOptions.PREFIX_ENTITY_NAME;
+        indexForeignKeys = true;
+        foreignKeys = new ArrayList<Property>();
+        joinEntities = new HashMap<EntityRelation, Entity>();
+        relationFetches = new LinkedHashMap<Entity, List<RelationFetch>>();
+    }
+
+    /**
+     * Sets the prefix of the entity names, defaults to {@value PropertyOptions#PREFIX_ENTITY_NAME}.
+     * The default join entity names start with it,
+     * and the entities of the classes that are not registered are found by it.
+     * @param _prefixEntityName the prefix.
+     */
+    public void setPrefixEntityName(String _prefixEntityName) {
+        prefixEntityName = _prefixEntityName;
+    }
+
+    /**
+     * Enables the index of the foreign key property of every relation, enabled by default,
+     * so that resolving a relation does not scan the whole table.
+     * The indexes are added by {@link #addForeignKeyIndexes}.
+     * @param _indexForeignKeys true in order to index the foreign keys.
+     */
+    public void setIndexForeignKeys(boolean _indexForeignKeys) {
+        indexForeignKeys = _indexForeignKeys;
+    }
+
+    /**
+     * Finds the greenDao Entity of an entity class.
+     * @param _entityClass the entity class.
+     * @return the greenDao Entity, or null if there is no such entity.
+     */
+    private Entity findEntity(Class<?> _entityClass) {
+        final Entity entity = entityRegistry.get(_entityClass);
+        if (entity != null) {
+            return entity;
+        }
+
+        // Index the entities by name once, and again only if entities have been added since.
+        final List<Entity> entities = daoSchema.getEntities();
+        if (entitiesByName.size() != entities.size()) {
+            entitiesByName.clear();
+            for (Entity schemaEntity : entities) {
+                entitiesByName.put(schemaEntity.getClassName(), schemaEntity);
+            }
+        }
+        return entitiesByName.get(prefixEntityName + _entityClass.getSimpleName());
     }
 
     /**
@@ -37,13 +132,12 @@ public class EntityRelationBuilder {
     private Entity getSourceEntity(EntityRelation _entityRelation) throws InvalidEntityException {
         final Class<?> sourceEntityClass = _entityRelation.getSourceEntity();
 
-        for (Entity entity : daoSchema.getEntities()) {
-            if (entity.getClassName().equals(PropertyOptions.PREFIX_ENTITY_NAME + sourceEntityClass.getSimpleName())) {
-                return entity;
-            }
+        final Entity entity = findEntity(sourceEntityClass);
+        if (entity != null) {
+            return entity;
         }
 
-        throw new InvalidEntityException("No such Source Entity: " + PropertyOptions.PREFIX_ENTITY_NAME +  sourceEntityClass.getSimpleName());
+        throw new InvalidEntityException("No such Source Entity: " + prefixEntityName + sourceEntityClass.getSimpleName());
     }
 
     /**
@@ -55,56 +149,79 @@ public class EntityRelationBuilder {
     private Entity getRelationEntity(EntityRelation _entityRelation) throws InvalidEntityException {
         final Class<?> relationEntityClass = _entityRelation.getRelationEntity();
 
-        for (Entity entity : daoSchema.getEntities()) {
-            if (entity.getClassName().equals(PropertyOptions.PREFIX_ENTITY_NAME + relationEntityClass.getSimpleName())) {
-                return entity;
-            }
+        final Entity entity = findEntity(relationEntityClass);
+        if (entity != null) {
+            return entity;
         }
 
-        throw new InvalidEntityException("No such Relation Entity: " + PropertyOptions.PREFIX_ENTITY_NAME + relationEntityClass.getSimpleName());
+        throw new InvalidEntityException("No such Relation Entity: " + prefixEntityName + relationEntityClass.getSimpleName());
     }
 
     /**
      * Returns the Id property of the OneToMany relation.
      * @param _entityRelation The relation to get the Id property from.
+     * @param _sourceEntity the source greenDao Entity of the relation.
+     * @param _relationEntity the relation greenDao Entity of the relation.
      * @return the Id Property.
-     * @throws InvalidEntityException
      */
-    private Property getIdPropertyOneToMany(EntityRelation _entityRelation)
-            throws InvalidEntityException
+    private Property getIdPropertyOneToMany(
+            EntityRelation _entityRelation,
+            Entity _sourceEntity,
+            Entity _relationEntity)
     {
-        final Entity sourceEntity   = getSourceEntity(_entityRelation);
-        final Entity relationEntity = getRelationEntity(_entityRelation);
         final String relationField  = _entityRelation.getRelationFieldNameToCreate();
 
-        // if there is no relation field, construct the property.
+        // if there is no relation field, construct the property, of the type of the key it references.
         if (relationField == null) {
-            return relationEntity.addStringProperty(
-                    sourceEntity.getClassName().toLowerCase() + ID_PROPERTY_POSTFIX).notNull().getProperty();
+            return _relationEntity.addProperty(
+                    getPrimaryKeyType(_sourceEntity),
+                    _sourceEntity.getClassName().toLowerCase() + ID_PROPERTY_POSTFIX).notNull().getProperty();
         }
 
         // If there is relation field, get the property from there
-        for (Property property : relationEntity.getProperties()) {
-            if (property.getPropertyName().equals(relationField)) {
-                return property;
-            }
+        final Property property = entityRegistry.getProperty(_relationEntity, relationField);
+        if (property != null) {
+            return property;
         }
 
         // otherwise, add the relationField.
-        return relationEntity.addStringProperty(relationField).notNull().getProperty();
+        return _relationEntity.addProperty(getPrimaryKeyType(_sourceEntity), relationField).notNull().getProperty();
     }
 
     /**
      * Returns the Id property of the OneToOne relation.
+     * The property named as the relation field is reused if another relation already added it.
      * @param _entityRelation The relation to get the Id property from.
+     * @param _sourceEntity the source greenDao Entity of the relation.
+     * @param _relationEntity the relation greenDao Entity of the relation.
      * @return the Id Property.
-     * @throws InvalidEntityException
      */
-    private Property getIdPropertyOneToOne(EntityRelation _entityRelation)
-            throws InvalidEntityException
+    private Property getIdPropertyOneToOne(
+            EntityRelation _entityRelation,
+            Entity _sourceEntity,
+            Entity _relationEntity)
     {
-        final Entity sourceEntity   = getSourceEntity(_entityRelation);
-        return sourceEntity.addStringProperty(_entityRelation.getRelationFieldName()).getProperty();
+        final Property property = entityRegistry.getProperty(_sourceEntity, _entityRelation.getRelationFieldName());
+        if (property != null) {
+            return property;
+        }
+
+        return _sourceEntity.addProperty(
+                getPrimaryKeyType(_relationEntity), _entityRelation.getRelationFieldName()).getProperty();
+    }
+
+    /**
+     * Returns the type of the primary key of an entity, which its foreign keys should have.
+     * @param _entity the greenDao Entity.
+     * @return the primary key type, String if the entity has no primary key.
+     */
+    private static PropertyType getPrimaryKeyType(Entity _entity) {
+        for (Property property : _entity.getProperties()) {
+            if (property.isPrimaryKey()) {
+                return property.getPropertyType();
+            }
+        }
+        return PropertyType.String;
     }
 
     /**
@@ -120,18 +237,199 @@ public class EntityRelationBuilder {
         final Entity relationEntity = getRelationEntity(_entityRelation);
 
         if (_entityRelation.getRelationType().equals(EntityRelationType.ONE_TO_MANY)) {
-            final Property idProperty   = getIdPropertyOneToMany(_entityRelation);
-            sourceEntity.addToMany(relationEntity, idProperty, _entityRelation.getRelationFieldName());
+            final Property idProperty   = getIdPropertyOneToMany(_entityRelation, sourceEntity, relationEntity);
+            final ToMany toMany = sourceEntity.addToMany(relationEntity, idProperty, _entityRelation.getRelationFieldName());
+            foreignKeys.add(idProperty);
+            addToManyFetch(_entityRelation, sourceEntity, toMany);
         }
 
         else if (_entityRelation.getRelationType().equals(EntityRelationType.ONE_TO_ONE)) {
-            final Property idProperty   = getIdPropertyOneToOne(_entityRelation);
-            sourceEntity.addToOne(relationEntity, idProperty);
+            final Property idProperty   = getIdPropertyOneToOne(_entityRelation, sourceEntity, relationEntity);
+            final ToOne toOne = sourceEntity.addToOne(relationEntity, idProperty);
+            foreignKeys.add(idProperty);
+            addToOneFetch(_entityRelation, sourceEntity, relationEntity, toOne);
+        }
+
+        else if (_entityRelation.getRelationType().equals(EntityRelationType.MANY_TO_MANY)) {
+            buildManyToMany(_entityRelation, sourceEntity, relationEntity);
         }
 
         else {
             throw new InvalidEntityRelationException(
-                "Needs a valid Schema Relation type, should be one of : " + EntityRelationType.ONE_TO_MANY + " " + EntityRelationType.ONE_TO_MANY);
+                "Needs a valid Schema Relation type, should be one of : " + Arrays.toString(EntityRelationType.values()));
         }
     }
+
+    /**
+     * Builds a many to many relation through a join entity, which has a foreign key to each side,
+     * a to one relation to each side, and a unique index over both keys.
+     * The source entity gets a to many relation to the join entity, named as the relation field,
+     * and the relation entity gets one named as the relation field to create, if any.
+     * @param _entityRelation the many to many relation.
+     * @param _sourceEntity the source greenDao Entity of the relation.
+     * @param _relationEntity the relation greenDao Entity of the relation.
+     * @throws InvalidEntityRelationException if the join entity name is already taken,
+     *                                         or if a side to be fetched has no primary key.
+     */
+    private void buildManyToMany(
+            EntityRelation _entityRelation,
+            Entity _sourceEntity,
+            Entity _relationEntity)
+    throws InvalidEntityRelationException
+    {
+        String joinEntityName = _entityRelation.getJoinEntityName();
+        if (joinEntityName == null) {
+            joinEntityName = prefixEntityName
+                    + _entityRelation.getSourceEntity().getSimpleName()
+                    + _entityRelation.getRelationEntity().getSimpleName();
+        }
+        for (Entity entity : daoSchema.getEntities()) {
+            if (entity.getClassName().equals(joinEntityName)) {
+                throw new InvalidEntityRelationException("The join entity name " + joinEntityName + " is already taken.");
+            }
+        }
+
+        final Entity joinEntity = daoSchema.addEntity(joinEntityName);
+
+        // Both keys are named after the entity they reference, the second one is told apart on a self relation.
+        final String sourceKeyName = _sourceEntity.getClassName().toLowerCase() + ID_PROPERTY_POSTFIX;
+        String relationKeyName = _relationEntity.getClassName().toLowerCase() + ID_PROPERTY_POSTFIX;
+        String relationToOneName = null;
+        if (relationKeyName.equals(sourceKeyName)) {
+            relationKeyName = RELATED_PREFIX + _relationEntity.getClassName() + ID_PROPERTY_POSTFIX;
+            relationToOneName = RELATED_PREFIX + _relationEntity.getClassName();
+        }
+
+        final Property sourceKey = joinEntity.addProperty(
+                getPrimaryKeyType(_sourceEntity), sourceKeyName).notNull().getProperty();
+        final Property relationKey = joinEntity.addProperty(
+                getPrimaryKeyType(_relationEntity), relationKeyName).notNull().getProperty();
+
+        // A pair is related once, the unique index also serves the lookups by the source key.
+        final Index uniqueIndex = new Index();
+        uniqueIndex.addProperty(sourceKey);
+        uniqueIndex.addProperty(relationKey);
+        uniqueIndex.makeUnique();
+        joinEntity.addIndex(uniqueIndex);
+
+        joinEntity.addToOne(_sourceEntity, sourceKey);
+        if (relationToOneName != null) {
+            joinEntity.addToOne(_relationEntity, relationKey, relationToOneName);
+        } else {
+            joinEntity.addToOne(_relationEntity, relationKey);
+        }
+
+        final ToMany sourceToMany =
+                _sourceEntity.addToMany(joinEntity, sourceKey, _entityRelation.getRelationFieldName());
+        final ToMany relationToMany =
+                _relationEntity.addToMany(joinEntity, relationKey, _entityRelation.getRelationFieldNameToCreate());
+        addToManyFetch(_entityRelation, _sourceEntity, sourceToMany);
+        addToManyFetch(_entityRelation, _relationEntity, relationToMany);
+
+        foreignKeys.add(sourceKey);
+        foreignKeys.add(relationKey);
+        joinEntities.put(_entityRelation, joinEntity);
+    }
+
+    /**
+     * Records the fetch of a to many relation, unless it is lazy.
+     * @throws InvalidEntityRelationException if the source entity has no primary key to fetch by.
+     */
+    private void addToManyFetch(EntityRelation _entityRelation, Entity _sourceEntity, ToMany _toMany)
+            throws InvalidEntityRelationException
+    {
+        if (_entityRelation.getFetchStrategy() == FetchStrategy.LAZY) {
+            return;
+        }
+        if (!hasPrimaryKey(_sourceEntity)) {
+            throw new InvalidEntityRelationException("The " + _entityRelation.getFetchStrategy()
+                    + " fetch of " + _entityRelation.getRelationFieldName()
+                    + " needs a primary key on " + _sourceEntity.getClassName());
+        }
+        addFetch(_sourceEntity, new RelationFetch(null, _toMany, _entityRelation.getFetchStrategy()));
+    }
+
+    /**
+     * Records the fetch of a to one relation, unless it is lazy.
+     * @throws InvalidEntityRelationException if the relation entity has no primary key to fetch by.
+     */
+    private void addToOneFetch(EntityRelation _entityRelation, Entity _sourceEntity, Entity _relationEntity, ToOne _toOne)
+            throws InvalidEntityRelationException
+    {
+        if (_entityRelation.getFetchStrategy() == FetchStrategy.LAZY) {
+            return;
+        }
+        if (!hasPrimaryKey(_relationEntity)) {
+            throw new InvalidEntityRelationException("The " + _entityRelation.getFetchStrategy()
+                    + " fetch of " + _entityRelation.getRelationFieldName()
+                    + " needs a primary key on " + _relationEntity.getClassName());
+        }
+        addFetch(_sourceEntity, new RelationFetch(_toOne, null, _entityRelation.getFetchStrategy()));
+    }
+
+    private void addFetch(Entity _sourceEntity, RelationFetch _relationFetch) {
+        List<RelationFetch> fetches = relationFetches.get(_sourceEntity);
+        if (fetches == null) {
+            fetches = new ArrayList<RelationFetch>();
+            relationFetches.put(_sourceEntity, fetches);
+        }
+        fetches.add(_relationFetch);
+    }
+
+    private static boolean hasPrimaryKey(Entity _entity) {
+        for (Property property : _entity.getProperties()) {
+            if (property.isPrimaryKey()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the relations which are not loaded lazily, by source entity.
+     * @return source greenDao Entity to its relation fetches, in build order.
+     */
+    public Map<Entity, List<RelationFetch>> getRelationFetches() {
+        return Collections.unmodifiableMap(relationFetches);
+    }
+
+    /**
+     * Returns the join entity of a built many to many relation.
+     * @param _entityRelation the many to many relation.
+     * @return the join greenDao Entity, or null if the relation is not a built many to many relation.
+     */
+    public Entity getJoinEntity(EntityRelation _entityRelation) {
+        return joinEntities.get(_entityRelation);
+    }
+
+    /**
+     * Indexes the foreign key properties of the relations built so far, if enabled.
+     * Should be called once the other indexes are added, a foreign key which is the primary key,
+     * or the first property of an index already, is not indexed again.
+     */
+    public void addForeignKeyIndexes() {
+        if (indexForeignKeys) {
+            for (Property foreignKey : foreignKeys) {
+                indexForeignKey(foreignKey);
+            }
+        }
+        foreignKeys.clear();
+    }
+
+    private static void indexForeignKey(Property _foreignKey) {
+        final Entity entity = _foreignKey.getEntity();
+        if (_foreignKey.isPrimaryKey()) {
+            return;
+        }
+
+        for (Index index : entity.getIndexes()) {
+            if (!index.getProperties().isEmpty() && index.getProperties().get(0) == _foreignKey) {
+                return;
+            }
+        }
+
+        final Index index = new Index();
+        index.addProperty(_foreignKey);
+        entity.addIndex(index);
+    }
 }
@@ -2,5 +2,6 @@ package com.greendao_schema_builder.relationship;
 
 public enum EntityRelationType {
     ONE_TO_ONE,
-    ONE_TO_MANY
+    ONE_TO_MANY,
+    MANY_TO_MANY
 }
@@ -0,0 +1,22 @@
+package com.greendao_schema_builder.relationship;
+
+/**
+ * How the related entities of a relation are loaded.
+ */
+public enum FetchStrategy {
+
+    /**
+     * Resolved one entity at a time when accessed, the greenDao default.
+     */
+    LAZY,
+
+    /**
+     * Loaded together with a page of source entities, by a join in the same query.
+     */
+    EAGER_JOIN,
+
+    /**
+     * Loaded for a page of source entities by a second query, over the keys of the page.
+     */
+    BATCHED_IN
+}
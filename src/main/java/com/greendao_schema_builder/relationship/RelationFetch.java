@@ -0,0 +1,55 @@
+package com.greendao_schema_builder.relationship;
+
+import de.greenrobot.daogenerator.ToMany;
+import de.greenrobot.daogenerator.ToOne;
+
+/**
+ * A built greenDao relation, to one or to many, whose related entities are not loaded lazily.
+ * A fetch helper is generated for the source entity of the relation.
+ */
+public class RelationFetch {
+
+    private final ToOne toOne;
+    private final ToMany toMany;
+    private final FetchStrategy fetchStrategy;
+
+    /**
+     * Constructor.
+     * @param _toOne the to one relation, null for a to many relation.
+     * @param _toMany the to many relation, null for a to one relation.
+     * @param _fetchStrategy the fetch strategy.
+     */
+    RelationFetch(ToOne _toOne, ToMany _toMany, FetchStrategy _fetchStrategy) {
+        toOne = _toOne;
+        toMany = _toMany;
+        fetchStrategy = _fetchStrategy;
+    }
+
+    public ToOne getToOne() {
+        return toOne;
+    }
+
+    public ToMany getToMany() {
+        return toMany;
+    }
+
+    public FetchStrategy getFetchStrategy() {
+        return fetchStrategy;
+    }
+
+    /**
+     * Returns the name of the fetch strategy, for the templates.
+     * @return the fetch strategy name.
+     */
+    public String getFetchStrategyName() {
+        return fetchStrategy.name();
+    }
+
+    /**
+     * Returns the name of the relation, once the schema is initialized.
+     * @return the relation name.
+     */
+    public String getName() {
+        return toOne != null ? toOne.getName() : toMany.getName();
+    }
+}
@@ -0,0 +1,93 @@
+package com.greendao_schema_builder.relationship;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The graph of the entity classes, connected by their relations in any direction.
+ */
+public class RelationGraph {
+
+    // Entity class to its index, in the order of the entity classes.
+    private final Map<Class<?>, Integer> indexes;
+
+    // Union find parents, an entity is the root of its component when it is its own parent.
+    private final int[] parents;
+
+    /**
+     * Constructor.
+     * @param _entityClasses the entity classes, the duplicates are ignored.
+     * @param _entityRelations the relations, those with a class which is not an entity class are ignored.
+     */
+    public RelationGraph(Collection<Class<?>> _entityClasses, Collection<EntityRelation> _entityRelations) {
+        indexes = new LinkedHashMap<Class<?>, Integer>();
+        for (Class<?> entityClass : _entityClasses) {
+            if (!indexes.containsKey(entityClass)) {
+                indexes.put(entityClass, indexes.size());
+            }
+        }
+
+        parents = new int[indexes.size()];
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = i;
+        }
+
+        for (EntityRelation relation : _entityRelations) {
+            final Integer source = indexes.get(relation.getSourceEntity());
+            final Integer target = indexes.get(relation.getRelationEntity());
+            if (source != null && target != null) {
+                union(source, target);
+            }
+        }
+    }
+
+    private int find(int _index) {
+        int root = _index;
+        while (parents[root] != root) {
+            root = parents[root];
+        }
+
+        // Compress the path.
+        int index = _index;
+        while (parents[index] != root) {
+            final int parent = parents[index];
+            parents[index] = root;
+            index = parent;
+        }
+        return root;
+    }
+
+    private void union(int _first, int _second) {
+        final int firstRoot = find(_first);
+        final int secondRoot = find(_second);
+
+        // The lower index is the root, so that a component is identified by its first entity.
+        if (firstRoot < secondRoot) {
+            parents[secondRoot] = firstRoot;
+        } else if (secondRoot < firstRoot) {
+            parents[firstRoot] = secondRoot;
+        }
+    }
+
+    /**
+     * Returns the connected components, the entities which are related to each other directly or not.
+     * @return the components, ordered by their first entity, with their entities in the order of the entity classes.
+     */
+    public List<List<Class<?>>> getComponents() {
+        final Map<Integer, List<Class<?>>> components = new LinkedHashMap<Integer, List<Class<?>>>();
+        for (Map.Entry<Class<?>, Integer> entity : indexes.entrySet()) {
+            final int root = find(entity.getValue());
+
+            List<Class<?>> component = components.get(root);
+            if (component == null) {
+                component = new ArrayList<Class<?>>();
+                components.put(root, component);
+            }
+            component.add(entity.getKey());
+        }
+        return new ArrayList<List<Class<?>>>(components.values());
+    }
+}
@@ -0,0 +1,419 @@
+package com.greendao_schema_builder.relationship;
+
+import com.greendao_schema_builder.errors.InvalidRelationGraphException;
+import com.greendao_schema_builder.property.PropertyOptions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Analyses the relations of the entity classes before anything is reflected or built,
+ * so that an invalid configuration fails at once, with all of its problems:
+ * the entities which are missing or share a name, the relations or join entities which are defined twice,
+ * and the foreign keys of the same name which two relations add to an entity, referencing different entities,
+ * or named after the source entity of one of them.
+ * Also orders the entities so that every entity comes after those its foreign keys reference,
+ * the entities of the reference cycles coming last, in the order of their options.
+ */
+public class RelationGraphAnalysis {
+
+    private static final String ID_PROPERTY_POSTFIX = "Code";
+
+    // The entity classes in the order of their options, and their entity names.
+    private final Map<Class<?>, String> entityNames;
+
+    // Entity name to its class.
+    private final Map<String, Class<?>> entityClasses;
+
+    // Entity name to its index, in the order of the entity classes.
+    private final Map<String, Integer> entityIndexes;
+
+    // The prefix of the entity names of the classes that are not registered, and of the join entities.
+    private final String prefixEntityName;
+
+    private final List<String> problems;
+
+    // Entity index to the indexes of the entities its foreign keys reference.
+    private final List<TreeSet<Integer>> references;
+
+    private final List<Class<?>> entityOrder;
+    private final List<List<Class<?>>> cycles;
+
+    /**
+     * Constructor, runs the analysis.
+     * @param _propertyOptionsList the options of the entities.
+     * @param _entityRelations the relations.
+     * @param _prefixEntityName the prefix of the entity names, for the options without a prefix of their own.
+     */
+    public RelationGraphAnalysis(
+            List<PropertyOptions> _propertyOptionsList,
+            List<EntityRelation> _entityRelations,
+            String _prefixEntityName)
+    {
+        prefixEntityName = _prefixEntityName;
+        entityNames = new LinkedHashMap<Class<?>, String>();
+        entityClasses = new HashMap<String, Class<?>>();
+        entityIndexes = new HashMap<String, Integer>();
+        problems = new ArrayList<String>();
+
+        // An entity class added twice is added once, two classes with the same entity name clash.
+        for (PropertyOptions options : _propertyOptionsList) {
+            final Class<?> entityClass = options.getEntityClass();
+            if (entityNames.containsKey(entityClass)) {
+                continue;
+            }
+            final String entityName = (options.getPrefixEntityName() != null
+                    ? options.getPrefixEntityName() : _prefixEntityName) + entityClass.getSimpleName();
+            final Class<?> clashingClass = entityClasses.get(entityName);
+            if (clashingClass != null) {
+                problems.add("Duplicate entity name " + entityName + ": "
+                        + clashingClass.getName() + " and " + entityClass.getName());
+                continue;
+            }
+            entityIndexes.put(entityName, entityNames.size());
+            entityNames.put(entityClass, entityName);
+            entityClasses.put(entityName, entityClass);
+        }
+
+        references = new ArrayList<TreeSet<Integer>>(entityNames.size());
+        for (int i = 0; i < entityNames.size(); i++) {
+            references.add(new TreeSet<Integer>());
+        }
+
+        analyzeRelations(_entityRelations);
+
+        entityOrder = new ArrayList<Class<?>>(entityNames.size());
+        cycles = new ArrayList<List<Class<?>>>();
+        orderEntities();
+    }
+
+    /**
+     * Finds the entity name of a class, as the relation builder finds its entity.
+     * @param _entityClass the entity class.
+     * @return the entity name, or null if there is no such entity.
+     */
+    private String findEntityName(Class<?> _entityClass) {
+        final String entityName = entityNames.get(_entityClass);
+        if (entityName != null) {
+            return entityName;
+        }
+        final String unregisteredName = prefixEntityName + _entityClass.getSimpleName();
+        return entityClasses.containsKey(unregisteredName) ? unregisteredName : null;
+    }
+
+    private void analyzeRelations(List<EntityRelation> _entityRelations) {
+        // Entity name and relation name to the relation which defines it.
+        final Map<String, EntityRelation> relationNames = new HashMap<String, EntityRelation>();
+
+        // Entity name and foreign key name to the foreign key which a relation adds.
+        final Map<String, ForeignKey> foreignKeys = new HashMap<String, ForeignKey>();
+
+        // Join entity name to the relation which adds it.
+        final Map<String, EntityRelation> joinEntityNames = new HashMap<String, EntityRelation>();
+
+        for (EntityRelation relation : _entityRelations) {
+            final String description = describe(relation);
+            if (relation.getRelationType() == null) {
+                problems.add("No relation type: " + description);
+                continue;
+            }
+            if (relation.getRelationFieldName() == null) {
+                problems.add("No relation field name: " + description);
+                continue;
+            }
+
+            final String sourceName = findEntityName(relation.getSourceEntity());
+            final String targetName = findEntityName(relation.getRelationEntity());
+            if (sourceName == null) {
+                problems.add("No such Source Entity: " + prefixEntityName
+                        + relation.getSourceEntity().getSimpleName() + ", of " + description);
+            }
+            if (targetName == null) {
+                problems.add("No such Relation Entity: " + prefixEntityName
+                        + relation.getRelationEntity().getSimpleName() + ", of " + description);
+            }
+            if (sourceName == null || targetName == null) {
+                continue;
+            }
+
+            // The foreign key of a duplicate relation is the one of the relation it duplicates.
+            if (!addRelationName(relationNames, sourceName, relation.getRelationFieldName(), relation)) {
+                continue;
+            }
+
+            switch (relation.getRelationType()) {
+                case ONE_TO_ONE:
+                    // The source gets a foreign key named as the relation field.
+                    addForeignKey(foreignKeys, new ForeignKey(
+                            sourceName, relation.getRelationFieldName(), targetName, false, relation));
+                    break;
+
+                case ONE_TO_MANY:
+                    // The target gets a foreign key named as the field to create, or after the source entity.
+                    final String fieldNameToCreate = relation.getRelationFieldNameToCreate();
+                    addForeignKey(foreignKeys, new ForeignKey(
+                            targetName,
+                            fieldNameToCreate != null
+                                    ? fieldNameToCreate : sourceName.toLowerCase() + ID_PROPERTY_POSTFIX,
+                            sourceName,
+                            fieldNameToCreate == null,
+                            relation));
+                    break;
+
+                case MANY_TO_MANY:
+                    // The target gets a to many relation named as the field to create, and the keys are on the join entity.
+                    if (relation.getRelationFieldNameToCreate() != null) {
+                        addRelationName(relationNames, targetName, relation.getRelationFieldNameToCreate(), relation);
+                    }
+                    String joinEntityName = relation.getJoinEntityName();
+                    if (joinEntityName == null) {
+                        joinEntityName = prefixEntityName + relation.getSourceEntity().getSimpleName()
+                                + relation.getRelationEntity().getSimpleName();
+                    }
+                    final EntityRelation joinRelation = joinEntityNames.get(joinEntityName);
+                    if (joinRelation != null) {
+                        problems.add("Duplicate join entity " + joinEntityName + ": "
+                                + describe(joinRelation) + " and " + description);
+                    } else if (entityClasses.containsKey(joinEntityName)) {
+                        problems.add("The join entity name " + joinEntityName + " of " + description
+                                + " is the name of " + entityClasses.get(joinEntityName).getName());
+                    } else {
+                        joinEntityNames.put(joinEntityName, relation);
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Adds the name of a relation on an entity.
+     * @return false if another relation has the same name on the entity.
+     */
+    private boolean addRelationName(
+            Map<String, EntityRelation> _relationNames,
+            String _entityName,
+            String _relationName,
+            EntityRelation _relation)
+    {
+        final String key = _entityName + "." + _relationName;
+        final EntityRelation definedRelation = _relationNames.get(key);
+        if (definedRelation == null) {
+            _relationNames.put(key, _relation);
+            return true;
+        }
+        if (definedRelation != _relation) {
+            problems.add("Duplicate relation " + key + ": "
+                    + describe(definedRelation) + " and " + describe(_relation));
+            return false;
+        }
+        return true;
+    }
+
+    private void addForeignKey(Map<String, ForeignKey> _foreignKeys, ForeignKey _foreignKey) {
+        final String key = _foreignKey.entityName + "." + _foreignKey.name;
+        final ForeignKey addedForeignKey = _foreignKeys.get(key);
+        if (addedForeignKey == null) {
+            _foreignKeys.put(key, _foreignKey);
+        } else if (!addedForeignKey.referencedName.equals(_foreignKey.referencedName)) {
+            problems.add("Conflicting foreign key " + key + ": references " + addedForeignKey.referencedName
+                    + " for " + describe(addedForeignKey.relation)
+                    + " and " + _foreignKey.referencedName + " for " + describe(_foreignKey.relation));
+        } else if (addedForeignKey.created || _foreignKey.created) {
+            // A key named after the source entity is always added, so it is added twice.
+            problems.add("Conflicting foreign key " + key + ": added by "
+                    + describe(addedForeignKey.relation) + " and " + describe(_foreignKey.relation));
+        }
+        // Otherwise the second relation reuses the key of the first one, like the relation builder does.
+
+        references.get(entityIndexes.get(_foreignKey.entityName)).add(entityIndexes.get(_foreignKey.referencedName));
+    }
+
+    private static String describe(EntityRelation _relation) {
+        return _relation.getRelationType() + " " + _relation.getSourceEntity().getSimpleName()
+                + "." + _relation.getRelationFieldName()
+                + " -> " + _relation.getRelationEntity().getSimpleName();
+    }
+
+    /**
+     * Orders the entities after those they reference, the first entity in options order first,
+     * then finds the reference cycles among those left, which are ordered last.
+     */
+    private void orderEntities() {
+        final List<Class<?>> classes = new ArrayList<Class<?>>(entityNames.keySet());
+        final int entityCount = classes.size();
+
+        // Entity index to the number of the entities it references, and to the entities referencing it.
+        final int[] pendingReferences = new int[entityCount];
+        final List<List<Integer>> referencedBy = new ArrayList<List<Integer>>(entityCount);
+        for (int i = 0; i < entityCount; i++) {
+            referencedBy.add(new ArrayList<Integer>());
+        }
+        for (int i = 0; i < entityCount; i++) {
+            for (Integer referenced : references.get(i)) {
+                pendingReferences[i]++;
+                referencedBy.get(referenced).add(i);
+            }
+        }
+
+        final TreeSet<Integer> ready = new TreeSet<Integer>();
+        for (int i = 0; i < entityCount; i++) {
+            if (pendingReferences[i] == 0) {
+                ready.add(i);
+            }
+        }
+        final boolean[] ordered = new boolean[entityCount];
+        while (!ready.isEmpty()) {
+            final int index = ready.pollFirst();
+            ordered[index] = true;
+            entityOrder.add(classes.get(index));
+            for (Integer referencing : referencedBy.get(index)) {
+                if (--pendingReferences[referencing] == 0) {
+                    ready.add(referencing);
+                }
+            }
+        }
+
+        // The entities left are in cycles, or reference one.
+        final List<Integer> left = new ArrayList<Integer>();
+        for (int i = 0; i < entityCount; i++) {
+            if (!ordered[i]) {
+                left.add(i);
+                entityOrder.add(classes.get(i));
+            }
+        }
+        if (!left.isEmpty()) {
+            new CycleFinder(classes, ordered).find(left);
+        }
+    }
+
+    /**
+     * Finds the strongly connected components of the entities left, with Tarjan's algorithm,
+     * those with more than one entity, or with an entity referencing itself, are cycles.
+     */
+    private class CycleFinder {
+        private final List<Class<?>> classes;
+        private final boolean[] excluded;
+        private final int[] indexes;
+        private final int[] lowLinks;
+        private final boolean[] onStack;
+        private final List<Integer> stack;
+        private int nextIndex;
+
+        CycleFinder(List<Class<?>> _classes, boolean[] _excluded) {
+            classes = _classes;
+            excluded = _excluded;
+            indexes = new int[_classes.size()];
+            lowLinks = new int[_classes.size()];
+            onStack = new boolean[_classes.size()];
+            stack = new ArrayList<Integer>();
+            Arrays.fill(indexes, -1);
+        }
+
+        void find(List<Integer> _entities) {
+            for (Integer entity : _entities) {
+                if (indexes[entity] < 0) {
+                    connect(entity);
+                }
+            }
+        }
+
+        private void connect(int _entity) {
+            indexes[_entity] = nextIndex;
+            lowLinks[_entity] = nextIndex;
+            nextIndex++;
+            stack.add(_entity);
+            onStack[_entity] = true;
+
+            for (Integer referenced : references.get(_entity)) {
+                if (excluded[referenced]) {
+                    continue;
+                }
+                if (indexes[referenced] < 0) {
+                    connect(referenced);
+                    lowLinks[_entity] = Math.min(lowLinks[_entity], lowLinks[referenced]);
+                } else if (onStack[referenced]) {
+                    lowLinks[_entity] = Math.min(lowLinks[_entity], indexes[referenced]);
+                }
+            }
+
+            if (lowLinks[_entity] == indexes[_entity]) {
+                final TreeSet<Integer> component = new TreeSet<Integer>();
+                int member;
+                do {
+                    member = stack.remove(stack.size() - 1);
+                    onStack[member] = false;
+                    component.add(member);
+                } while (member != _entity);
+
+                if (component.size() > 1 || references.get(_entity).contains(_entity)) {
+                    final List<Class<?>> cycle = new ArrayList<Class<?>>(component.size());
+                    for (Integer index : component) {
+                        cycle.add(classes.get(index));
+                    }
+                    cycles.add(cycle);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the problems of the relations.
+     * @return the problems, in the order of the relations, empty if the relations can be built.
+     */
+    public List<String> getProblems() {
+        return Collections.unmodifiableList(problems);
+    }
+
+    /**
+     * Throws if the relations have problems.
+     * @throws InvalidRelationGraphException with all the problems.
+     */
+    public void check() throws InvalidRelationGraphException {
+        if (!problems.isEmpty()) {
+            throw new InvalidRelationGraphException(problems);
+        }
+    }
+
+    /**
+     * Returns the entity classes, every one after those its foreign keys reference,
+     * in the order of their options otherwise, the entities of the cycles or referencing one last.
+     * @return the entity classes.
+     */
+    public List<Class<?>> getEntityOrder() {
+        return Collections.unmodifiableList(entityOrder);
+    }
+
+    /**
+     * Returns the reference cycles, which SQLite allows, but which no order of the entities can satisfy.
+     * @return the cycles, with their entities in the order of their options, a self reference is a cycle.
+     */
+    public List<List<Class<?>>> getCycles() {
+        return Collections.unmodifiableList(cycles);
+    }
+
+    /**
+     * A foreign key which a relation adds to an entity.
+     */
+    private static class ForeignKey {
+        private final String entityName;
+        private final String name;
+        private final String referencedName;
+        // Whether the key is named after the source entity, and always added instead of reusing a property.
+        private final boolean created;
+        private final EntityRelation relation;
+
+        ForeignKey(String _entityName, String _name, String _referencedName, boolean _created, EntityRelation _relation) {
+            entityName = _entityName;
+            name = _name;
+            referencedName = _referencedName;
+            created = _created;
+            relation = _relation;
+        }
+    }
+}
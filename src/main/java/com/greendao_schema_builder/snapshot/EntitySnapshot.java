@@ -0,0 +1,364 @@
+package com.greendao_schema_builder.snapshot;
+
+import com.greendao_schema_builder.generator.EntityFingerprint;
+import com.greendao_schema_builder.property.EntityDefinition;
+import com.greendao_schema_builder.property.PropertyDefinition;
+import com.greendao_schema_builder.utils.ClassMetadata;
+import com.greendao_schema_builder.utils.ClassMetadataCache;
+import de.greenrobot.daogenerator.PropertyType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A binary snapshot of the resolved entities, in order to skip the reflection over the unchanged entity classes.
+ *
+ * An entity is keyed by the hash of the class files it was resolved from,
+ * its class, super classes and the non JDK types of its fields, and by the hash of the resolution configuration.
+ * The class files are read as resources of the entity class loader, without reflection.
+ * The snapshot is read through a memory mapping.
+ */
+public class EntitySnapshot {
+
+    private static final int MAGIC = 0x47445353;
+    private static final int VERSION = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String CLASS_FILE_EXTENSION = ".class";
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+
+    // The snapshot file.
+    private final File file;
+
+    // Entity class name to entry, as loaded and as resolved since.
+    private final Map<String, Entry> entries;
+
+    // The entity class names which were looked up or resolved, the others are not saved again.
+    private final Set<String> usedEntries;
+
+    private EntitySnapshot(File _file) {
+        file = _file;
+        entries = new ConcurrentHashMap<String, Entry>();
+        usedEntries = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    }
+
+    /**
+     * Loads a snapshot, it is empty if the file does not exist, is not a snapshot of this version,
+     * or is truncated or corrupt.
+     * @param _file the snapshot file.
+     * @return the snapshot.
+     * @throws IOException
+     */
+    public static EntitySnapshot load(File _file) throws IOException {
+        final EntitySnapshot snapshot = new EntitySnapshot(_file);
+        if (!_file.isFile() || _file.length() == 0) {
+            return snapshot;
+        }
+
+        final FileChannel channel = FileChannel.open(_file.toPath(), StandardOpenOption.READ);
+        try {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return snapshot;
+            }
+
+            final int entryCount = readCount(buffer);
+            for (int i = 0; i < entryCount; i++) {
+                final Entry entry = Entry.read(buffer);
+                snapshot.entries.put(entry.className, entry);
+            }
+        } catch (BufferUnderflowException e) {
+            // A truncated snapshot, the entities are resolved again and the snapshot is written again.
+            return new EntitySnapshot(_file);
+        } catch (IllegalArgumentException e) {
+            // A corrupt snapshot.
+            return new EntitySnapshot(_file);
+        } finally {
+            channel.close();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the resolved entity of a class, if its class files and the configuration did not change.
+     * @param _entityClass the entity class.
+     * @param _configurationHash the hash of the resolution configuration.
+     * @return the resolved entity, or null if it has to be resolved again.
+     * @throws IOException
+     */
+    public EntityDefinition get(Class<?> _entityClass, String _configurationHash) throws IOException {
+        final Entry entry = entries.get(_entityClass.getName());
+        if (entry == null) {
+            return null;
+        }
+
+        final String key = computeKey(_entityClass.getClassLoader(), entry.dependencies, _configurationHash);
+        if (!entry.key.equals(key)) {
+            return null;
+        }
+
+        usedEntries.add(entry.className);
+        return entry.toEntityDefinition(_entityClass);
+    }
+
+    /**
+     * Adds a resolved entity to the snapshot.
+     * The class files of the entity are hashed now, if one of them is not found the entity is not added.
+     * @param _entityDefinition the resolved entity.
+     * @param _configurationHash the hash of the resolution configuration.
+     * @throws IOException
+     */
+    public void put(EntityDefinition _entityDefinition, String _configurationHash) throws IOException {
+        final Class<?> entityClass = _entityDefinition.getEntityClass();
+        final List<String> dependencies = findDependencies(entityClass);
+
+        final String key = computeKey(entityClass.getClassLoader(), dependencies, _configurationHash);
+        if (key == null) {
+            return;
+        }
+
+        entries.put(entityClass.getName(), new Entry(entityClass.getName(), key, dependencies, _entityDefinition));
+        usedEntries.add(entityClass.getName());
+    }
+
+    /**
+     * Writes the entries which were used by this run, sorted by class name, only if the snapshot changed.
+     * The snapshot is written to a temporary file next to it first, then renamed over it,
+     * so that an interrupted run does not leave a truncated snapshot.
+     * @throws IOException
+     */
+    public void save() throws IOException {
+        final Map<String, Entry> sortedEntries = new TreeMap<String, Entry>();
+        for (String className : usedEntries) {
+            sortedEntries.put(className, entries.get(className));
+        }
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(sortedEntries.size());
+        for (Entry entry : sortedEntries.values()) {
+            entry.write(out);
+        }
+        out.flush();
+
+        final byte[] contents = bytes.toByteArray();
+        if (!file.isFile() || !Arrays.equals(Files.readAllBytes(file.toPath()), contents)) {
+            final File tempFile = new File(
+                    file.getAbsoluteFile().getParentFile(), "." + file.getName() + TEMP_FILE_EXTENSION);
+            Files.write(tempFile.toPath(), contents);
+            try {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    /**
+     * Returns the classes whose class files an entity is resolved from:
+     * the entity class, its super classes and the types of its fields, except the JDK classes.
+     */
+    private static List<String> findDependencies(Class<?> _entityClass) {
+        final Set<String> dependencies = new LinkedHashSet<String>();
+        for (Class<?> cls = _entityClass; cls != null && cls.getClassLoader() != null; cls = cls.getSuperclass()) {
+            dependencies.add(cls.getName());
+        }
+
+        final ClassMetadata metadata = ClassMetadataCache.get(_entityClass);
+        for (int i = 0; i < metadata.getFieldCount(); i++) {
+            Class<?> fieldType = metadata.getFieldType(i);
+            while (fieldType.isArray()) {
+                fieldType = fieldType.getComponentType();
+            }
+            if (fieldType.getClassLoader() != null) {
+                dependencies.add(fieldType.getName());
+            }
+        }
+        return new ArrayList<String>(dependencies);
+    }
+
+    /**
+     * Hashes the class files of the dependencies together with the configuration.
+     * @return the key, or null if a class file is not found.
+     */
+    private static String computeKey(ClassLoader _classLoader, List<String> _dependencies, String _configurationHash)
+            throws IOException
+    {
+        if (_classLoader == null) {
+            return null;
+        }
+
+        final StringBuilder key = new StringBuilder(_configurationHash);
+        for (String dependency : _dependencies) {
+            final InputStream in = _classLoader.getResourceAsStream(dependency.replace('.', '/') + CLASS_FILE_EXTENSION);
+            if (in == null) {
+                return null;
+            }
+            try {
+                key.append('\n').append(dependency).append('=').append(EntityFingerprint.digest(readAll(in)));
+            } finally {
+                in.close();
+            }
+        }
+        return EntityFingerprint.digest(key.toString());
+    }
+
+    private static byte[] readAll(InputStream _in) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = _in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream _out, String _value) throws IOException {
+        final byte[] bytes = _value.getBytes(UTF_8);
+        _out.writeInt(bytes.length);
+        _out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer _buffer) {
+        final byte[] bytes = new byte[readCount(_buffer)];
+        _buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Reads a count of bytes or elements, which can not be more than the bytes left.
+     * @throws IllegalArgumentException if the count is not valid.
+     */
+    private static int readCount(ByteBuffer _buffer) {
+        final int count = _buffer.getInt();
+        if (count < 0 || count > _buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid count " + count + " in the snapshot.");
+        }
+        return count;
+    }
+
+    /**
+     * A resolved entity of the snapshot.
+     */
+    private static class Entry {
+        private final String className;
+        private final String key;
+        private final List<String> dependencies;
+        private final List<PropertyDefinition> properties;
+        private final List<String> unsupportedFields;
+        private final int reflectedFieldCount;
+        private final int filteredFieldCount;
+
+        Entry(String _className, String _key, List<String> _dependencies, EntityDefinition _entityDefinition) {
+            this(_className, _key, _dependencies,
+                    _entityDefinition.getProperties(),
+                    _entityDefinition.getUnsupportedFields(),
+                    _entityDefinition.getReflectedFieldCount(),
+                    _entityDefinition.getFilteredFieldCount());
+        }
+
+        Entry(
+                String _className,
+                String _key,
+                List<String> _dependencies,
+                List<PropertyDefinition> _properties,
+                List<String> _unsupportedFields,
+                int _reflectedFieldCount,
+                int _filteredFieldCount)
+        {
+            className = _className;
+            key = _key;
+            dependencies = _dependencies;
+            properties = _properties;
+            unsupportedFields = _unsupportedFields;
+            reflectedFieldCount = _reflectedFieldCount;
+            filteredFieldCount = _filteredFieldCount;
+        }
+
+        EntityDefinition toEntityDefinition(Class<?> _entityClass) {
+            return new EntityDefinition(
+                    _entityClass,
+                    properties,
+                    unsupportedFields,
+                    reflectedFieldCount,
+                    filteredFieldCount);
+        }
+
+        void write(DataOutputStream _out) throws IOException {
+            writeString(_out, className);
+            writeString(_out, key);
+
+            _out.writeInt(dependencies.size());
+            for (String dependency : dependencies) {
+                writeString(_out, dependency);
+            }
+
+            _out.writeInt(properties.size());
+            for (PropertyDefinition property : properties) {
+                writeString(_out, property.getPropertyType().name());
+                writeString(_out, property.getPropertyName());
+                _out.writeBoolean(property.isPrimaryKey());
+            }
+
+            _out.writeInt(unsupportedFields.size());
+            for (String unsupportedField : unsupportedFields) {
+                writeString(_out, unsupportedField);
+            }
+
+            _out.writeInt(reflectedFieldCount);
+            _out.writeInt(filteredFieldCount);
+        }
+
+        static Entry read(ByteBuffer _buffer) {
+            final String className = readString(_buffer);
+            final String key = readString(_buffer);
+
+            final int dependencyCount = readCount(_buffer);
+            final List<String> dependencies = new ArrayList<String>(dependencyCount);
+            for (int i = 0; i < dependencyCount; i++) {
+                dependencies.add(readString(_buffer));
+            }
+
+            final int propertyCount = readCount(_buffer);
+            final List<PropertyDefinition> properties = new ArrayList<PropertyDefinition>(propertyCount);
+            for (int i = 0; i < propertyCount; i++) {
+                final PropertyType propertyType = PropertyType.valueOf(readString(_buffer));
+                final String propertyName = readString(_buffer);
+                properties.add(new PropertyDefinition(propertyType, propertyName, _buffer.get() != 0));
+            }
+
+            final int unsupportedFieldCount = readCount(_buffer);
+            final List<String> unsupportedFields = new ArrayList<String>(unsupportedFieldCount);
+            for (int i = 0; i < unsupportedFieldCount; i++) {
+                unsupportedFields.add(readString(_buffer));
+            }
+
+            final int reflectedFieldCount = _buffer.getInt();
+            final int filteredFieldCount = _buffer.getInt();
+            return new Entry(className, key, dependencies, properties, unsupportedFields,
+                    reflectedFieldCount, filteredFieldCount);
+        }
+    }
+}
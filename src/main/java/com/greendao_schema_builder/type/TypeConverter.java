@@ -0,0 +1,17 @@
+package com.greendao_schema_builder.type;
+
+import de.greenrobot.daogenerator.PropertyType;
+
+/**
+ * Maps the field types that are not in the type table of a {@link TypeMapper} to a greenDao property type,
+ * e.g. all the subclasses of a type.
+ */
+public interface TypeConverter {
+
+    /**
+     * Returns the greenDao property type which a field type will be stored as.
+     * @param _fieldType the field type.
+     * @return the property type, or null if this converter does not handle the type.
+     */
+    PropertyType toPropertyType(Class<?> _fieldType);
+}
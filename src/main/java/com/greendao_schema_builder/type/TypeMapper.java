@@ -0,0 +1,145 @@
+package com.greendao_schema_builder.type;
+
+import de.greenrobot.daogenerator.PropertyType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maps field types to greenDao property types.
+ * The supported types are kept in a precomputed identity table,
+ * which covers the primitive and boxed types, String, Date, byte[],
+ * and besides it all the enums (as Strings) and the subclasses of Date.
+ * Custom types are registered to the table, or resolved by registered converters, e.g.
+ * <pre>
+ * typeMapper.register(BigDecimal.class, PropertyType.String);
+ * typeMapper.register(UUID.class, PropertyType.String);
+ * typeMapper.register(Instant.class, PropertyType.Long);
+ * </pre>
+ */
+public class TypeMapper {
+
+    // The types that are supported by greenDao.
+    private static final Map<Class<?>, PropertyType> DEFAULT_TYPES = createDefaultTypes();
+
+    // Field type to property type.
+    private final Map<Class<?>, PropertyType> types;
+
+    // The converters of the types that are not in the table, in registration order.
+    private final List<TypeConverter> converters;
+
+    /**
+     * Constructor, with the default greenDao types.
+     */
+    public TypeMapper() {
+        types = new IdentityHashMap<Class<?>, PropertyType>(DEFAULT_TYPES);
+        converters = new ArrayList<TypeConverter>();
+    }
+
+    /**
+     * Copy constructor, later registrations to either mapper do not change the other.
+     * @param _typeMapper the mapper to be copied.
+     */
+    public TypeMapper(TypeMapper _typeMapper) {
+        types = new IdentityHashMap<Class<?>, PropertyType>(_typeMapper.types);
+        converters = new ArrayList<TypeConverter>(_typeMapper.converters);
+    }
+
+    private static Map<Class<?>, PropertyType> createDefaultTypes() {
+        final Map<Class<?>, PropertyType> defaultTypes = new IdentityHashMap<Class<?>, PropertyType>();
+
+        defaultTypes.put(Byte.class, PropertyType.Byte);
+        defaultTypes.put(byte.class, PropertyType.Byte);
+        defaultTypes.put(Short.class, PropertyType.Short);
+        defaultTypes.put(short.class, PropertyType.Short);
+        defaultTypes.put(Integer.class, PropertyType.Int);
+        defaultTypes.put(int.class, PropertyType.Int);
+        defaultTypes.put(Long.class, PropertyType.Long);
+        defaultTypes.put(long.class, PropertyType.Long);
+        defaultTypes.put(Boolean.class, PropertyType.Boolean);
+        defaultTypes.put(boolean.class, PropertyType.Boolean);
+        defaultTypes.put(Float.class, PropertyType.Float);
+        defaultTypes.put(float.class, PropertyType.Float);
+        defaultTypes.put(Double.class, PropertyType.Double);
+        defaultTypes.put(double.class, PropertyType.Double);
+        defaultTypes.put(String.class, PropertyType.String);
+        defaultTypes.put(Date.class, PropertyType.Date);
+        defaultTypes.put(byte[].class, PropertyType.ByteArray);
+
+        return Collections.unmodifiableMap(defaultTypes);
+    }
+
+    /**
+     * Registers the property type which a field type will be stored as.
+     * @param _fieldType the field type.
+     * @param _propertyType the property type.
+     */
+    public void register(Class<?> _fieldType, PropertyType _propertyType) {
+        types.put(_fieldType, _propertyType);
+    }
+
+    /**
+     * Registers a converter, for the types that are not in the table.
+     * @param _converter the converter.
+     */
+    public void register(TypeConverter _converter) {
+        converters.add(_converter);
+    }
+
+    /**
+     * Describes the registered types and converters, in order to detect a configuration change.
+     * @return the description, stable for the same registrations.
+     */
+    public String getConfiguration() {
+        final Map<String, PropertyType> registeredTypes = new TreeMap<String, PropertyType>();
+        for (Map.Entry<Class<?>, PropertyType> type : types.entrySet()) {
+            if (DEFAULT_TYPES.get(type.getKey()) != type.getValue()) {
+                registeredTypes.put(type.getKey().getName(), type.getValue());
+            }
+        }
+
+        final StringBuilder configuration = new StringBuilder();
+        for (Map.Entry<String, PropertyType> type : registeredTypes.entrySet()) {
+            configuration.append(type.getKey()).append('=').append(type.getValue()).append('\n');
+        }
+        for (TypeConverter converter : converters) {
+            configuration.append(converter.getClass().getName()).append('\n');
+        }
+        return configuration.toString();
+    }
+
+    /**
+     * Maps a field type to a greenDao property type.
+     * @param _fieldType the field type.
+     * @return the property type, or null if the type is not supported.
+     */
+    public PropertyType map(Class<?> _fieldType) {
+        final PropertyType propertyType = types.get(_fieldType);
+        if (propertyType != null) {
+            return propertyType;
+        }
+
+        // Convert the Enums to Strings.
+        if (_fieldType.isEnum()) {
+            return PropertyType.String;
+        }
+
+        // java.sql.Date, Timestamp and the like.
+        if (Date.class.isAssignableFrom(_fieldType)) {
+            return PropertyType.Date;
+        }
+
+        for (TypeConverter converter : converters) {
+            final PropertyType convertedType = converter.toPropertyType(_fieldType);
+            if (convertedType != null) {
+                return convertedType;
+            }
+        }
+        return null;
+    }
+}
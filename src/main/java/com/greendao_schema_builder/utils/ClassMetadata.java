@@ -0,0 +1,111 @@
+package com.greendao_schema_builder.utils;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The reflected fields of a class, included those of it's super classes,
+ * together with their types.
+ * Built once per class by the {@link ClassMetadataCache}.
+ */
+public class ClassMetadata {
+
+    // An empty metadata, for the top of the hierarchy.
+    static final ClassMetadata EMPTY = new ClassMetadata(new Field[0], new Class<?>[0]);
+
+    // The fields of the class first, then those of it's super classes.
+    private final Field[] fields;
+
+    // The type of every field.
+    private final Class<?>[] fieldTypes;
+
+    // The unmodifiable view of the fields.
+    private final List<Field> fieldList;
+
+    // Lower case field name to the index of the first field with that name.
+    private final Map<String, Integer> fieldIndexes;
+
+    private ClassMetadata(Field[] _fields, Class<?>[] _fieldTypes) {
+        fields = _fields;
+        fieldTypes = _fieldTypes;
+        fieldList = Collections.unmodifiableList(Arrays.asList(_fields));
+
+        fieldIndexes = new HashMap<String, Integer>();
+        for (int i = _fields.length - 1; i >= 0; i--) {
+            fieldIndexes.put(_fields[i].getName().toLowerCase(Locale.ENGLISH), i);
+        }
+    }
+
+    /**
+     * Builds the metadata of a class on top of the metadata of it's super class.
+     * @param _class the class.
+     * @param _superMetadata the metadata of the super class.
+     * @return the metadata.
+     */
+    static ClassMetadata build(Class<?> _class, ClassMetadata _superMetadata) {
+        final Field[] declaredFields = _class.getDeclaredFields();
+        final int superFieldCount = _superMetadata.fields.length;
+
+        final Field[] fields = new Field[declaredFields.length + superFieldCount];
+        System.arraycopy(declaredFields, 0, fields, 0, declaredFields.length);
+        System.arraycopy(_superMetadata.fields, 0, fields, declaredFields.length, superFieldCount);
+
+        // Read the types of the declared fields only, the super class segment is already read.
+        final Class<?>[] fieldTypes = new Class<?>[fields.length];
+        for (int i = 0; i < declaredFields.length; i++) {
+            fieldTypes[i] = declaredFields[i].getType();
+        }
+        System.arraycopy(_superMetadata.fieldTypes, 0, fieldTypes, declaredFields.length, superFieldCount);
+
+        return new ClassMetadata(fields, fieldTypes);
+    }
+
+    /**
+     * Returns the fields, those of the class first, then those of it's super classes.
+     * @return the unmodifiable fields.
+     */
+    public List<Field> getFields() {
+        return fieldList;
+    }
+
+    /**
+     * Returns the number of fields.
+     * @return the number of fields.
+     */
+    public int getFieldCount() {
+        return fields.length;
+    }
+
+    /**
+     * Returns a field.
+     * @param _index the field index.
+     * @return the field.
+     */
+    public Field getField(int _index) {
+        return fields[_index];
+    }
+
+    /**
+     * Returns the type of a field.
+     * @param _index the field index.
+     * @return the field type.
+     */
+    public Class<?> getFieldType(int _index) {
+        return fieldTypes[_index];
+    }
+
+    /**
+     * Returns the index of the primary key field, matching it's name ignoring case.
+     * @param _primaryKeyName the primary key field name.
+     * @return the field index, or -1 if there is no such field.
+     */
+    public int getPrimaryKeyIndex(String _primaryKeyName) {
+        final Integer index = fieldIndexes.get(_primaryKeyName.toLowerCase(Locale.ENGLISH));
+        return index != null ? index : -1;
+    }
+}
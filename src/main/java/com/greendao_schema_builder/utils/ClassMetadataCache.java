@@ -0,0 +1,54 @@
+package com.greendao_schema_builder.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the {@link ClassMetadata} of every class, so that every class is reflected once,
+ * and the shared super classes of the model are reflected once for all their subclasses.
+ * Backed by a ClassValue, so it is thread safe and does not keep the classes from being unloaded.
+ */
+public class ClassMetadataCache {
+
+    private static final AtomicLong lookups = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private static final ClassValue<ClassMetadata> metadata = new ClassValue<ClassMetadata>() {
+        @Override
+        protected ClassMetadata computeValue(Class<?> _class) {
+            misses.incrementAndGet();
+
+            final Class<?> superClass = _class.getSuperclass();
+            final ClassMetadata superMetadata = superClass != null ? get(superClass) : ClassMetadata.EMPTY;
+            return ClassMetadata.build(_class, superMetadata);
+        }
+    };
+
+    private ClassMetadataCache() {
+    }
+
+    /**
+     * Returns the metadata of a class, reflecting over it on the first call.
+     * @param _class the class.
+     * @return the metadata.
+     */
+    public static ClassMetadata get(Class<?> _class) {
+        lookups.incrementAndGet();
+        return metadata.get(_class);
+    }
+
+    /**
+     * Returns the number of lookups that found the metadata in the cache.
+     * @return the hit count.
+     */
+    public static long getHitCount() {
+        return lookups.get() - misses.get();
+    }
+
+    /**
+     * Returns the number of lookups that had to reflect over the class.
+     * @return the miss count.
+     */
+    public static long getMissCount() {
+        return misses.get();
+    }
+}
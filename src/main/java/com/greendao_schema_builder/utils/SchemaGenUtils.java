@@ -2,6 +2,7 @@ package com.greendao_schema_builder.utils;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
+import java.util.List;
 
 /**
  * Util functions.
@@ -33,10 +34,17 @@ public class SchemaGenUtils {
      * @return all the fields of the class included those of it's super classes.
      */
     public static Field[] getSuperFieldsRecursively(Class<?> _class, Field[] _fields) {
-        if (_class != null) {
-            _fields = concatenateArrays(_fields, _class.getDeclaredFields());
-            return getSuperFieldsRecursively(_class.getSuperclass(), _fields);
+        if (_class == null) {
+            return _fields;
         }
-        return _fields;
+
+        // The fields of the hierarchy are cached, so only the result is allocated.
+        final List<Field> classFields = ClassMetadataCache.get(_class).getFields();
+        final Field[] allFields = new Field[_fields.length + classFields.size()];
+        System.arraycopy(_fields, 0, allFields, 0, _fields.length);
+        for (int i = 0; i < classFields.size(); i++) {
+            allFields[_fields.length + i] = classFields.get(i);
+        }
+        return allFields;
     }
 }
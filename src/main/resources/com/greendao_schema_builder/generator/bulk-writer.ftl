@@ -0,0 +1,104 @@
+<#--
+Bulk writer of an entity, next to its Dao.
+Writes many entities through one compiled statement in one transaction, binding their columns through the Dao.
+-->
+<#assign columns = "">
+<#assign placeholders = "">
+<#list entity.properties as property>
+<#if property_index != 0><#assign columns = columns + ","><#assign placeholders = placeholders + ","></#if>
+<#assign columns = columns + "\"" + property.columnName + "\"">
+<#assign placeholders = placeholders + "?">
+</#list>
+<#assign insertColumns = " INTO \"" + entity.tableName + "\" (" + columns + ") VALUES (" + placeholders + ")">
+<#-- The parameters are numbered after the column order, so that the Dao binds the update like an insert. -->
+<#assign hasUpsert = entity.pkProperty?? && (entity.properties?size > 1)>
+<#if hasUpsert>
+<#assign assignments = "">
+<#list entity.properties as property>
+<#if !property.primaryKey>
+<#if assignments != ""><#assign assignments = assignments + ","></#if>
+<#assign assignments = assignments + "\"" + property.columnName + "\"=?" + (property_index + 1)?c>
+</#if>
+</#list>
+<#assign updateSql = "UPDATE \"" + entity.tableName + "\" SET " + assignments
+        + " WHERE \"" + entity.pkProperty.columnName + "\"=?" + (entity.properties?seq_index_of(entity.pkProperty) + 1)?c>
+</#if>
+<#assign setsKey = entity.pkProperty?? && entity.pkProperty.propertyType == "Long">
+package ${entity.javaPackageDao};
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import ${entity.javaPackage}.${entity.className};
+
+// THIS CODE IS GENERATED BY THE SCHEMA BUILDER, DO NOT EDIT.
+/**
+ * Writes many ${entity.className} at once, through one compiled statement in one transaction.
+ * The columns are bound by the ${entity.classNameDao}, in the order of the properties.
+ * The written entities are not attached to the identity scope of the session.
+ */
+public class ${entity.className}BulkWriter {
+
+    private static final String SQL_INSERT_OR_REPLACE = "INSERT OR REPLACE${insertColumns?j_string}";
+<#if hasUpsert>
+    private static final String SQL_INSERT = "INSERT${insertColumns?j_string}";
+    private static final String SQL_UPDATE = "${updateSql?j_string}";
+</#if>
+
+    private ${entity.className}BulkWriter() {
+    }
+
+    /**
+     * Inserts the entities, replacing the rows which have the same keys.
+     */
+    public static void insertOrReplaceInBatch(${entity.classNameDao} dao, Iterable<${entity.className}> entities) {
+        SQLiteDatabase db = dao.getDatabase();
+        SQLiteStatement insertStatement = db.compileStatement(SQL_INSERT_OR_REPLACE);
+        db.beginTransaction();
+        try {
+            for (${entity.className} entity : entities) {
+                dao.bindValues(insertStatement, entity);
+<#if setsKey>
+                dao.updateKeyAfterInsert(entity, insertStatement.executeInsert());
+<#else>
+                insertStatement.executeInsert();
+</#if>
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insertStatement.close();
+        }
+    }
+<#if hasUpsert>
+
+    /**
+     * Updates the rows of the entities by primary key, and inserts the entities which have no row.
+     * Unlike a replace, the rows are updated in place.
+     */
+    public static void upsertInBatch(${entity.classNameDao} dao, Iterable<${entity.className}> entities) {
+        SQLiteDatabase db = dao.getDatabase();
+        SQLiteStatement updateStatement = db.compileStatement(SQL_UPDATE);
+        SQLiteStatement insertStatement = db.compileStatement(SQL_INSERT);
+        db.beginTransaction();
+        try {
+            for (${entity.className} entity : entities) {
+                dao.bindValues(updateStatement, entity);
+                if (updateStatement.executeUpdateDelete() == 0) {
+                    dao.bindValues(insertStatement, entity);
+<#if setsKey>
+                    dao.updateKeyAfterInsert(entity, insertStatement.executeInsert());
+<#else>
+                    insertStatement.executeInsert();
+</#if>
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            updateStatement.close();
+            insertStatement.close();
+        }
+    }
+</#if>
+}
@@ -0,0 +1,228 @@
+<#--
+Fetch helper of an entity, whose relations are not loaded lazily.
+Loads a page of entities together with their related entities, in one or two queries.
+-->
+<#assign hasBatched = false>
+<#assign hasJoinedToMany = false>
+<#assign hasToMany = false>
+<#list fetches as fetch>
+<#if fetch.fetchStrategyName == "BATCHED_IN"><#assign hasBatched = true></#if>
+<#if fetch.toMany??><#assign hasToMany = true></#if>
+<#if fetch.toMany?? && fetch.fetchStrategyName == "EAGER_JOIN"><#assign hasJoinedToMany = true></#if>
+</#list>
+package ${entity.javaPackageDao};
+
+import java.util.ArrayList;
+<#if hasBatched>
+import java.util.HashMap;
+</#if>
+<#if hasToMany>
+import java.util.LinkedHashMap;
+</#if>
+<#if hasBatched>
+import java.util.LinkedHashSet;
+</#if>
+import java.util.List;
+<#if hasBatched || hasToMany>
+import java.util.Map;
+</#if>
+<#if hasBatched>
+import java.util.Set;
+</#if>
+
+<#if hasJoinedToMany>
+import android.database.Cursor;
+
+</#if>
+<#if entity.javaPackageDao != schema.defaultJavaPackageDao>
+import ${schema.defaultJavaPackageDao}.DaoSession;
+
+</#if>
+import ${entity.javaPackage}.${entity.className};
+<#assign imported = [entity.className]>
+<#list fetches as fetch>
+<#if fetch.toOne??><#assign target = fetch.toOne.targetEntity><#else><#assign target = fetch.toMany.targetEntity></#if>
+<#if !imported?seq_contains(target.className)>
+<#assign imported = imported + [target.className]>
+import ${target.javaPackage}.${target.className};
+<#if target.javaPackageDao != entity.javaPackageDao>
+import ${target.javaPackageDao}.${target.classNameDao};
+</#if>
+</#if>
+</#list>
+
+// THIS CODE IS GENERATED BY THE SCHEMA BUILDER, DO NOT EDIT.
+/**
+ * Loads pages of ${entity.className} ordered by rowid, together with their related entities.
+ */
+public class ${entity.className}Fetcher {
+<#if hasBatched>
+
+    /** The maximum number of keys of an IN query, below the SQLite limit of variables. */
+    private static final int MAX_IN_KEYS = 500;
+</#if>
+
+    private ${entity.className}Fetcher() {
+    }
+<#list fetches as fetch>
+<#if fetch.toOne??>
+<#assign toOne = fetch.toOne>
+<#assign target = toOne.targetEntity>
+<#assign foreignKey = toOne.fkProperties[0]>
+<#if fetch.fetchStrategyName == "EAGER_JOIN">
+
+    /** Loads a page of ${entity.className}, with their to one relations joined in the same query. */
+    public static List<${entity.className}> loadPageWith${toOne.name?cap_first}(DaoSession session, int offset, int limit) {
+        return session.get${entity.classNameDao?cap_first}().queryDeep("ORDER BY T.ROWID LIMIT ? OFFSET ?",
+                String.valueOf(limit), String.valueOf(offset));
+    }
+<#else>
+
+    /** Loads a page of ${entity.className}, with their "${toOne.name}" loaded by a second query over the keys of the page. */
+    public static List<${entity.className}> loadPageWith${toOne.name?cap_first}(DaoSession session, int offset, int limit) {
+        List<${entity.className}> entities = loadPage(session, offset, limit);
+
+        Set<Object> keys = new LinkedHashSet<Object>();
+        for (${entity.className} entity : entities) {
+            Object key = entity.get${foreignKey.propertyName?cap_first}();
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+
+        Map<Object, ${target.className}> targetsByKey = new HashMap<Object, ${target.className}>();
+        List<Object> keyList = new ArrayList<Object>(keys);
+        for (int i = 0; i < keyList.size(); i += MAX_IN_KEYS) {
+            List<${target.className}> targets = session.get${target.classNameDao?cap_first}().queryBuilder()
+                    .where(${target.classNameDao}.Properties.${target.pkProperty.propertyName?cap_first}.in(
+                            keyList.subList(i, Math.min(i + MAX_IN_KEYS, keyList.size()))))
+                    .list();
+            for (${target.className} target : targets) {
+                targetsByKey.put(target.get${target.pkProperty.propertyName?cap_first}(), target);
+            }
+        }
+
+        for (${entity.className} entity : entities) {
+            ${target.className} target = targetsByKey.get(entity.get${foreignKey.propertyName?cap_first}());
+            if (target != null) {
+                entity.set${toOne.name?cap_first}(target);
+            }
+        }
+        return entities;
+    }
+</#if>
+<#else>
+<#assign toMany = fetch.toMany>
+<#assign target = toMany.targetEntity>
+<#assign sourceKey = toMany.sourceProperties[0]>
+<#assign foreignKey = toMany.targetProperties[0]>
+<#if fetch.fetchStrategyName == "EAGER_JOIN">
+
+    /**
+     * Loads a page of ${entity.className}, with their "${toMany.name}" joined in the same query.
+     * The entities are read from the cursor, without the identity scope.
+     */
+    public static Map<${entity.className}, List<${target.className}>> loadPageWith${toMany.name?cap_first}(
+            DaoSession session, int offset, int limit) {
+        ${entity.classNameDao} dao = session.get${entity.classNameDao?cap_first}();
+        ${target.classNameDao} targetDao = session.get${target.classNameDao?cap_first}();
+
+        StringBuilder sql = new StringBuilder("SELECT ");
+        appendColumns(sql, "P", dao.getAllColumns());
+        sql.append(',');
+        appendColumns(sql, "C", targetDao.getAllColumns());
+        sql.append(" FROM (SELECT ROWID AS FETCH_ROWID, * FROM ${entity.tableName} ORDER BY ROWID LIMIT ? OFFSET ?) P");
+        sql.append(" LEFT JOIN ${target.tableName} C ON C.'${foreignKey.columnName}'=P.'${sourceKey.columnName}'");
+        sql.append(" ORDER BY P.FETCH_ROWID");
+
+        Map<${entity.className}, List<${target.className}>> page = new LinkedHashMap<${entity.className}, List<${target.className}>>();
+        Cursor cursor = dao.getDatabase().rawQuery(sql.toString(),
+                new String[] { String.valueOf(limit), String.valueOf(offset) });
+        try {
+            int targetOffset = dao.getAllColumns().length;
+            int foreignKeyColumn = targetOffset + ${foreignKey.ordinal};
+            Object currentKey = null;
+            List<${target.className}> currentTargets = null;
+            while (cursor.moveToNext()) {
+                Object key = dao.readKey(cursor, 0);
+                if (currentTargets == null || (key == null ? currentKey != null : !key.equals(currentKey))) {
+                    ${entity.className} entity = dao.readEntity(cursor, 0);
+<#if entity.active>
+                    entity.__setDaoSession(session);
+</#if>
+                    currentKey = key;
+                    currentTargets = new ArrayList<${target.className}>();
+                    page.put(entity, currentTargets);
+                }
+                if (!cursor.isNull(foreignKeyColumn)) {
+                    ${target.className} target = targetDao.readEntity(cursor, targetOffset);
+<#if target.active>
+                    target.__setDaoSession(session);
+</#if>
+                    currentTargets.add(target);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        return page;
+    }
+<#else>
+
+    /** Loads a page of ${entity.className}, with their "${toMany.name}" loaded by a second query over the keys of the page. */
+    public static Map<${entity.className}, List<${target.className}>> loadPageWith${toMany.name?cap_first}(
+            DaoSession session, int offset, int limit) {
+        List<${entity.className}> entities = loadPage(session, offset, limit);
+
+        Set<Object> keys = new LinkedHashSet<Object>();
+        for (${entity.className} entity : entities) {
+            keys.add(entity.get${sourceKey.propertyName?cap_first}());
+        }
+
+        Map<Object, List<${target.className}>> targetsByKey = new HashMap<Object, List<${target.className}>>();
+        List<Object> keyList = new ArrayList<Object>(keys);
+        for (int i = 0; i < keyList.size(); i += MAX_IN_KEYS) {
+            List<${target.className}> targets = session.get${target.classNameDao?cap_first}().queryBuilder()
+                    .where(${target.classNameDao}.Properties.${foreignKey.propertyName?cap_first}.in(
+                            keyList.subList(i, Math.min(i + MAX_IN_KEYS, keyList.size()))))
+                    .list();
+            for (${target.className} target : targets) {
+                Object key = target.get${foreignKey.propertyName?cap_first}();
+                List<${target.className}> keyTargets = targetsByKey.get(key);
+                if (keyTargets == null) {
+                    keyTargets = new ArrayList<${target.className}>();
+                    targetsByKey.put(key, keyTargets);
+                }
+                keyTargets.add(target);
+            }
+        }
+
+        Map<${entity.className}, List<${target.className}>> page = new LinkedHashMap<${entity.className}, List<${target.className}>>();
+        for (${entity.className} entity : entities) {
+            List<${target.className}> targets = targetsByKey.get(entity.get${sourceKey.propertyName?cap_first}());
+            page.put(entity, targets != null ? targets : new ArrayList<${target.className}>());
+        }
+        return page;
+    }
+</#if>
+</#if>
+</#list>
+<#if hasBatched>
+
+    private static List<${entity.className}> loadPage(DaoSession session, int offset, int limit) {
+        return session.get${entity.classNameDao?cap_first}().queryRaw("ORDER BY T.ROWID LIMIT ? OFFSET ?",
+                String.valueOf(limit), String.valueOf(offset));
+    }
+</#if>
+<#if hasJoinedToMany>
+
+    private static void appendColumns(StringBuilder builder, String tableAlias, String[] columns) {
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(tableAlias).append(".'").append(columns[i]).append('\'');
+        }
+    }
+</#if>
+}
@@ -0,0 +1,54 @@
+<#--
+Open helper of a schema, which migrates the tables of an older schema version step by step, keeping their rows.
+-->
+package ${schema.defaultJavaPackageDao};
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDatabase.CursorFactory;
+import android.util.Log;
+
+// THIS CODE IS GENERATED BY THE SCHEMA BUILDER, DO NOT EDIT.
+/**
+ * Upgrades the tables of an older schema version to the version ${schema.version?c}, keeping their rows.
+ * The tables of a version older than ${firstVersion?c} are dropped and created again.
+ */
+public class MigrationOpenHelper extends DaoMaster.OpenHelper {
+
+    /** The oldest schema version whose tables can be migrated. */
+    public static final int FIRST_VERSION = ${firstVersion?c};
+
+    public MigrationOpenHelper(Context context, String name, CursorFactory factory) {
+        super(context, name, factory);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < FIRST_VERSION) {
+            Log.i("greenDAO", "Upgrading schema from version " + oldVersion + " to " + newVersion + " by dropping all tables");
+            DaoMaster.dropAllTables(db, true);
+            onCreate(db);
+            return;
+        }
+
+        Log.i("greenDAO", "Migrating schema from version " + oldVersion + " to " + newVersion);
+        for (int version = oldVersion + 1; version <= newVersion; version++) {
+            migrateTo(db, version);
+        }
+    }
+
+    /** Migrates the tables from the previous schema version to a version. */
+    private static void migrateTo(SQLiteDatabase db, int version) {
+        switch (version) {
+<#list migrations as migration>
+            case ${migration.version?c}:
+<#list migration.statements as statement>
+                db.execSQL("${statement?j_string}");
+</#list>
+                break;
+</#list>
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+<#--
+Named projections of an entity, next to its Dao.
+A class per projection, and the methods which query and read only its columns.
+-->
+<#assign toCursorType = {"Boolean":"Short", "Byte":"Short", "Short":"Short", "Int":"Int", "Long":"Long", "Float":"Float", "Double":"Double", "String":"String", "ByteArray":"Blob", "Date": "Long" } />
+package ${entity.javaPackageDao};
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.database.Cursor;
+
+// THIS CODE IS GENERATED BY THE SCHEMA BUILDER, DO NOT EDIT.
+/**
+ * The named projections of ${entity.className}, which query only some of its columns without building the entity.
+ */
+public class ${entity.className}Projections {
+<#list projections as projection>
+<#assign columns = "">
+<#list projection.properties as property>
+<#if property_index != 0><#assign columns = columns + ","></#if>
+<#assign columns = columns + "T.\"" + property.columnName + "\"">
+</#list>
+
+    private static final String SQL_SELECT_${projection.className?upper_case} = "${("SELECT " + columns + " FROM \"" + entity.tableName + "\" T ")?j_string}";
+</#list>
+
+    private ${entity.className}Projections() {
+    }
+<#list projections as projection>
+
+    /**
+     * The ${projection.name} projection of ${entity.className}.
+     */
+    public static class ${projection.className} {
+
+<#list projection.properties as property>
+        private final ${property.javaType} ${property.propertyName};
+</#list>
+
+        public ${projection.className}(<#list projection.properties as property>${property.javaType} ${property.propertyName}<#if property_has_next>, </#if></#list>) {
+<#list projection.properties as property>
+            this.${property.propertyName} = ${property.propertyName};
+</#list>
+        }
+<#list projection.properties as property>
+
+        public ${property.javaType} get${property.propertyName?cap_first}() {
+            return ${property.propertyName};
+        }
+</#list>
+    }
+
+    /**
+     * Queries the ${projection.name} projections, the where clause is appended to the select,
+     * and may refer to the columns through the "T" alias, like the queryRaw of the Dao.
+     */
+    public static List<${projection.className}> query${projection.className}(${entity.classNameDao} dao, String where, String... selectionArgs) {
+        Cursor cursor = dao.getDatabase().rawQuery(SQL_SELECT_${projection.className?upper_case} + where, selectionArgs);
+        try {
+            List<${projection.className}> projections = new ArrayList<${projection.className}>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                projections.add(read${projection.className}(cursor, 0));
+            }
+            return projections;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Reads a ${projection.name} projection from the current row of a cursor, its columns starting at an offset.
+     */
+    public static ${projection.className} read${projection.className}(Cursor cursor, int offset) {
+        return new ${projection.className}( //
+<#list projection.properties as property>
+            <#if !property.notNull>cursor.isNull(offset + ${property_index}) ? null : </#if><#if
+            property.propertyType == "Byte">(byte) </#if><#if
+            property.propertyType == "Date">new java.util.Date(</#if>cursor.get${toCursorType[property.propertyType]}(offset + ${property_index})<#if
+            property.propertyType == "Boolean"> != 0</#if><#if
+            property.propertyType == "Date">)</#if><#if property_has_next>, //<#else> //</#if>
+</#list>
+        );
+    }
+</#list>
+}
@@ -0,0 +1,260 @@
+<#--
+Serializer of the embedded fields of an entity.
+Reads and writes a value class or a collection from and to a blob column, or from and to its flattened columns.
+-->
+<#assign boxedTypes = {"Byte": "Byte", "Short": "Short", "Int": "Integer", "Long": "Long",
+        "Boolean": "Boolean", "Float": "Float", "Double": "Double"}>
+<#assign hasBlob = false>
+<#assign serializedTypes = []>
+<#assign serializedTypeNames = []>
+<#assign codecs = []>
+<#list embeddedFields as field>
+<#if field.modeName == "BLOB"><#assign hasBlob = true></#if>
+<#list field.serializedTypes as type>
+<#if !serializedTypeNames?seq_contains(type.methodName)>
+<#assign serializedTypes = serializedTypes + [type]>
+<#assign serializedTypeNames = serializedTypeNames + [type.methodName]>
+</#if>
+</#list>
+<#list field.nullableCodecs as codec>
+<#if !codecs?seq_contains(codec)><#assign codecs = codecs + [codec]></#if>
+</#list>
+</#list>
+<#-- The strings are written as bytes, the enums as strings. -->
+<#assign hasEnum = codecs?seq_contains("Enum")>
+<#assign hasString = hasEnum || codecs?seq_contains("String")>
+<#assign hasBytes = hasString || codecs?seq_contains("Bytes")>
+<#function write type expression>
+<#if type.kindName != "SIMPLE"><#return "write" + type.methodName + "(out, " + expression + ");"></#if>
+<#if type.primitive><#return "out.write" + type.codec + "(" + expression + ");"></#if>
+<#return "writeNullable" + type.codec + "(out, " + expression + ");">
+</#function>
+<#function read type>
+<#if type.kindName != "SIMPLE"><#return "read" + type.methodName + "(in)"></#if>
+<#if type.primitive><#return "in.read" + type.codec + "()"></#if>
+<#if type.codec == "Enum"><#return "readNullableEnum(in, " + type.javaType + ".class)"></#if>
+<#return "readNullable" + type.codec + "(in)">
+</#function>
+<#function assign member expression>
+<#if member.setter??><#return "value." + member.setter + "(" + expression + ");"></#if>
+<#return "value." + member.name + " = " + expression + ";">
+</#function>
+package ${entity.javaPackage};
+
+<#if hasBlob>
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+<#if hasString>
+import java.nio.charset.Charset;
+</#if>
+
+</#if>
+// THIS CODE IS GENERATED BY THE SCHEMA BUILDER, DO NOT EDIT.
+/**
+ * Converts the embedded fields of ${entity.className} from and to their columns.
+ */
+public class ${entity.className}Serializer {
+<#if hasString>
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+</#if>
+
+    private ${entity.className}Serializer() {
+    }
+<#list embeddedFields as field>
+<#assign type = field.type>
+<#if field.modeName == "BLOB">
+
+    /** Returns the ${field.fieldName} of an entity, read from its blob. */
+    public static ${type.javaType} get${field.fieldName?cap_first}(${entity.className} entity) {
+        byte[] bytes = entity.get${field.propertyName?cap_first}();
+        if (bytes == null) {
+            return null;
+        }
+
+        try {
+            return read${type.methodName}(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException e) {
+            throw new IllegalStateException("The ${field.fieldName} of ${entity.className} can not be read", e);
+        }
+    }
+
+    /** Sets the ${field.fieldName} of an entity, written into its blob. */
+    public static void set${field.fieldName?cap_first}(${entity.className} entity, ${type.javaType} value) {
+        if (value == null) {
+            entity.set${field.propertyName?cap_first}(null);
+            return;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            DataOutputStream out = new DataOutputStream(bytes);
+            write${type.methodName}(out, value);
+            out.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException("The ${field.fieldName} of ${entity.className} can not be written", e);
+        }
+        entity.set${field.propertyName?cap_first}(bytes.toByteArray());
+    }
+<#else>
+
+    /** Returns the ${field.fieldName} of an entity, read from its flattened columns, null if they are all null. */
+    public static ${type.javaType} get${field.fieldName?cap_first}(${entity.className} entity) {
+        if (<#list type.members as member>entity.get${field.getColumnPropertyName(member)?cap_first}() == null<#if member_has_next>
+                && </#if></#list>)
+        {
+            return null;
+        }
+
+        ${type.javaType} value = new ${type.javaType}();
+<#list type.members as member>
+<#assign column = "entity.get" + field.getColumnPropertyName(member)?cap_first + "()">
+<#if member.type.primitive>
+        if (${column} != null) {
+            ${assign(member, column)}
+        }
+<#elseif member.type.codec == "Enum">
+        ${assign(member, column + " != null ? " + member.type.javaType + ".valueOf(" + column + ") : null")}
+<#else>
+        ${assign(member, column)}
+</#if>
+</#list>
+        return value;
+    }
+
+    /** Sets the ${field.fieldName} of an entity, into its flattened columns. */
+    public static void set${field.fieldName?cap_first}(${entity.className} entity, ${type.javaType} value) {
+<#list type.members as member>
+<#if member.type.codec == "Enum">
+        entity.set${field.getColumnPropertyName(member)?cap_first}(value != null && value.${member.getter} != null
+                ? value.${member.getter}.name() : null);
+<#else>
+        entity.set${field.getColumnPropertyName(member)?cap_first}(value != null ? value.${member.getter} : null);
+</#if>
+</#list>
+    }
+</#if>
+</#list>
+<#list serializedTypes as type>
+<#if type.kindName == "VALUE">
+
+    private static void write${type.methodName}(DataOutputStream out, ${type.javaType} value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value == null) {
+            return;
+        }
+<#list type.members as member>
+        ${write(member.type, "value." + member.getter)}
+</#list>
+    }
+
+    private static ${type.javaType} read${type.methodName}(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+
+        ${type.javaType} value = new ${type.javaType}();
+<#list type.members as member>
+        ${assign(member, read(member.type))}
+</#list>
+        return value;
+    }
+<#else>
+
+    private static void write${type.methodName}(DataOutputStream out, ${type.javaType} values) throws IOException {
+        out.writeInt(values != null ? values.size() : -1);
+        if (values == null) {
+            return;
+        }
+        for (${type.elementType.javaType} element : values) {
+            ${write(type.elementType, "element")}
+        }
+    }
+
+    private static ${type.javaType} read${type.methodName}(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+
+        ${type.javaType} values = new ${type.implementationType}<${type.elementType.javaType}>();
+        for (int i = 0; i < size; i++) {
+            values.add(${read(type.elementType)});
+        }
+        return values;
+    }
+</#if>
+</#list>
+<#list codecs?sort as codec>
+<#if codec == "Date">
+
+    private static void writeNullableDate(DataOutputStream out, java.util.Date value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getTime());
+        }
+    }
+
+    private static java.util.Date readNullableDate(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new java.util.Date(in.readLong()) : null;
+    }
+<#elseif boxedTypes[codec]??>
+
+    private static void writeNullable${codec}(DataOutputStream out, ${boxedTypes[codec]} value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.write${codec}(value);
+        }
+    }
+
+    private static ${boxedTypes[codec]} readNullable${codec}(DataInputStream in) throws IOException {
+        return in.readBoolean() ? ${boxedTypes[codec]}.valueOf(in.read${codec}()) : null;
+    }
+</#if>
+</#list>
+<#if hasEnum>
+
+    private static void writeNullableEnum(DataOutputStream out, Enum<?> value) throws IOException {
+        writeNullableString(out, value != null ? value.name() : null);
+    }
+
+    private static <E extends Enum<E>> E readNullableEnum(DataInputStream in, Class<E> enumClass) throws IOException {
+        String name = readNullableString(in);
+        return name != null ? Enum.valueOf(enumClass, name) : null;
+    }
+</#if>
+<#if hasString>
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        writeNullableBytes(out, value != null ? value.getBytes(UTF_8) : null);
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        byte[] bytes = readNullableBytes(in);
+        return bytes != null ? new String(bytes, UTF_8) : null;
+    }
+</#if>
+<#if hasBytes>
+
+    private static void writeNullableBytes(DataOutputStream out, byte[] value) throws IOException {
+        out.writeInt(value != null ? value.length : -1);
+        if (value != null) {
+            out.write(value);
+        }
+    }
+
+    private static byte[] readNullableBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] value = new byte[length];
+        in.readFully(value);
+        return value;
+    }
+</#if>
+}
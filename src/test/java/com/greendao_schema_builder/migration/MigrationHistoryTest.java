@@ -0,0 +1,194 @@
+package com.greendao_schema_builder.migration;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.greendao_schema_builder.migration.SchemaDiffTest.create;
+import static com.greendao_schema_builder.migration.SchemaDiffTest.execute;
+import static com.greendao_schema_builder.migration.SchemaDiffTest.index;
+import static com.greendao_schema_builder.migration.SchemaDiffTest.schema;
+import static com.greendao_schema_builder.migration.SchemaDiffTest.table;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MigrationHistoryTest {
+
+    private static final ColumnLayout CODE = new ColumnLayout("CODE", "TEXT", "PRIMARY KEY NOT NULL");
+    private static final ColumnLayout TITLE = new ColumnLayout("TITLE", "TEXT", "");
+    private static final ColumnLayout PAGES = new ColumnLayout("PAGES", "INTEGER", "");
+    private static final ColumnLayout NOTE = new ColumnLayout("NOTE", "TEXT", "");
+    private static final ColumnLayout COUNT = new ColumnLayout("COUNT", "INTEGER", "NOT NULL");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void missingHistoryIsEmpty() throws Exception {
+        final MigrationHistory history = MigrationHistory.load(folder.getRoot());
+
+        assertEquals(-1, history.getFirstVersion());
+        assertTrue(history.getMigrations().isEmpty());
+    }
+
+    @Test
+    public void firstVersionHasNoMigration() throws Exception {
+        final MigrationHistory history = MigrationHistory.load(folder.getRoot());
+        history.record(schema(3, table("DOCUMENT", CODE, TITLE)));
+
+        assertEquals(3, history.getFirstVersion());
+        assertTrue(history.getMigrations().isEmpty());
+    }
+
+    @Test
+    public void newerVersionRecordsMigration() throws Exception {
+        final MigrationHistory history = MigrationHistory.load(folder.getRoot());
+        history.record(schema(1, table("DOCUMENT", CODE, TITLE)));
+        history.record(schema(2, table("DOCUMENT", CODE, TITLE, NOTE)));
+
+        assertMigrations(history,
+                2, "ALTER TABLE \"DOCUMENT\" ADD COLUMN \"NOTE\" TEXT");
+    }
+
+    @Test
+    public void regeneratingSameVersionRecordsItsMigrationAgain() throws Exception {
+        final MigrationHistory history = MigrationHistory.load(folder.getRoot());
+        history.record(schema(1, table("DOCUMENT", CODE, TITLE)));
+        history.record(schema(2, table("DOCUMENT", CODE, TITLE, NOTE)));
+
+        // The migration to the same version is computed again from the previous version, not from itself.
+        history.record(schema(2, table("DOCUMENT", CODE, TITLE, COUNT)));
+        assertMigrations(history,
+                2, "ALTER TABLE \"DOCUMENT\" ADD COLUMN \"COUNT\" INTEGER NOT NULL DEFAULT 0");
+
+        // Reverting the change removes the migration.
+        history.record(schema(2, table("DOCUMENT", CODE, TITLE)));
+        assertTrue(history.getMigrations().isEmpty());
+        assertEquals(1, history.getFirstVersion());
+    }
+
+    @Test
+    public void keepsMigrationsOfOlderVersions() throws Exception {
+        final MigrationHistory history = MigrationHistory.load(folder.getRoot());
+        history.record(schema(1, table("DOCUMENT", CODE, TITLE)));
+        history.record(schema(2, table("DOCUMENT", CODE, TITLE, NOTE)));
+        history.record(schema(3, table("DOCUMENT", CODE, TITLE, NOTE), table("LINE", CODE)));
+        history.record(schema(3, table("DOCUMENT", CODE, TITLE, NOTE), table("LINE", CODE, TITLE)));
+
+        assertMigrations(history,
+                2, "ALTER TABLE \"DOCUMENT\" ADD COLUMN \"NOTE\" TEXT",
+                3, "CREATE TABLE \"LINE\" (\"CODE\" TEXT PRIMARY KEY NOT NULL,\"TITLE\" TEXT)");
+    }
+
+    @Test
+    public void olderVersionIsRejected() throws Exception {
+        final MigrationHistory history = MigrationHistory.load(folder.getRoot());
+        history.record(schema(1, table("DOCUMENT", CODE, TITLE)));
+        history.record(schema(2, table("DOCUMENT", CODE, TITLE, NOTE)));
+
+        try {
+            history.record(schema(1, table("DOCUMENT", CODE)));
+            fail("An older version should not be recorded.");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        assertMigrations(history,
+                2, "ALTER TABLE \"DOCUMENT\" ADD COLUMN \"NOTE\" TEXT");
+    }
+
+    @Test
+    public void loadsSavedHistory() throws Exception {
+        final MigrationHistory history = MigrationHistory.load(folder.getRoot());
+        history.record(schema(1, table("DOCUMENT",
+                Arrays.asList(CODE, TITLE, PAGES), index("IDX_TITLE", false, "TITLE"))));
+        history.record(schema(2, table("DOCUMENT",
+                Arrays.asList(CODE, TITLE, COUNT), index("IDX_TITLE_COUNT", true, "TITLE", "COUNT"))));
+        history.save();
+
+        final MigrationHistory loaded = MigrationHistory.load(folder.getRoot());
+        assertEquals(history.getFirstVersion(), loaded.getFirstVersion());
+        assertEquals(describe(history), describe(loaded));
+
+        // The loaded layouts are those recorded: the same generation records the same migrations.
+        final SchemaLayout next = schema(2, table("DOCUMENT",
+                Arrays.asList(CODE, TITLE, COUNT, NOTE), index("IDX_TITLE_COUNT", true, "TITLE", "COUNT")));
+        history.record(next);
+        loaded.record(next);
+        assertEquals(describe(history), describe(loaded));
+
+        // And they are saved the same.
+        final File file = new File(folder.getRoot(), MigrationHistory.FILE_NAME);
+        history.save();
+        final byte[] saved = Files.readAllBytes(file.toPath());
+        loaded.save();
+        assertArrayEquals(saved, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void migrationKeepsRowsOfRemainingColumns() throws Exception {
+        final SchemaLayout version1 = schema(1, table("DOCUMENT", CODE, TITLE, PAGES));
+        final MigrationHistory history = MigrationHistory.load(folder.getRoot());
+        history.record(version1);
+        history.record(schema(2, table("DOCUMENT", CODE, new ColumnLayout("TITLE", "TEXT", "NOT NULL"), COUNT)));
+
+        final Connection connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try {
+            create(connection, version1);
+            execute(connection, Arrays.asList(
+                    "INSERT INTO \"DOCUMENT\" VALUES ('a', 'Invoice', 3)",
+                    "INSERT INTO \"DOCUMENT\" VALUES ('b', NULL, NULL)"));
+            for (SchemaMigration migration : history.getMigrations()) {
+                execute(connection, migration.getStatements());
+            }
+
+            final List<String> rows = new ArrayList<String>();
+            final Statement statement = connection.createStatement();
+            final ResultSet resultSet = statement.executeQuery("SELECT * FROM \"DOCUMENT\" ORDER BY \"CODE\"");
+            assertEquals(3, resultSet.getMetaData().getColumnCount());
+            while (resultSet.next()) {
+                rows.add(resultSet.getString("CODE")
+                        + "|" + resultSet.getString("TITLE")
+                        + "|" + resultSet.getInt("COUNT"));
+            }
+            statement.close();
+
+            assertEquals(Arrays.asList("a|Invoice|0", "b||0"), rows);
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * Asserts the migrations of a history, given as versions each followed by its statements.
+     */
+    private static void assertMigrations(MigrationHistory _history, Object ... _versionsAndStatements) {
+        final List<Object> expected = Arrays.asList(_versionsAndStatements);
+        final List<Object> actual = new ArrayList<Object>();
+        for (SchemaMigration migration : _history.getMigrations()) {
+            actual.add(migration.getVersion());
+            actual.addAll(migration.getStatements());
+        }
+        assertEquals(expected, actual);
+    }
+
+    private static List<Object> describe(MigrationHistory _history) {
+        final List<Object> description = new ArrayList<Object>();
+        for (SchemaMigration migration : _history.getMigrations()) {
+            description.add(migration.getVersion());
+            description.add(migration.getStatements());
+        }
+        return description;
+    }
+}
@@ -0,0 +1,260 @@
+package com.greendao_schema_builder.migration;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the statements of every kind of table change, then runs them on SQLite:
+ * the migrated database should have the tables and indexes of a database created with the newer tables.
+ */
+@RunWith(Parameterized.class)
+public class SchemaDiffTest {
+
+    private static final ColumnLayout CODE = new ColumnLayout("CODE", "TEXT", "PRIMARY KEY NOT NULL");
+    private static final ColumnLayout TITLE = new ColumnLayout("TITLE", "TEXT", "");
+    private static final ColumnLayout PAGES = new ColumnLayout("PAGES", "INTEGER", "");
+
+    private static final TableLayout DOCUMENT = table("DOCUMENT", CODE, TITLE, PAGES);
+    private static final TableLayout LINE = table("LINE",
+            new ColumnLayout("_id", "INTEGER", "PRIMARY KEY AUTOINCREMENT"),
+            new ColumnLayout("DOCUMENT_CODE", "TEXT", "NOT NULL"));
+
+    @Parameterized.Parameters(name = "{0}")
+    public static List<Object[]> cases() {
+        return Arrays.asList(
+                new Object[] {
+                        "unchanged tables",
+                        schema(DOCUMENT, LINE),
+                        schema(DOCUMENT, LINE),
+                        Collections.<String>emptyList()
+                },
+                new Object[] {
+                        "added nullable column",
+                        schema(DOCUMENT),
+                        schema(table("DOCUMENT", CODE, TITLE, PAGES, new ColumnLayout("NOTE", "TEXT", ""))),
+                        Arrays.asList(
+                                "ALTER TABLE \"DOCUMENT\" ADD COLUMN \"NOTE\" TEXT")
+                },
+                new Object[] {
+                        "added not null column",
+                        schema(DOCUMENT),
+                        schema(table("DOCUMENT", CODE, TITLE, PAGES,
+                                new ColumnLayout("COUNT", "INTEGER", "NOT NULL"),
+                                new ColumnLayout("AUTHOR", "TEXT", "NOT NULL"),
+                                new ColumnLayout("DATA", "BLOB", "NOT NULL"))),
+                        Arrays.asList(
+                                "ALTER TABLE \"DOCUMENT\" ADD COLUMN \"COUNT\" INTEGER NOT NULL DEFAULT 0",
+                                "ALTER TABLE \"DOCUMENT\" ADD COLUMN \"AUTHOR\" TEXT NOT NULL DEFAULT ''",
+                                "ALTER TABLE \"DOCUMENT\" ADD COLUMN \"DATA\" BLOB NOT NULL DEFAULT X''")
+                },
+                new Object[] {
+                        "added unique column",
+                        schema(DOCUMENT),
+                        schema(table("DOCUMENT", CODE, TITLE, PAGES, new ColumnLayout("NUMBER", "TEXT", "UNIQUE"))),
+                        Arrays.asList(
+                                "CREATE TABLE \"_MIGRATION_DOCUMENT\" (\"CODE\" TEXT PRIMARY KEY NOT NULL,"
+                                        + "\"TITLE\" TEXT,\"PAGES\" INTEGER,\"NUMBER\" TEXT UNIQUE)",
+                                "INSERT INTO \"_MIGRATION_DOCUMENT\" (\"CODE\",\"TITLE\",\"PAGES\")"
+                                        + " SELECT \"CODE\",\"TITLE\",\"PAGES\" FROM \"DOCUMENT\"",
+                                "DROP TABLE \"DOCUMENT\"",
+                                "ALTER TABLE \"_MIGRATION_DOCUMENT\" RENAME TO \"DOCUMENT\"")
+                },
+                new Object[] {
+                        "removed column",
+                        schema(DOCUMENT),
+                        schema(table("DOCUMENT", CODE, TITLE)),
+                        Arrays.asList(
+                                "CREATE TABLE \"_MIGRATION_DOCUMENT\" (\"CODE\" TEXT PRIMARY KEY NOT NULL,\"TITLE\" TEXT)",
+                                "INSERT INTO \"_MIGRATION_DOCUMENT\" (\"CODE\",\"TITLE\")"
+                                        + " SELECT \"CODE\",\"TITLE\" FROM \"DOCUMENT\"",
+                                "DROP TABLE \"DOCUMENT\"",
+                                "ALTER TABLE \"_MIGRATION_DOCUMENT\" RENAME TO \"DOCUMENT\"")
+                },
+                new Object[] {
+                        "nullable column made not null",
+                        schema(DOCUMENT),
+                        schema(table("DOCUMENT", CODE, new ColumnLayout("TITLE", "TEXT", "NOT NULL"), PAGES)),
+                        Arrays.asList(
+                                "CREATE TABLE \"_MIGRATION_DOCUMENT\" (\"CODE\" TEXT PRIMARY KEY NOT NULL,"
+                                        + "\"TITLE\" TEXT NOT NULL,\"PAGES\" INTEGER)",
+                                "INSERT INTO \"_MIGRATION_DOCUMENT\" (\"CODE\",\"TITLE\",\"PAGES\")"
+                                        + " SELECT \"CODE\",IFNULL(\"TITLE\",''),\"PAGES\" FROM \"DOCUMENT\"",
+                                "DROP TABLE \"DOCUMENT\"",
+                                "ALTER TABLE \"_MIGRATION_DOCUMENT\" RENAME TO \"DOCUMENT\"")
+                },
+                new Object[] {
+                        "rebuilt table keeps its indexes",
+                        schema(table("DOCUMENT", Arrays.asList(CODE, TITLE, PAGES), index("IDX_TITLE", false, "TITLE"))),
+                        schema(table("DOCUMENT", Arrays.asList(CODE, TITLE), index("IDX_TITLE", false, "TITLE"))),
+                        Arrays.asList(
+                                "CREATE TABLE \"_MIGRATION_DOCUMENT\" (\"CODE\" TEXT PRIMARY KEY NOT NULL,\"TITLE\" TEXT)",
+                                "INSERT INTO \"_MIGRATION_DOCUMENT\" (\"CODE\",\"TITLE\")"
+                                        + " SELECT \"CODE\",\"TITLE\" FROM \"DOCUMENT\"",
+                                "DROP TABLE \"DOCUMENT\"",
+                                "ALTER TABLE \"_MIGRATION_DOCUMENT\" RENAME TO \"DOCUMENT\"",
+                                "CREATE INDEX \"IDX_TITLE\" ON \"DOCUMENT\" (\"TITLE\")")
+                },
+                new Object[] {
+                        "dropped table",
+                        schema(DOCUMENT, LINE),
+                        schema(DOCUMENT),
+                        Arrays.asList(
+                                "DROP TABLE IF EXISTS \"LINE\"")
+                },
+                new Object[] {
+                        "created table",
+                        schema(DOCUMENT),
+                        schema(DOCUMENT, table("LINE", LINE.getColumns(), index("IDX_LINE", false, "DOCUMENT_CODE"))),
+                        Arrays.asList(
+                                "CREATE TABLE \"LINE\" (\"_id\" INTEGER PRIMARY KEY AUTOINCREMENT,"
+                                        + "\"DOCUMENT_CODE\" TEXT NOT NULL)",
+                                "CREATE INDEX \"IDX_LINE\" ON \"LINE\" (\"DOCUMENT_CODE\")")
+                },
+                new Object[] {
+                        "changed index",
+                        schema(table("DOCUMENT", DOCUMENT.getColumns(), index("IDX_TITLE", false, "TITLE"))),
+                        schema(table("DOCUMENT", DOCUMENT.getColumns(), index("IDX_TITLE", true, "TITLE", "PAGES"))),
+                        Arrays.asList(
+                                "DROP INDEX IF EXISTS \"IDX_TITLE\"",
+                                "CREATE UNIQUE INDEX \"IDX_TITLE\" ON \"DOCUMENT\" (\"TITLE\",\"PAGES\")")
+                }
+        );
+    }
+
+    private final SchemaLayout from;
+    private final SchemaLayout to;
+    private final List<String> expectedStatements;
+
+    public SchemaDiffTest(String _name, SchemaLayout _from, SchemaLayout _to, List<String> _expectedStatements) {
+        from = _from;
+        to = _to;
+        expectedStatements = _expectedStatements;
+    }
+
+    @Test
+    public void computesStatements() {
+        assertEquals(expectedStatements, SchemaDiff.diff(from, to));
+    }
+
+    @Test
+    public void migratesDatabaseToNewerTables() throws SQLException {
+        final Connection migrated = DriverManager.getConnection("jdbc:sqlite::memory:");
+        final Connection created = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try {
+            create(migrated, from);
+            execute(migrated, SchemaDiff.diff(from, to));
+            create(created, to);
+
+            assertEquals(describe(created), describe(migrated));
+        } finally {
+            migrated.close();
+            created.close();
+        }
+    }
+
+    static TableLayout table(String _name, ColumnLayout ... _columns) {
+        return new TableLayout(_name, Arrays.asList(_columns), Collections.<IndexLayout>emptyList());
+    }
+
+    static TableLayout table(String _name, List<ColumnLayout> _columns, IndexLayout ... _indexes) {
+        return new TableLayout(_name, _columns, Arrays.asList(_indexes));
+    }
+
+    static IndexLayout index(String _name, boolean _unique, String ... _columnNames) {
+        return new IndexLayout(_name, _unique, Arrays.asList(_columnNames));
+    }
+
+    static SchemaLayout schema(TableLayout ... _tables) {
+        return schema(1, _tables);
+    }
+
+    static SchemaLayout schema(int _version, TableLayout ... _tables) {
+        final SchemaLayout schema = new SchemaLayout(_version);
+        for (TableLayout table : _tables) {
+            schema.addTable(table);
+        }
+        return schema;
+    }
+
+    static void create(Connection _connection, SchemaLayout _schema) throws SQLException {
+        final List<String> statements = new ArrayList<String>();
+        for (TableLayout table : _schema.getTables()) {
+            statements.add(table.toCreateStatement(table.getName()));
+            for (IndexLayout index : table.getIndexes()) {
+                statements.add(index.toCreateStatement(table.getName()));
+            }
+        }
+        execute(_connection, statements);
+    }
+
+    static void execute(Connection _connection, List<String> _statements) throws SQLException {
+        final Statement statement = _connection.createStatement();
+        try {
+            for (String sql : _statements) {
+                statement.execute(sql);
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * Describes the tables of a database, their columns and their indexes, through the SQLite pragmas.
+     */
+    private static List<String> describe(Connection _connection) throws SQLException {
+        final List<String> description = new ArrayList<String>();
+        final List<String> tableNames = query(_connection,
+                "SELECT name FROM sqlite_master WHERE type = 'table' AND name NOT LIKE 'sqlite_%' ORDER BY name", 1);
+        for (String tableName : tableNames) {
+            description.add("table " + tableName);
+            final List<String> columns = query(_connection,
+                    "PRAGMA table_info(" + SchemaDiff.quote(tableName) + ")", 2, 3, 4, 6);
+            for (String column : columns) {
+                description.add("column " + column);
+            }
+            for (String index : query(_connection, "SELECT name, sql FROM sqlite_master WHERE type = 'index'"
+                    + " AND tbl_name = '" + tableName + "' AND sql IS NOT NULL ORDER BY name", 1, 2)) {
+                description.add("index " + index);
+            }
+            // The indexes of the unique and primary key constraints have no statement, only their kind is compared.
+            final List<String> constraintIndexes = query(_connection,
+                    "PRAGMA index_list(" + SchemaDiff.quote(tableName) + ")", 3, 4);
+            Collections.sort(constraintIndexes);
+            for (String index : constraintIndexes) {
+                description.add("constraint index " + index);
+            }
+        }
+        return description;
+    }
+
+    private static List<String> query(Connection _connection, String _sql, int ... _columns) throws SQLException {
+        final List<String> rows = new ArrayList<String>();
+        final Statement statement = _connection.createStatement();
+        try {
+            final ResultSet resultSet = statement.executeQuery(_sql);
+            while (resultSet.next()) {
+                final StringBuilder row = new StringBuilder();
+                for (int column : _columns) {
+                    row.append(resultSet.getString(column)).append(' ');
+                }
+                rows.add(row.toString().trim());
+            }
+        } finally {
+            statement.close();
+        }
+        return rows;
+    }
+}